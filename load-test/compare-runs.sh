@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Diffs two result sets and fails on regressions beyond THRESHOLD_PCT (default 5):
+#   k6 suite summaries:  load-test/compare-runs.sh build/reports/k6/suite/<base> build/reports/k6/suite/<new>
+#   JMH results:         load-test/compare-runs.sh base.json build/reports/jmh/results.json
+# Lower is better for k6 latencies and JMH average/sample time; higher is better for request
+# rates and JMH throughput. Needs jq.
+set -euo pipefail
+
+BASE=$1
+NEW=$2
+THRESHOLD_PCT=${THRESHOLD_PCT:-5}
+
+# Prints "name<TAB>value<TAB>direction" lines, direction being "higher" or "lower" (is better).
+k6_rows() {
+  for file in "$1"/*.json; do
+    jq -r '.report as $r
+      | [ ["requestsPerSecond", $r.requestsPerSecond, "higher"],
+          ["redirect.p95", $r.redirect.p95, "lower"], ["redirect.p99", $r.redirect.p99, "lower"],
+          ["shorten.p95", $r.shorten.p95, "lower"], ["shorten.p99", $r.shorten.p99, "lower"] ][]
+      | select(.[1] != null)
+      | "\($r.scenario) \(.[0])\t\(.[1])\t\(.[2])"' "$file"
+  done
+}
+
+jmh_rows() {
+  jq -r '.[]
+    | "\(.benchmark)\(if .params then " " + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) else "" end)"
+      + "\t\(.primaryMetric.score)\t\(if .mode == "thrpt" then "higher" else "lower" end)"' "$1"
+}
+
+rows() {
+  if [ -d "$1" ]; then k6_rows "$1"; else jmh_rows "$1"; fi
+}
+
+regressions=0
+while IFS=$'\t' read -r name base new direction; do
+  delta=$(awk -v b="$base" -v n="$new" 'BEGIN { printf "%+.1f", b == 0 ? 0 : (n - b) * 100 / b }')
+  worse=$(awk -v d="$delta" -v dir="$direction" -v t="$THRESHOLD_PCT" \
+    'BEGIN { print ((dir == "lower" && d > t) || (dir == "higher" && -d > t)) ? "REGRESSION" : "" }')
+  printf '%-70s %14.3f %14.3f %8s%% %s\n' "$name" "$base" "$new" "$delta" "$worse"
+  [ -z "$worse" ] || regressions=$((regressions + 1))
+done < <(join -t $'\t' <(rows "$BASE" | sort) <(rows "$NEW" | sort) | awk -F'\t' -v OFS='\t' '{ print $1, $2, $4, $3 }')
+
+if [ "$regressions" -gt 0 ]; then
+  echo "$regressions regression(s) beyond ${THRESHOLD_PCT}%" >&2
+  exit 1
+fi
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread request execution with the k6 script.
+#
+# For each mode the app jar is started fresh, then READ_RPS is stepped up until k6 thresholds
+# (error rate, p95) fail. The script prints redirect p99 at every step and the highest rate
+# that still passed, i.e. the maximum sustainable RPS.
+#
+# Usage: ./gradlew bootJar && load-test/compare-thread-modes.sh
+# Env:   RPS_STEPS="500 1000 2000 4000 8000" DURATION=1m WRITE_RPS=5 DB_POOL_SIZE=10 PORT=8080
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)
+PORT=${PORT:-8080}
+RPS_STEPS=${RPS_STEPS:-"500 1000 2000 4000 8000"}
+DURATION=${DURATION:-1m}
+WRITE_RPS=${WRITE_RPS:-5}
+OUT_DIR=build/reports/thread-modes
+mkdir -p "$OUT_DIR"
+
+run_mode() {
+  local mode=$1 profile=$2
+  java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profile" >"$OUT_DIR/$mode-app.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+  until curl -sf "http://localhost:$PORT/actuator/health" >/dev/null; do sleep 0.5; done
+
+  local sustained=0
+  for rps in $RPS_STEPS; do
+    local summary="$OUT_DIR/$mode-$rps.json"
+    if BASE_URL="http://localhost:$PORT" READ_RPS=$rps WRITE_RPS=$WRITE_RPS DURATION=$DURATION \
+        k6 run --quiet --summary-export "$summary" load-test/url-shortener.k6.js >/dev/null 2>&1; then
+      status=pass
+      sustained=$rps
+    else
+      status=fail
+    fi
+    p99=$(jq -r '.metrics["http_req_duration{endpoint:redirect}"]["p(99)"] // "n/a"' "$summary")
+    printf '%-9s read_rps=%-6s redirect_p99_ms=%-10s %s\n' "$mode" "$rps" "$p99" "$status"
+    [ "$status" = pass ] || break
+  done
+  printf '%-9s max sustainable read_rps=%s\n' "$mode" "$sustained"
+}
+
+run_mode platform default
+run_mode virtual virtual-threads
@@ -0,0 +1,120 @@
+import http from 'k6/http';
+import { check, sleep, randomSeed } from 'k6';
+import { Counter } from 'k6/metrics';
+
+// Redirects through a caching proxy (load-test/caching-proxy/nginx.conf), compared with what the
+// origin actually served. Start the app with --redirect.cache.public=true to let the proxy cache.
+const ORIGIN_URL = __ENV.ORIGIN_URL || 'http://localhost:8080';
+const PROXY_URL = __ENV.PROXY_URL || 'http://localhost:8081';
+const TEST_DURATION = __ENV.DURATION || '1m';
+const READ_RPS = Number(__ENV.READ_RPS || 500);
+const SEED_COUNT = Number(__ENV.SEED_COUNT || 1000);
+const ZIPF_S = Number(__ENV.ZIPF_S || 1.1);
+const SUMMARY_PATH = __ENV.SUMMARY_PATH || 'build/reports/k6/redirect-behind-proxy.json';
+const ORIGIN_REDIRECTS = `${ORIGIN_URL}/actuator/metrics/http.server.requests?tag=${encodeURIComponent('uri:/{shortCode}')}`;
+
+randomSeed(Number(__ENV.RANDOM_SEED || 12345));
+
+const proxyHits = new Counter('proxy_cache_hits');
+const proxyMisses = new Counter('proxy_cache_misses');
+
+export const options = {
+  scenarios: {
+    redirects: {
+      executor: 'constant-arrival-rate',
+      rate: READ_RPS,
+      timeUnit: '1s',
+      duration: TEST_DURATION,
+      preAllocatedVUs: Math.max(20, Math.ceil(READ_RPS * 0.2)),
+      maxVUs: Math.max(50, READ_RPS),
+      exec: 'redirects',
+    },
+  },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+// Cumulative weights for rank i of SEED_COUNT with P(i) ~ 1 / i^s: a few codes get most traffic.
+const zipf = (() => {
+  const weights = [];
+  let total = 0;
+  for (let i = 1; i <= SEED_COUNT; i++) {
+    total += 1 / Math.pow(i, ZIPF_S);
+    weights.push(total);
+  }
+  return weights.map((w) => w / total);
+})();
+
+function zipfIndex() {
+  const u = Math.random();
+  let lo = 0;
+  let hi = zipf.length - 1;
+  while (lo < hi) {
+    const mid = (lo + hi) >> 1;
+    if (zipf[mid] < u) lo = mid + 1; else hi = mid;
+  }
+  return lo;
+}
+
+function originRedirectCount() {
+  const res = http.get(ORIGIN_REDIRECTS, { tags: { endpoint: 'metrics' } });
+  if (res.status !== 200) return 0;
+  const count = (res.json('measurements') || []).find((m) => m.statistic === 'COUNT');
+  return count ? count.value : 0;
+}
+
+export function setup() {
+  const codes = [];
+  for (let i = 0; i < SEED_COUNT; i++) {
+    const res = http.post(`${ORIGIN_URL}/api/v1/shorten`,
+      JSON.stringify({ longUrl: `https://example.com/cdn/${i}?t=${Date.now()}` }),
+      { headers: { 'Content-Type': 'application/json' }, tags: { endpoint: 'shorten', phase: 'seed' } });
+    if (res.status === 200) {
+      codes.push(res.json('shortUrl').split('/').pop());
+    }
+  }
+  sleep(1);
+  return { codes, originBefore: originRedirectCount(), startedAt: Date.now() };
+}
+
+export function redirects(data) {
+  const code = data.codes[zipfIndex() % data.codes.length];
+  const res = http.get(`${PROXY_URL}/${code}`, { redirects: 0, tags: { endpoint: 'redirect' } });
+  check(res, {
+    'redirect 3xx': (r) => r.status >= 301 && r.status <= 308 && r.status !== 304,
+    'has Location': (r) => Boolean(r.headers['Location']),
+  });
+  const cacheStatus = res.headers['X-Cache-Status'];
+  if (cacheStatus === 'HIT' || cacheStatus === 'STALE' || cacheStatus === 'UPDATING' || cacheStatus === 'REVALIDATED') {
+    proxyHits.add(1);
+  } else {
+    proxyMisses.add(1);
+  }
+}
+
+export function teardown(data) {
+  const seconds = (Date.now() - data.startedAt) / 1000;
+  const originRequests = originRedirectCount() - data.originBefore;
+  console.log(`origin served ${originRequests} redirect requests, ${(originRequests / seconds).toFixed(1)} RPS`);
+}
+
+export function handleSummary(data) {
+  const metric = (name, field) => (data.metrics[name] ? data.metrics[name].values[field] : 0);
+  const seconds = data.state.testRunDurationMs / 1000;
+  const hits = metric('proxy_cache_hits', 'count');
+  const misses = metric('proxy_cache_misses', 'count');
+  // Misses are what the proxy forwarded; teardown logs the origin's own count for comparison.
+  const report = {
+    clientRps: (hits + misses) / seconds,
+    proxyHitRatio: hits + misses === 0 ? 0 : hits / (hits + misses),
+    originRedirectRps: misses / seconds,
+    redirectP95Ms: metric('http_req_duration', 'p(95)'),
+  };
+  return {
+    stdout: `client RPS ${report.clientRps.toFixed(1)}, proxy hit ratio ${(report.proxyHitRatio * 100).toFixed(1)}%, `
+      + `origin redirect RPS ~${report.originRedirectRps.toFixed(1)}\n`,
+    [SUMMARY_PATH]: JSON.stringify({ report, metrics: data.metrics }, null, 2),
+  };
+}
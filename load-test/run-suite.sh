@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Runs the k6 suite (load-test/suite.k6.js) against a running app, one scenario after another,
+# and leaves one JSON summary per scenario under build/reports/k6/suite/<label>/.
+#
+# Usage: load-test/run-suite.sh [label]        (label defaults to the short git revision)
+# Env:   SCENARIOS="seed zipf not-found write-burst" BASE_URL=http://localhost:8080 REDIRECT_URL plus any
+#        suite.k6.js variable (SEED_COUNT, READ_RPS, DURATION, ...). Drop "seed" once seeded.
+# Start the app with --ratelimit.enabled=false.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+REV=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+LABEL=${1:-$REV}
+SCENARIOS=${SCENARIOS:-"seed zipf not-found write-burst"}
+OUT_DIR=build/reports/k6/suite/$LABEL
+mkdir -p "$OUT_DIR"
+
+status=0
+for scenario in $SCENARIOS; do
+  if ! k6 run --quiet -e SCENARIO="$scenario" -e SUMMARY_DIR="$OUT_DIR" -e GIT_REV="$REV" load-test/suite.k6.js; then
+    echo "$scenario: thresholds failed" >&2
+    status=1
+  fi
+done
+echo "Summaries in $OUT_DIR; compare two runs with load-test/compare-runs.sh"
+exit $status
@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+# Time to first redirect and RSS at that moment, for a plain start of the boot jar and for the
+# fast-start setup (profile plus JDK AOT cache, plus Spring AOT when built with -Paot). Each is
+# started RUNS times against the same H2 file database, which holds one alias seeded beforehand;
+# the clock runs from launch until GET /<alias> first answers 301. Medians go to
+# build/reports/startup/report.md.
+#
+# Usage: ./gradlew aotCache [-Paot] && load-test/startup-report.sh
+# Env:   RUNS=5 PORT=8080 SPRING_AOT=false (set true after building with -Paot). The java on PATH
+#        must be the JDK 25 the cache was built with.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+SPRING_AOT=${SPRING_AOT:-false}
+JAR=$(ls build/aot-cache/app/*.jar)
+CACHE=build/aot-cache/app.aot
+OUT_DIR=build/reports/startup
+CODE=startup-probe
+DATA_DIR=$(mktemp -d)
+trap 'rm -rf "$DATA_DIR"' EXIT
+APP_ARGS=("--spring.datasource.url=jdbc:h2:file:$DATA_DIR/shortner;MODE=MySQL" "--server.port=$PORT")
+mkdir -p "$OUT_DIR"
+
+stop() {
+  kill "$1"
+  wait "$1" 2>/dev/null || true
+}
+
+# One plain start that creates the schema and the alias every measured start asks for.
+java -jar "$JAR" "${APP_ARGS[@]}" >"$OUT_DIR/seed.log" 2>&1 &
+pid=$!
+until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health"; do sleep 0.2; done
+curl -sf -o /dev/null -H 'Content-Type: application/json' \
+  -d "{\"longUrl\":\"https://example.com/startup\",\"customAlias\":\"$CODE\"}" "http://localhost:$PORT/api/v1/shorten"
+stop "$pid"
+
+# Prints "<ms to first redirect> <RSS kB>" for one start with the given java arguments.
+measure() {
+  local start pid ms rss
+  start=$(date +%s%N)
+  java "$@" -jar "$JAR" "${APP_ARGS[@]}" >"$OUT_DIR/app.log" 2>&1 &
+  pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/$CODE")" = 301 ]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "app exited before redirecting; see $OUT_DIR/app.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  ms=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss=$(awk '/^VmRSS/ { print $2 }' "/proc/$pid/status")
+  stop "$pid"
+  echo "$ms $rss"
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+# Prints the markdown row for one mode.
+run_mode() {
+  local name=$1 samples
+  shift
+  samples=$(for _ in $(seq "$RUNS"); do measure "$@"; done)
+  echo "$samples" > "$OUT_DIR/$name.txt"
+  printf '| %s | %s | %s |\n' "$name" \
+    "$(cut -d' ' -f1 <<<"$samples" | median)" \
+    "$(( $(cut -d' ' -f2 <<<"$samples" | median) / 1024 ))"
+}
+
+FAST=("-XX:AOTCache=$CACHE" -Dspring.profiles.active=fast-start)
+if [ "$SPRING_AOT" = true ]; then
+  FAST+=(-Dspring.aot.enabled=true)
+fi
+
+{
+  echo "Startup, median of $RUNS runs ($(git rev-parse --short HEAD 2>/dev/null || echo unknown), $(java -version 2>&1 | head -1))"
+  echo
+  echo '| mode | time to first redirect (ms) | RSS at first redirect (MB) |'
+  echo '|---|---|---|'
+  run_mode baseline
+  run_mode fast-start "${FAST[@]}"
+} | tee "$OUT_DIR/report.md"
@@ -0,0 +1,232 @@
+import http from 'k6/http';
+import { check, randomSeed } from 'k6';
+import { SharedArray } from 'k6/data';
+import exec from 'k6/execution';
+import { Counter } from 'k6/metrics';
+
+// Reproducible scenarios against a large seed, one per run, selected with SCENARIO:
+//   seed         creates SEED_COUNT mappings through the batch endpoint and writes their codes to SEED_FILE
+//   zipf         redirects with Zipf-skewed popularity over the seeded codes (ZIPF_S=0 is uniform)
+//   not-found    redirects where NOT_FOUND_RATIO of the codes do not exist
+//   write-burst  steady redirects while shorten traffic ramps from BASE_WRITE_RPS to BURST_WRITE_RPS
+// Seeded codes are generated ones, as real traffic creates them; the read scenarios load them from
+// SEED_FILE, in seed order, so Zipf rank 0 is always the same mapping. Start the app with
+// --ratelimit.enabled=false.
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const REDIRECT_URL = __ENV.REDIRECT_URL || BASE_URL; // e.g. the fast-path listener on :8090
+const SCENARIO = __ENV.SCENARIO || 'zipf';
+const SEED_COUNT = Number(__ENV.SEED_COUNT || 1000000);
+const SEED_BATCH = Number(__ENV.SEED_BATCH || 1000);
+const SEED_PARALLEL = Number(__ENV.SEED_PARALLEL || 8);
+// Relative to the working directory (the repo root); open() below resolves against this script's directory.
+const SEED_FILE = __ENV.SEED_FILE || 'build/k6/seed-codes.txt';
+const DURATION = __ENV.DURATION || '2m';
+const READ_RPS = Number(__ENV.READ_RPS || 2000);
+const ZIPF_S = Number(__ENV.ZIPF_S || 1.1);
+const NOT_FOUND_RATIO = Number(__ENV.NOT_FOUND_RATIO || 0.9);
+const BASE_WRITE_RPS = Number(__ENV.BASE_WRITE_RPS || 10);
+const BURST_WRITE_RPS = Number(__ENV.BURST_WRITE_RPS || 1000);
+const SUMMARY_DIR = __ENV.SUMMARY_DIR || 'build/reports/k6/suite';
+
+randomSeed(Number(__ENV.RANDOM_SEED || 12345));
+
+const seeded = new Counter('seeded_mappings');
+const seedErrors = new Counter('seed_errors');
+
+// One copy for all VUs; the seed run itself has no file to read yet.
+const codes = SCENARIO === 'seed' ? [] : new SharedArray('seed codes',
+  () => open(SEED_FILE.startsWith('/') ? SEED_FILE : `../${SEED_FILE}`).split('\n').filter((code) => code));
+
+const reads = (rate) => ({
+  executor: 'constant-arrival-rate',
+  rate,
+  timeUnit: '1s',
+  duration: DURATION,
+  preAllocatedVUs: Math.max(20, Math.ceil(rate * 0.1)),
+  maxVUs: Math.max(100, rate),
+});
+
+const SCENARIOS = {
+  seed: {
+    // setup() does the seeding; this only checks that a seeded code redirects.
+    verifySeed: {
+      executor: 'per-vu-iterations',
+      vus: 1,
+      iterations: 1,
+      exec: 'verifySeed',
+    },
+  },
+  zipf: {
+    zipf: { ...reads(READ_RPS), exec: 'zipf' },
+  },
+  'not-found': {
+    notFound: { ...reads(READ_RPS), exec: 'notFound' },
+  },
+  'write-burst': {
+    reads: { ...reads(READ_RPS), exec: 'zipf' },
+    writes: {
+      executor: 'ramping-arrival-rate',
+      startRate: BASE_WRITE_RPS,
+      timeUnit: '1s',
+      preAllocatedVUs: Math.max(20, Math.ceil(BURST_WRITE_RPS * 0.1)),
+      maxVUs: Math.max(100, BURST_WRITE_RPS),
+      stages: [
+        { target: BASE_WRITE_RPS, duration: '30s' },
+        { target: BURST_WRITE_RPS, duration: '10s' },
+        { target: BURST_WRITE_RPS, duration: '30s' },
+        { target: BASE_WRITE_RPS, duration: '10s' },
+        { target: BASE_WRITE_RPS, duration: '30s' },
+      ],
+      exec: 'shorten',
+    },
+  },
+};
+
+if (!SCENARIOS[SCENARIO]) {
+  throw new Error(`Unknown SCENARIO ${SCENARIO}; use one of ${Object.keys(SCENARIOS).join(', ')}`);
+}
+
+if (SCENARIO !== 'seed' && codes.length === 0) {
+  throw new Error(`No seeded codes in ${SEED_FILE}; run SCENARIO=seed first`);
+}
+
+export const options = {
+  scenarios: SCENARIOS[SCENARIO],
+  setupTimeout: SCENARIO === 'seed' ? '2h' : '60s',
+  batchPerHost: SEED_PARALLEL,
+  summaryTrendStats: ['avg', 'min', 'med', 'max', 'p(90)', 'p(95)', 'p(99)'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+    'http_req_duration{endpoint:redirect}': ['p(95)<100'],
+    'http_req_duration{endpoint:shorten}': ['p(95)<200'],
+  },
+};
+
+function seedUrl(i) {
+  return `https://example.com/products/item/${i}?ref=seed`;
+}
+
+// Inverse CDF of the continuous power law over [1, codes.length + 1): O(1) per draw, no table.
+function zipfCode() {
+  const u = Math.random();
+  const n = codes.length + 1;
+  const rank = ZIPF_S === 1
+    ? Math.pow(n, u)
+    : Math.pow((Math.pow(n, 1 - ZIPF_S) - 1) * u + 1, 1 / (1 - ZIPF_S));
+  return codes[Math.min(codes.length - 1, Math.floor(rank) - 1)];
+}
+
+function redirect(code, expected) {
+  const res = http.get(`${REDIRECT_URL}/${code}`, {
+    redirects: 0,
+    tags: { endpoint: 'redirect', expected: String(expected) },
+    responseCallback: http.expectedStatuses(expected),
+  });
+  check(res, { [`redirect ${expected}`]: (r) => r.status === expected });
+}
+
+function seedBatch(batch) {
+  const from = batch * SEED_BATCH;
+  const requests = [];
+  for (let i = from; i < Math.min(from + SEED_BATCH, SEED_COUNT); i++) {
+    requests.push({ longUrl: seedUrl(i) });
+  }
+  return ['POST', `${BASE_URL}/api/v1/shorten/batch`, JSON.stringify(requests), {
+    headers: { 'Content-Type': 'application/json' },
+    tags: { endpoint: 'seed' },
+    timeout: '120s',
+  }];
+}
+
+// Seeds SEED_PARALLEL batches at a time and hands the codes, in seed order, to handleSummary,
+// the only place k6 can write a file. Re-running the seed is harmless: each URL dedups to the
+// mapping it already has, so the file comes out the same.
+export function setup() {
+  if (SCENARIO !== 'seed') {
+    return {};
+  }
+  const seededCodes = [];
+  const batches = Math.ceil(SEED_COUNT / SEED_BATCH);
+  for (let first = 0; first < batches; first += SEED_PARALLEL) {
+    const requests = [];
+    for (let batch = first; batch < Math.min(first + SEED_PARALLEL, batches); batch++) {
+      requests.push(seedBatch(batch));
+    }
+    http.batch(requests).forEach((res, i) => {
+      const size = Math.min(SEED_BATCH, SEED_COUNT - (first + i) * SEED_BATCH);
+      if (!check(res, { 'seed batch 200': (r) => r.status === 200 })) {
+        seedErrors.add(size);
+        return;
+      }
+      const results = res.json();
+      const failed = results.filter((r) => r.error).length;
+      results.filter((r) => !r.error).forEach((r) => seededCodes.push(r.shortCode));
+      seeded.add(size - failed);
+      seedErrors.add(failed);
+    });
+  }
+  return { codes: seededCodes };
+}
+
+export function verifySeed(data) {
+  if (data.codes.length > 0) {
+    redirect(data.codes[0], 301);
+  }
+}
+
+export function zipf() {
+  redirect(zipfCode(), 301);
+}
+
+export function notFound() {
+  if (Math.random() < NOT_FOUND_RATIO) {
+    redirect(`nf-${Math.floor(Math.random() * 1e12).toString(36)}`, 404);
+  } else {
+    redirect(zipfCode(), 301);
+  }
+}
+
+export function shorten() {
+  const longUrl = `https://example.com/burst/${exec.vu.idInTest}/${exec.scenario.iterationInTest}?r=${Math.random()}`;
+  const res = http.post(`${BASE_URL}/api/v1/shorten`, JSON.stringify({ longUrl }), {
+    headers: { 'Content-Type': 'application/json' },
+    tags: { endpoint: 'shorten' },
+  });
+  check(res, { 'shorten 200': (r) => r.status === 200 });
+}
+
+// One flat report per run, stable field names, so two runs can be diffed (load-test/compare-runs.sh).
+export function handleSummary(data) {
+  const values = (name) => (data.metrics[name] ? data.metrics[name].values : {});
+  const latency = (name) => {
+    const v = values(name);
+    return { count: v.count, avg: v.avg, p50: v.med, p90: v['p(90)'], p95: v['p(95)'], p99: v['p(99)'], max: v.max };
+  };
+  const seconds = data.state.testRunDurationMs / 1000;
+  const report = {
+    scenario: SCENARIO,
+    revision: __ENV.GIT_REV || null,
+    seedCount: SCENARIO === 'seed' ? SEED_COUNT : codes.length,
+    durationSeconds: seconds,
+    requestsPerSecond: (values('http_reqs').count || 0) / seconds,
+    errorRate: values('http_req_failed').rate || 0,
+    redirect: latency('http_req_duration{endpoint:redirect}'),
+    shorten: latency('http_req_duration{endpoint:shorten}'),
+    seeded: values('seeded_mappings').count || 0,
+    seedErrors: values('seed_errors').count || 0,
+  };
+  const outputs = {
+    stdout: `${SCENARIO}: ${report.requestsPerSecond.toFixed(1)} req/s, error rate ${(report.errorRate * 100).toFixed(2)}%, `
+      + `redirect p99 ${report.redirect.p99 === undefined ? 'n/a' : report.redirect.p99.toFixed(2) + ' ms'}\n`,
+    [`${SUMMARY_DIR}/${SCENARIO}.json`]: JSON.stringify({ report, metrics: data.metrics }, null, 2),
+  };
+  if (SCENARIO === 'seed' && data.setup_data) {
+    outputs[SEED_FILE] = data.setup_data.codes.join('\n') + '\n';
+  }
+  return outputs;
+}
+
+// k6 run -e SCENARIO=seed -e SEED_FILE=build/k6/seed-codes.txt load-test/suite.k6.js
+// k6 run -e SCENARIO=zipf -e READ_RPS=5000 load-test/suite.k6.js
+// k6 run -e SCENARIO=not-found -e NOT_FOUND_RATIO=0.95 load-test/suite.k6.js
+// k6 run -e SCENARIO=write-burst -e BURST_WRITE_RPS=2000 load-test/suite.k6.js
@@ -3,6 +3,7 @@ import { check, sleep, randomSeed } from 'k6';
 
 // Configuration via environment variables
 const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const REDIRECT_URL = __ENV.REDIRECT_URL || BASE_URL; // e.g. the fast-path listener on :8090
 const API_PATH = __ENV.API_PATH || '/api/v1/shorten';
 const TEST_DURATION = __ENV.DURATION || '1m';
 const READ_RPS = Number(__ENV.READ_RPS || 100);   // redirects per second
@@ -40,6 +41,7 @@ export const options = {
       startTime: '0s',
     },
   },
+  summaryTrendStats: ['avg', 'min', 'med', 'max', 'p(90)', 'p(95)', 'p(99)'],
   thresholds: {
     http_req_failed: ['rate<0.01'], // <1% errors overall
     'http_req_duration{endpoint:redirect}': ['p(95)<100'],
@@ -77,7 +79,7 @@ export function redirects(data) {
   if (!code) {
     return;
   }
-  const res = http.get(`${BASE_URL}/${code}`, {
+  const res = http.get(`${REDIRECT_URL}/${code}`, {
     redirects: 0, // we expect a 301 and do not want to follow
     tags: { endpoint: 'redirect' },
   });
@@ -0,0 +1,130 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.util.Base62Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code entries} redirect targets held on-heap ({@code store=heap}: the Caffeine redirect cache
+ * sized to hold them all) against off-heap ({@code store=arena}: a {@link UrlArena}). URLs follow
+ * the k6 seed, {@code https://example.com/products/item/<i>?ref=seed}, under Snowflake-like codes.
+ * <ul>
+ *   <li>Setup prints bytes per mapping: heap growth after a full GC, plus the arena's off-heap bytes.</li>
+ *   <li>{@code fullGc} times {@code System.gc()} with the entries live, the pause a large cache adds.</li>
+ *   <li>{@code lookup} reads a target.</li>
+ *   <li>{@code copyUrl} writes a target's URL into a scratch array, as the fast path's Location header:
+ *       from the cached {@code String} on-heap, with {@link UrlArena#copyUrl} off-heap. With
+ *       {@code -prof gc}, {@code gc.alloc.rate.norm} is the allocation per hit.</li>
+ * </ul>
+ *
+ * <pre>./gradlew jmh -PjmhArgs="UrlArenaBenchmark -p entries=10000000 -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UrlArenaBenchmark {
+
+    private static final int PROBES = 4096;
+    private static final long FIRST_ID = 1L << 40;
+
+    @Param({"heap", "arena"})
+    public String store;
+
+    @Param({"10000000"})
+    public int entries;
+
+    private RedirectCache heap;
+    private UrlArena arena;
+    private final String[] codes = new String[PROBES];
+    private final long[] keys = new long[PROBES];
+    private final byte[] scratch = new byte[8192];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Base62Encoder base62 = new Base62Encoder();
+        long before = usedHeapAfterGc();
+        if (store.equals("heap")) {
+            heap = new RedirectCache(entries, Duration.ofDays(1), 1000, Duration.ofDays(1),
+                    false, 0, DataSize.ofBytes(0), DataSize.ofBytes(0));
+        } else {
+            arena = new UrlArena(entries, DataSize.ofGigabytes(2).toBytes(), DataSize.ofMegabytes(64).toBytes());
+        }
+        for (int i = 0; i < entries; i++) {
+            // Snowflake-like ids: millisecond steps, sequence bits mostly zero
+            String code = base62.toBase62(FIRST_ID + ((long) i << 12));
+            RedirectTarget target = new RedirectTarget("https://example.com/products/item/" + i + "?ref=seed", null, false, null);
+            if (heap != null) {
+                heap.put(code, CachedRedirect.of(target));
+            } else {
+                arena.put(UrlArena.key(code), code, target);
+            }
+            int probe = (int) ((i * 2_654_435_761L) % entries);
+            if (probe < PROBES) {
+                codes[probe] = code;
+                keys[probe] = UrlArena.key(code);
+            }
+        }
+        long heapBytes = usedHeapAfterGc() - before;
+        long offHeapBytes = arena == null ? 0 : arena.usedBytes();
+        System.out.printf("%n%s, %d entries: %.1f heap + %.1f off-heap bytes per mapping%s%n", store, entries,
+                (double) heapBytes / entries, (double) offHeapBytes / entries,
+                arena == null ? "" : ", " + arena.prefixCount() + " prefixes");
+    }
+
+    @Benchmark
+    public Object lookup() {
+        int i = next();
+        return heap != null ? heap.get(codes[i]).target() : arena.get(keys[i], codes[i]);
+    }
+
+    @Benchmark
+    public long copyUrl() {
+        int i = next();
+        if (heap != null) {
+            String url = heap.get(codes[i]).target().longUrl();
+            for (int c = 0; c < url.length(); c++) {
+                scratch[c] = (byte) url.charAt(c);
+            }
+            return url.length();
+        }
+        return arena.copyUrl(keys[i], codes[i], scratch, 0, scratch.length);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+
+    private int next() {
+        return cursor++ & (PROBES - 1);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
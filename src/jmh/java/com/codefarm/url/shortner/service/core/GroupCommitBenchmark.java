@@ -0,0 +1,107 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.UrlShortnerServiceApplication;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Creates per second through {@code shortenUrl} with 1, 16 and 256 concurrent writers, one
+ * transaction per create ({@code groupCommit=false}) against group commit. {@code database=file}
+ * puts H2 on disk so commits cost what they would on a real database; the pool keeps its
+ * default size, so without grouping most of the 256 writers wait for a connection.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="GroupCommitBenchmark -p database=file"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+    private static final String BASE_URL = "http://localhost:8080/";
+
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    @Param({"mem", "file"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService service;
+    private Path dataDir;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("group-commit-bench");
+        String url = database.equals("file")
+                ? "jdbc:h2:file:" + dataDir.resolve("shortner") + ";MODE=MySQL"
+                : "jdbc:h2:mem:group-commit;DB_CLOSE_DELAY=-1;MODE=MySQL";
+        context = new SpringApplicationBuilder(UrlShortnerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("shorten.group-commit.enabled=" + groupCommit, "spring.datasource.url=" + url,
+                        "spring.jpa.show-sql=false", "analytics.clicks.enabled=false", "cache.warmup.enabled=false",
+                        "expiry.sweep.enabled=false", "logging.level.root=WARN")
+                .run();
+        service = context.getBean(UrlShortenerService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object writers1() {
+        return create();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object writers16() {
+        return create();
+    }
+
+    @Benchmark
+    @Threads(256)
+    public Object writers256() {
+        return create();
+    }
+
+    private Object create() {
+        return service.shortenUrl(new ShortenRequest("https://example.com/group/" + created.incrementAndGet(), null),
+                BASE_URL, null);
+    }
+}
@@ -0,0 +1,82 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.UrlShortnerServiceApplication;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the hot-path timers on the cheapest redirect paths, where they weigh most: a cache
+ * hit and an unknown code rejected by the Bloom filter. Compare the {@code hotPath=true} and
+ * {@code hotPath=false} scores; the target is under 1% apart. The context runs with the
+ * Prometheus registry and percentile histograms on, as in production.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="HotPathMetricsBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@Threads(4)
+public class HotPathMetricsBenchmark {
+
+    private static final int CODES = 10_000;
+
+    @Param({"true", "false"})
+    public boolean hotPath;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService service;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UrlShortnerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("metrics.hot-path.enabled=" + hotPath, "spring.jpa.show-sql=false",
+                        "analytics.clicks.enabled=false", "cache.warmup.enabled=false", "expiry.sweep.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        service = context.getBean(UrlShortenerService.class);
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = service.shortenUrl(new ShortenRequest("https://example.com/metrics/" + i, null),
+                    "http://localhost:8080/", null).shortCode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object cacheHit() {
+        return service.redirect(codes[ThreadLocalRandom.current().nextInt(CODES)], null);
+    }
+
+    @Benchmark
+    public Object unknownCode() {
+        return service.redirect("zz" + ThreadLocalRandom.current().nextInt(CODES), null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shorten-path dedup cost (lookup, then insert on a miss) as {@code url_mappings} grows.
+ * {@code byHash} is the indexed {@code long_url_hash} lookup used by the service; {@code byLongUrl}
+ * is the previous unindexed {@code long_url} scan, kept for comparison. The scan variant is
+ * impractically slow at 10M rows, so run it with {@code -p rows=10000,100000}.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="LongUrlDedupBenchmark.byHash"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LongUrlDedupBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Connection connection;
+    private PreparedStatement selectByHash;
+    private PreparedStatement selectByLongUrl;
+    private PreparedStatement insert;
+    private String[] probes;
+    private long insertedCodes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:dedup" + rows + ";DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table url_mappings (short_code varchar(16) primary key, long_url varchar(2048) not null, "
+                    + "long_url_hash bigint, created_at timestamp not null, is_custom boolean not null, user_id varchar(255))");
+            ddl.execute("create index idx_url_mappings_long_url_hash on url_mappings (long_url_hash)");
+        }
+        insert = connection.prepareStatement(
+                "insert into url_mappings (short_code, long_url, long_url_hash, created_at, is_custom) values (?, ?, ?, ?, false)");
+        connection.setAutoCommit(false);
+        for (int i = 0; i < rows; i++) {
+            bindInsert("s" + i, seedUrl(i));
+            insert.addBatch();
+            if (i % 10_000 == 9_999) {
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+        insert.executeBatch();
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        selectByHash = connection.prepareStatement("select short_code, long_url from url_mappings where long_url_hash = ?");
+        selectByLongUrl = connection.prepareStatement("select short_code from url_mappings where long_url = ?");
+
+        // Half of the probes hit existing rows, half are new URLs that get inserted.
+        probes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = (i % 2 == 0) ? seedUrl((int) ((i * 2654435761L) % rows)) : null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement drop = connection.createStatement()) {
+            drop.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean byHash() throws SQLException {
+        String longUrl = nextProbe();
+        selectByHash.setLong(1, UrlHashing.longUrlHash(longUrl));
+        try (ResultSet rs = selectByHash.executeQuery()) {
+            while (rs.next()) {
+                if (rs.getString(2).equals(longUrl)) {
+                    return true;
+                }
+            }
+        }
+        insertNew(longUrl);
+        return false;
+    }
+
+    @Benchmark
+    public boolean byLongUrl() throws SQLException {
+        String longUrl = nextProbe();
+        selectByLongUrl.setString(1, longUrl);
+        try (ResultSet rs = selectByLongUrl.executeQuery()) {
+            if (rs.next()) {
+                return true;
+            }
+        }
+        insertNew(longUrl);
+        return false;
+    }
+
+    private String nextProbe() {
+        int i = cursor++ & (PROBES - 1);
+        String probe = probes[i];
+        return probe != null ? probe : "https://example.com/new/" + rows + "/" + (insertedCodes + 1);
+    }
+
+    private void insertNew(String longUrl) throws SQLException {
+        bindInsert("n" + (++insertedCodes), longUrl);
+        insert.executeUpdate();
+    }
+
+    private void bindInsert(String shortCode, String longUrl) throws SQLException {
+        insert.setString(1, shortCode);
+        insert.setString(2, longUrl);
+        insert.setLong(3, UrlHashing.longUrlHash(longUrl));
+        insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private static String seedUrl(int i) {
+        return "https://example.com/products/item/" + i + "?ref=seed";
+    }
+}
@@ -0,0 +1,58 @@
+package com.codefarm.url.shortner.service.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request URL checks of the shorten path: {@code normalizeUrl} (trim, default scheme,
+ * host check) and {@code isOwnShortUrl} (self-reference check against the request's base URL).
+ * {@code shape} covers a bare host, a typical product URL and a 2 KB URL with a long query.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="UrlNormalizationBenchmark -prof gc"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlNormalizationBenchmark {
+
+    private static final String BASE_URL = "https://sho.rt/";
+
+    @Param({"bare", "product", "long"})
+    public String shape;
+
+    private String url;
+
+    @Setup
+    public void setUp() {
+        url = switch (shape) {
+            case "bare" -> "example.com";
+            case "product" -> "https://www.example.com/products/item/123456?ref=campaign&utm_source=mail";
+            case "long" -> "https://cdn.assets.example.com/a/b/c?q=" + "x".repeat(2000);
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @Benchmark
+    public String normalize() {
+        return UrlShortenerServiceImpl.normalizeUrl(url);
+    }
+
+    @Benchmark
+    public boolean ownShortUrl() {
+        return UrlShortenerServiceImpl.isOwnShortUrl(UrlShortenerServiceImpl.normalizeUrl(url), BASE_URL);
+    }
+}
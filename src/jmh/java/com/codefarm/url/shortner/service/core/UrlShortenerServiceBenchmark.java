@@ -0,0 +1,124 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.UrlShortnerServiceApplication;
+import com.codefarm.url.shortner.service.cache.RedirectCache;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * {@link UrlShortenerServiceImpl} end to end inside the real Spring context against in-memory H2
+ * (or the embedded store): transactions, dedup lookup, code pool, inserts, cache and Bloom filter,
+ * without HTTP. {@code redirectFromStore} drops the code from the redirect cache first, so it
+ * measures a cache miss that is served from the store.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="UrlShortenerServiceBenchmark -p storage=jpa"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlShortenerServiceBenchmark {
+
+    private static final int SEED = 100_000;
+    private static final int PROBES = 4096;
+    private static final String BASE_URL = "http://localhost:8080/";
+
+    @Param({"jpa", "embedded"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService service;
+    private RedirectCache redirectCache;
+    private Path storeDir;
+    private String[] codes;
+    private ShortenRequest[] existing;
+    private final AtomicLong created = new AtomicLong();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storeDir = Files.createTempDirectory("service-bench");
+        context = new SpringApplicationBuilder(UrlShortnerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("storage.engine=" + storage, "storage.embedded.dir=" + storeDir,
+                        "spring.jpa.show-sql=false", "analytics.clicks.enabled=false", "cache.warmup.enabled=false",
+                        "expiry.sweep.enabled=false", "logging.level.root=WARN")
+                .run();
+        service = context.getBean(UrlShortenerService.class);
+        redirectCache = context.getBean(RedirectCache.class);
+
+        codes = new String[PROBES];
+        existing = new ShortenRequest[PROBES];
+        for (int i = 0; i < SEED; i++) {
+            ShortenRequest request = new ShortenRequest("https://example.com/products/item/" + i + "?ref=seed", null);
+            String code = service.shortenUrl(request, BASE_URL, null).shortCode();
+            int probe = (int) ((i * 2_654_435_761L) % SEED);
+            if (probe < PROBES) {
+                codes[probe] = code;
+                existing[probe] = request;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object shortenNew() {
+        return service.shortenUrl(new ShortenRequest("https://example.com/new/" + created.incrementAndGet(), null),
+                BASE_URL, null);
+    }
+
+    @Benchmark
+    public Object shortenExisting() {
+        return service.shortenUrl(existing[next()], BASE_URL, null);
+    }
+
+    @Benchmark
+    public Object redirectCached() {
+        return service.redirect(codes[next()], null);
+    }
+
+    @Benchmark
+    public Object redirectFromStore() {
+        String code = codes[next()];
+        redirectCache.invalidate(code);
+        return service.redirect(code, null);
+    }
+
+    private int next() {
+        return cursor++ & (PROBES - 1);
+    }
+}
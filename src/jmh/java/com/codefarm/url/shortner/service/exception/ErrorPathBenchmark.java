@@ -0,0 +1,91 @@
+package com.codefarm.url.shortner.service.exception;
+
+import com.codefarm.url.shortner.service.util.UrlValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 404- and 400-heavy traffic. The {@code legacy*} methods reproduce the previous paths: a fresh
+ * exception thrown {@code depth} frames below the handler (a Spring MVC request is roughly 80-100
+ * frames deep), a {@code Map} body serialized per response, {@code String.matches} for aliases
+ * and {@code java.net.URI} for URLs. The other methods are the current paths.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="ErrorPathBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    @Param({"20", "100"})
+    public int depth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String missingCode = "zZ9kQ1x";
+    private final String badAlias = "my alias!";
+    private final String badUrl = "https://exa mple.com/path";
+
+    @Benchmark
+    public byte[] legacyNotFound() throws JsonProcessingException {
+        try {
+            throwAt(depth, missingCode);
+            return null;
+        } catch (RuntimeException ex) {
+            return objectMapper.writeValueAsBytes(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] notFound() {
+        return ApiError.SHORT_CODE_NOT_FOUND.response().getBody();
+    }
+
+    @Benchmark
+    public boolean legacyAlias() {
+        return badAlias.matches("^[a-zA-Z0-9_-]{1,32}$");
+    }
+
+    @Benchmark
+    public boolean alias() {
+        return UrlValidator.isValidAlias(badAlias);
+    }
+
+    @Benchmark
+    public String legacyUrl() {
+        try {
+            return new URI(badUrl).getHost();
+        } catch (URISyntaxException _) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public String url() {
+        return UrlValidator.host(badUrl);
+    }
+
+    private static void throwAt(int frames, String shortCode) {
+        if (frames == 0) {
+            throw new RuntimeException("Short code not found: " + shortCode);
+        }
+        throwAt(frames - 1, shortCode);
+    }
+}
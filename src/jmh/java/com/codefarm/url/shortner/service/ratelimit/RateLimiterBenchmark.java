@@ -0,0 +1,77 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one admission decision with {@code keys} distinct clients already holding a bucket,
+ * from 8 threads. {@code anonymous} charges an IP's bucket, {@code user} a user's and its IP's; {@code hotKey} has every
+ * thread contend on one bucket. At 100k requests per second the limiter's share of one core is
+ * the average time per operation times 100,000 (e.g. 300 ns/op is 3% of one core); SampleTime
+ * shows the tail.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="RateLimiterBenchmark -p keys=1000000 -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RateLimiterBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int keys;
+
+    private RateLimiter limiter;
+    private String[] ips;
+    private String[] users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Limits high enough that the benchmark measures the admitted path, not rejections.
+        limiter = new RateLimiter(List.of("ip:1000000:1000000", "user:1000000:1000000"), "ip", "user",
+                List.of(), 2L * keys, Duration.ofMinutes(10));
+        ips = new String[keys];
+        users = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ips[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+            users[i] = "user-" + i;
+            limiter.tryAcquire(null, ips[i], 1);
+            limiter.tryAcquire(users[i], ips[i], 1);
+        }
+    }
+
+    @Benchmark
+    public long anonymous() {
+        return limiter.tryAcquire(null, ips[ThreadLocalRandom.current().nextInt(keys)], 1);
+    }
+
+    @Benchmark
+    public long user() {
+        int i = ThreadLocalRandom.current().nextInt(keys);
+        return limiter.tryAcquire(users[i], ips[i], 1);
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return limiter.tryAcquire(null, "10.0.0.1", 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.codefarm.url.shortner.service.repository;
+
+import com.codefarm.url.shortner.service.UrlShortnerServiceApplication;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache-miss redirect lookup against the real Spring context. {@code entity} is the previous
+ * path (read-only transaction, {@code findById}, entity materialization); {@code lean} is the
+ * {@link UrlLookupRepository} single-column JDBC query. Run with {@code -prof gc} to compare
+ * allocation per lookup.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="RedirectLookupBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectLookupBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int PROBES = 4096;
+
+    private ConfigurableApplicationContext context;
+    private UrlMappingRepository repository;
+    private UrlLookupRepository lookupRepository;
+    private TransactionTemplate readOnly;
+    private String[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UrlShortnerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "analytics.clicks.enabled=false", "logging.level.root=WARN")
+                .run();
+        repository = context.getBean(UrlMappingRepository.class);
+        lookupRepository = context.getBean(UrlLookupRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<UrlMapping> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new UrlMapping("b" + i, "https://example.com/bench/" + i, now, false));
+            if (batch.size() == 10_000) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        probes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = "b" + (int) ((i * 2_654_435_761L) % ROWS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String entity() {
+        String code = nextProbe();
+        return readOnly.execute(status -> repository.findById(code).map(UrlMapping::getLongUrl).orElse(null));
+    }
+
+    @Benchmark
+    public String lean() {
+        return lookupRepository.findLongUrl(nextProbe());
+    }
+
+    private String nextProbe() {
+        return probes[cursor++ & (PROBES - 1)];
+    }
+}
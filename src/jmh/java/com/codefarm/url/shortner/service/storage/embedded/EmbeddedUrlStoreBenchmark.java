@@ -0,0 +1,96 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Embedded store lookups at scale: {@code get} is the redirect path (code to long URL),
+ * {@code byUrlHash} the shorten-path dedup probe, {@code miss} an unknown code. The store is
+ * filled once per trial in a temporary directory and deleted afterwards.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="EmbeddedUrlStoreBenchmark -p mappings=10000000"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+public class EmbeddedUrlStoreBenchmark {
+
+    @Param({"1000000", "10000000", "30000000"})
+    public int mappings;
+
+    private Path dir;
+    private EmbeddedUrlStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("url-store-bench");
+        store = new EmbeddedUrlStore(dir.toString(), DataSize.ofMegabytes(1024), mappings * 2L,
+                Duration.ofSeconds(1), Duration.ofHours(1), 0.5);
+        store.open();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < mappings; i++) {
+            store.putIfAbsent(new UrlMapping(code(i), url(i), now, false, null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return store.findLongUrl(code(ThreadLocalRandom.current().nextInt(mappings)));
+    }
+
+    @Benchmark
+    public Object byUrlHash() {
+        String url = url(ThreadLocalRandom.current().nextInt(mappings));
+        return store.findByLongUrl(url, UrlHashing.longUrlHash(url));
+    }
+
+    @Benchmark
+    public String miss() {
+        return store.findLongUrl("x" + ThreadLocalRandom.current().nextInt(mappings));
+    }
+
+    private static String code(int i) {
+        return Integer.toString(i, 36);
+    }
+
+    private static String url(int i) {
+        return "https://example.com/articles/" + i + "?utm_source=bench";
+    }
+}
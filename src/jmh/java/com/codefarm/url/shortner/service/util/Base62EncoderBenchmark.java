@@ -0,0 +1,104 @@
+package com.codefarm.url.shortner.service.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Base62Encoder} against the previous StringBuilder/indexOf implementation (kept inline
+ * below as the baseline). Run with the GC profiler to see bytes allocated per op:
+ *
+ * <pre>./gradlew jmh -PjmhArgs="Base62EncoderBenchmark -prof gc"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base62EncoderBenchmark {
+
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int IDS = 1024;
+
+    private final Base62Encoder encoder = new Base62Encoder();
+    private final byte[] buffer = new byte[Base62Encoder.MAX_LENGTH];
+    private long[] ids;
+    private String[] codes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        AtomicSnowflakeIdGenerator generator = new AtomicSnowflakeIdGenerator(1, 1, 50);
+        ids = new long[IDS];
+        codes = new String[IDS];
+        for (int i = 0; i < IDS; i++) {
+            ids[i] = generator.nextId();
+            codes[i] = encoder.toBase62(ids[i]);
+        }
+    }
+
+    @Benchmark
+    public String encodeLegacy() {
+        return legacyToBase62(ids[next()]);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.toBase62(ids[next()]);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        return encoder.encode(ids[next()], buffer, 0);
+    }
+
+    @Benchmark
+    public String encodePadded() {
+        return encoder.toBase62Padded(ids[next()]);
+    }
+
+    @Benchmark
+    public long decodeLegacy() {
+        return legacyFromBase62(codes[next()]);
+    }
+
+    @Benchmark
+    public long decode() {
+        return encoder.fromBase62(codes[next()]);
+    }
+
+    private int next() {
+        return cursor++ & (IDS - 1);
+    }
+
+    private static String legacyToBase62(long number) {
+        if (number == 0) return "0";
+        StringBuilder builder = new StringBuilder();
+        while (number > 0) {
+            int idx = (int) (number % 62);
+            builder.append(ALPHABET.charAt(idx));
+            number = number / 62;
+        }
+        return builder.reverse().toString();
+    }
+
+    private static long legacyFromBase62(String code) {
+        long result = 0;
+        for (int i = 0; i < code.length(); i++) {
+            int val = ALPHABET.indexOf(code.charAt(i));
+            if (val < 0) throw new IllegalArgumentException("Invalid base62 character: " + code.charAt(i));
+            result = result * 62 + val;
+        }
+        return result;
+    }
+}
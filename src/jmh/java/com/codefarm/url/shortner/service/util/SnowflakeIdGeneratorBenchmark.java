@@ -0,0 +1,68 @@
+package com.codefarm.url.shortner.service.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitor-based {@link SnowflakeIdGenerator} vs CAS-based {@link AtomicSnowflakeIdGenerator}
+ * with 1 to 64 threads sharing one generator. Both top out at 4096 ids/ms per node, so past
+ * that point the numbers show how each behaves while waiting for the next millisecond.
+ *
+ * <pre>./gradlew jmh -PjmhArgs="SnowflakeIdGeneratorBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    @Param({"synchronized", "atomic"})
+    public String generator;
+
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = generator.equals("atomic")
+                ? new AtomicSnowflakeIdGenerator(1, 1, 50)
+                : new SnowflakeIdGenerator(1, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads01() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads04() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long threads16() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long threads64() {
+        return idGenerator.nextId();
+    }
+}
@@ -0,0 +1,33 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Clicks for one short code accumulated since the last flush. Owned by the consumer thread.
+ */
+class ClickAggregate {
+
+    private final int maxReferrerBuckets;
+    long clicks;
+    long firstClickMillis = Long.MAX_VALUE;
+    long lastClickMillis = Long.MIN_VALUE;
+    final Map<String, Long> referrers = new HashMap<>();
+    final Map<String, Long> userAgents = new HashMap<>();
+
+    ClickAggregate(int maxReferrerBuckets) {
+        this.maxReferrerBuckets = maxReferrerBuckets;
+    }
+
+    void add(ClickEvent event) {
+        clicks += event.weight();
+        firstClickMillis = Math.min(firstClickMillis, event.timestampMillis());
+        lastClickMillis = Math.max(lastClickMillis, event.timestampMillis());
+        String referrer = ClickBuckets.referrer(event.referrer());
+        if (!referrers.containsKey(referrer) && referrers.size() >= maxReferrerBuckets) {
+            referrer = ClickBuckets.OTHER;
+        }
+        referrers.merge(referrer, (long) event.weight(), Long::sum);
+        userAgents.merge(ClickBuckets.userAgent(event.userAgent()), (long) event.weight(), Long::sum);
+    }
+}
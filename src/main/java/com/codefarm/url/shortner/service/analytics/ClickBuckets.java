@@ -0,0 +1,55 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import java.util.Locale;
+
+/**
+ * Maps raw Referer / User-Agent headers to low-cardinality buckets. Runs on the consumer thread,
+ * never on the redirect path.
+ */
+final class ClickBuckets {
+
+    static final String DIRECT = "direct";
+    static final String OTHER = "other";
+
+    private ClickBuckets() {
+    }
+
+    static String referrer(String referer) {
+        if (referer == null || referer.isBlank()) {
+            return DIRECT;
+        }
+        int start = referer.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < referer.length()) {
+            char c = referer.charAt(end);
+            if (c == '/' || c == '?' || c == '#' || c == ':') {
+                break;
+            }
+            end++;
+        }
+        String host = referer.substring(start, end).toLowerCase(Locale.ROOT);
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
+        }
+        return host.isEmpty() || host.length() > 255 ? OTHER : host;
+    }
+
+    static String userAgent(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return "unknown";
+        }
+        String ua = userAgent.toLowerCase(Locale.ROOT);
+        if (ua.contains("bot") || ua.contains("crawl") || ua.contains("spider") || ua.contains("curl")
+                || ua.contains("wget") || ua.contains("k6")) {
+            return "bot";
+        }
+        if (ua.contains("mobile") || ua.contains("android") || ua.contains("iphone") || ua.contains("ipad")) {
+            return "mobile";
+        }
+        if (ua.contains("mozilla")) {
+            return "desktop";
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,7 @@
+package com.codefarm.url.shortner.service.analytics;
+
+/**
+ * One redirect as seen by the analytics pipeline. {@code weight} is the number of clicks this
+ * event stands for (above 1 only when the ring buffer is sampling under pressure).
+ */
+public record ClickEvent(String shortCode, long timestampMillis, String referrer, String userAgent, int weight) {}
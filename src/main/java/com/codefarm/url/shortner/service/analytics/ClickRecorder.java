@@ -0,0 +1,184 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entry point of the click analytics pipeline. The redirect path calls {@link #record}, which
+ * only offers an event to a lock-free ring buffer. A single consumer thread drains the buffer,
+ * aggregates clicks per short code in memory and hands the aggregates to
+ * {@link ClickStatsWriter} every {@code analytics.clicks.flush-interval}.
+ * <p>
+ * When the buffer is full, {@code DROP} discards the new event. {@code SAMPLE} starts keeping
+ * only one in {@code sample-rate} events once the buffer is three-quarters full, each carrying
+ * the weight of the ones it replaces, and drops only when completely full.
+ */
+@Component
+public class ClickRecorder implements MeterBinder {
+
+    public enum OverflowPolicy { DROP, SAMPLE }
+
+    private static final Logger log = LoggerFactory.getLogger(ClickRecorder.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int MAX_REFERRER_BUCKETS = 50;
+    // Events taken per pass, so a steady stream cannot keep the consumer from flushing
+    private static final int MAX_DRAIN = 4096;
+
+    private final ClickStatsWriter writer;
+    private final boolean enabled;
+    private final ClickEventRingBuffer buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleThreshold;
+    private final long flushIntervalMillis;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private volatile long lastFlushMillis;
+    private volatile boolean running;
+    private Thread consumer;
+
+    // consumer thread only
+    private Map<String, ClickAggregate> pending = new HashMap<>();
+
+    public ClickRecorder(
+            ClickStatsWriter writer,
+            @Value("${analytics.clicks.enabled:true}") boolean enabled,
+            @Value("${analytics.clicks.capacity:65536}") int capacity,
+            @Value("${analytics.clicks.overflow:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${analytics.clicks.sample-rate:10}") int sampleRate,
+            @Value("${analytics.clicks.flush-interval:5s}") Duration flushInterval) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.buffer = new ClickEventRingBuffer(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.sampleThreshold = capacity - capacity / 4;
+        this.flushIntervalMillis = flushInterval.toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        consumer = Thread.ofPlatform().name("click-analytics").daemon().start(this::consume);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (consumer == null) {
+            return;
+        }
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void record(String shortCode, String referrer, String userAgent) {
+        if (!enabled) {
+            return;
+        }
+        int weight = 1;
+        if (overflowPolicy == OverflowPolicy.SAMPLE && buffer.size() >= sampleThreshold) {
+            if (ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+                sampledOut.increment();
+                return;
+            }
+            weight = sampleRate;
+        }
+        if (buffer.offer(new ClickEvent(shortCode, System.currentTimeMillis(), referrer, userAgent, weight))) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void consume() {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+        while (running) {
+            int drained = drain(MAX_DRAIN);
+            long now = System.currentTimeMillis();
+            if (now >= nextFlush) {
+                flush();
+                nextFlush = now + flushIntervalMillis;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        // What was buffered at shutdown, not whatever keeps arriving after it
+        drain(buffer.capacity());
+        flush();
+    }
+
+    private int drain(int max) {
+        int drained = 0;
+        ClickEvent event;
+        while (drained < max && (event = buffer.poll()) != null) {
+            pending.computeIfAbsent(event.shortCode(), _ -> new ClickAggregate(MAX_REFERRER_BUCKETS)).add(event);
+            drained++;
+        }
+        return drained;
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, ClickAggregate> batch = pending;
+        pending = new HashMap<>();
+        try {
+            flushedRows.add(writer.write(batch));
+            lastFlushMillis = System.currentTimeMillis();
+        } catch (RuntimeException ex) {
+            // Aggregates are dropped rather than retried so a broken database cannot grow memory.
+            flushFailures.increment();
+            log.warn("Failed to flush click analytics for {} short codes", batch.size(), ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("analytics.clicks.published", published, LongAdder::sum).register(registry);
+        FunctionCounter.builder("analytics.clicks.dropped", dropped, LongAdder::sum)
+                .description("Click events discarded because the ring buffer was full")
+                .register(registry);
+        FunctionCounter.builder("analytics.clicks.sampled.out", sampledOut, LongAdder::sum)
+                .description("Click events skipped by sampling under pressure (counted via weights)")
+                .register(registry);
+        FunctionCounter.builder("analytics.clicks.flushed.rows", flushedRows, LongAdder::sum).register(registry);
+        FunctionCounter.builder("analytics.clicks.flush.failures", flushFailures, LongAdder::sum).register(registry);
+        Gauge.builder("analytics.clicks.buffer.depth", buffer, ClickEventRingBuffer::size).register(registry);
+        Gauge.builder("analytics.clicks.buffer.capacity", buffer, ClickEventRingBuffer::capacity).register(registry);
+        Gauge.builder("analytics.clicks.flush.lag", this,
+                        r -> r.lastFlushMillis == 0 ? 0 : System.currentTimeMillis() - r.lastFlushMillis)
+                .baseUnit(BaseUnits.MILLISECONDS)
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import com.codefarm.url.shortner.service.model.UrlClickBucket;
+import com.codefarm.url.shortner.service.model.UrlClickStats;
+import com.codefarm.url.shortner.service.repository.UrlClickBucketRepository;
+import com.codefarm.url.shortner.service.repository.UrlClickStatsRepository;
+import com.codefarm.url.shortner.service.web.dto.ClickStatsResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads flushed click statistics; clicks still buffered or aggregating are not included, so
+ * counts lag by up to one flush interval.
+ */
+@Service
+public class ClickStatsService {
+
+    private final UrlClickStatsRepository statsRepository;
+    private final UrlClickBucketRepository bucketRepository;
+
+    public ClickStatsService(UrlClickStatsRepository statsRepository, UrlClickBucketRepository bucketRepository) {
+        this.statsRepository = statsRepository;
+        this.bucketRepository = bucketRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ClickStatsResponse stats(String shortCode) {
+        Optional<UrlClickStats> stats = statsRepository.findById(shortCode);
+        Map<String, Long> referrers = new LinkedHashMap<>();
+        Map<String, Long> userAgents = new LinkedHashMap<>();
+        bucketRepository.findByShortCode(shortCode).stream()
+                .sorted((a, b) -> Long.compare(b.getClicks(), a.getClicks()))
+                .forEach(bucket -> (UrlClickBucket.REFERRER.equals(bucket.getDimension()) ? referrers : userAgents)
+                        .put(bucket.getBucket(), bucket.getClicks()));
+        return new ClickStatsResponse(shortCode,
+                stats.map(UrlClickStats::getClicks).orElse(0L),
+                stats.map(UrlClickStats::getFirstClickAt).orElse(null),
+                stats.map(UrlClickStats::getLastClickAt).orElse(null),
+                referrers, userAgents);
+    }
+}
@@ -0,0 +1,63 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import com.codefarm.url.shortner.service.model.UrlClickBucket;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flushes aggregated clicks as batched MERGE upserts that add to the stored counters.
+ */
+@Component
+public class ClickStatsWriter {
+
+    private static final String UPSERT_CLICKS = """
+            MERGE INTO url_clicks t
+            USING (VALUES (CAST(? AS VARCHAR(32)), CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+                AS s(short_code, clicks, first_click_at, last_click_at)
+            ON t.short_code = s.short_code
+            WHEN MATCHED THEN UPDATE SET clicks = t.clicks + s.clicks,
+                last_click_at = GREATEST(t.last_click_at, s.last_click_at)
+            WHEN NOT MATCHED THEN INSERT (short_code, clicks, first_click_at, last_click_at)
+                VALUES (s.short_code, s.clicks, s.first_click_at, s.last_click_at)
+            """;
+
+    private static final String UPSERT_BUCKET = """
+            MERGE INTO url_click_buckets t
+            USING (VALUES (CAST(? AS VARCHAR(32)), CAST(? AS VARCHAR(16)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT)))
+                AS s(short_code, dimension, bucket, clicks)
+            ON t.short_code = s.short_code AND t.dimension = s.dimension AND t.bucket = s.bucket
+            WHEN MATCHED THEN UPDATE SET clicks = t.clicks + s.clicks
+            WHEN NOT MATCHED THEN INSERT (short_code, dimension, bucket, clicks)
+                VALUES (s.short_code, s.dimension, s.bucket, s.clicks)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickStatsWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Returns the number of rows upserted. */
+    @Transactional
+    public int write(Map<String, ClickAggregate> aggregates) {
+        List<Object[]> clicks = new ArrayList<>(aggregates.size());
+        List<Object[]> buckets = new ArrayList<>();
+        aggregates.forEach((shortCode, aggregate) -> {
+            clicks.add(new Object[]{shortCode, aggregate.clicks,
+                    new Timestamp(aggregate.firstClickMillis), new Timestamp(aggregate.lastClickMillis)});
+            aggregate.referrers.forEach((bucket, count) ->
+                    buckets.add(new Object[]{shortCode, UrlClickBucket.REFERRER, bucket, count}));
+            aggregate.userAgents.forEach((bucket, count) ->
+                    buckets.add(new Object[]{shortCode, UrlClickBucket.USER_AGENT, bucket, count}));
+        });
+        jdbcTemplate.batchUpdate(UPSERT_CLICKS, clicks);
+        jdbcTemplate.batchUpdate(UPSERT_BUCKET, buckets);
+        return clicks.size() + buckets.size();
+    }
+}
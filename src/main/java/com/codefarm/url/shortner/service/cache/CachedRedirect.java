@@ -0,0 +1,20 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A redirect cache entry: the target and, when {@code redirect.prerender} is on, the finished
+ * redirect and 304 responses built once and shared by every hit. Entries loaded by warm-up start
+ * without them and are rendered on first use.
+ */
+public record CachedRedirect(RedirectTarget target, ResponseEntity<Void> response, ResponseEntity<Void> notModified) {
+
+    public static CachedRedirect of(RedirectTarget target) {
+        return new CachedRedirect(target, null, null);
+    }
+
+    public boolean isRendered() {
+        return response != null;
+    }
+}
@@ -0,0 +1,286 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.cluster.ClusterChannel;
+import com.codefarm.url.shortner.service.cluster.ClusterMessage;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.repository.UrlClickStatsRepository;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the {@link RedirectCache} of every node consistent and starts new nodes warm.
+ * <ul>
+ *   <li>{@link #invalidate} drops codes locally and broadcasts them; peers drop them too,
+ *       along with any gone marker. {@link #markGone} does the same for expired links and leaves
+ *       a marker that answers 410 on this node. Peers only drop the codes: a marker is answered
+ *       without asking the store, and an unauthenticated message must not take a live code
+ *       offline, so their next lookup gets 404 or 410 from the store.</li>
+ *   <li>Once the application is ready, and before it reports ready for traffic, a node asks its
+ *       peers for their hottest short codes ({@code cache.warmup.size} each) and reads their
+ *       targets from the store. Peers never supply targets: cluster messages are not
+ *       authenticated, and a forged one must not plant a redirect. If none answer within
+ *       {@code cache.warmup.peer-timeout}, it loads the most-clicked codes from {@code url_clicks}
+ *       through the store instead. With {@code cache.warmup.background} the warm-up runs on its
+ *       own thread and the node reports ready without waiting for it.</li>
+ * </ul>
+ * Warm-up time, entries loaded and the hit ratio over the first {@code cache.warmup.observe-window}
+ * of traffic are published as {@code cache.warmup.*} meters.
+ */
+@Component
+public class ClusterCacheSync implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCacheSync.class);
+    private static final long SNAPSHOT_SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final RedirectCache cache;
+    private final ClusterChannel channel;
+    private final UrlStore store;
+    private final UrlClickStatsRepository clickStats;
+    private final boolean warmUpEnabled;
+    private final boolean warmUpInBackground;
+    private final int warmUpSize;
+    private final Duration peerTimeout;
+    private final Duration observeWindow;
+
+    private final LongAdder localInvalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder peerEntries = new LongAdder();
+    private final LongAdder clickEntries = new LongAdder();
+    // Codes invalidated while snapshots arrive; a snapshot taken before the invalidation must not restore them.
+    private final Set<String> invalidatedDuringWarmUp = ConcurrentHashMap.newKeySet();
+    // Codes from peer snapshots, loaded from the store by the warm-up thread rather than the channel's.
+    private final Queue<String> snapshotCodes = new ConcurrentLinkedQueue<>();
+    private volatile boolean warming;
+    private volatile long lastSnapshotNanos;
+    private volatile long warmUpNanos;
+    private volatile CacheStats baseline;
+    private volatile CacheStats observed;
+
+    public ClusterCacheSync(
+            RedirectCache cache,
+            ClusterChannel channel,
+            UrlStore store,
+            UrlClickStatsRepository clickStats,
+            @Value("${cache.warmup.enabled:true}") boolean warmUpEnabled,
+            @Value("${cache.warmup.background:false}") boolean warmUpInBackground,
+            @Value("${cache.warmup.size:10000}") int warmUpSize,
+            @Value("${cache.warmup.peer-timeout:2s}") Duration peerTimeout,
+            @Value("${cache.warmup.observe-window:5m}") Duration observeWindow) {
+        this.cache = cache;
+        this.channel = channel;
+        this.store = store;
+        this.clickStats = clickStats;
+        this.warmUpEnabled = warmUpEnabled;
+        this.warmUpInBackground = warmUpInBackground;
+        this.warmUpSize = warmUpSize;
+        this.peerTimeout = peerTimeout;
+        this.observeWindow = observeWindow;
+        channel.subscribe(this::onMessage);
+    }
+
+    /** Drops {@code shortCode} from this node's cache and asks every other node to do the same. */
+    public void invalidate(String shortCode) {
+        invalidate(List.of(shortCode));
+    }
+
+    public void invalidate(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(cache::invalidate);
+        localInvalidations.add(shortCodes.size());
+        for (List<String> chunk : ClusterMessage.split(List.copyOf(shortCodes), 1)) {
+            channel.publish(ClusterMessage.Type.INVALIDATE, chunk);
+        }
+    }
+
+    /** Marks expired links gone on this node and drops them from every other node's cache. */
+    public void markGone(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        cache.markGone(shortCodes);
+        localInvalidations.add(shortCodes.size());
+        for (List<String> chunk : ClusterMessage.split(List.copyOf(shortCodes), 1)) {
+            channel.publish(ClusterMessage.Type.GONE, chunk);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (warmUpEnabled && warmUpInBackground) {
+            Thread.ofPlatform().name("cache-warm-up").daemon().start(this::warmUp);
+        } else {
+            warmUp();
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        if (warmUpEnabled) {
+            if (channel.mayHavePeers()) {
+                warmFromPeers();
+            }
+            if (peerEntries.sum() == 0) {
+                warmFromClickStats();
+            }
+        }
+        warmUpNanos = System.nanoTime() - start;
+        baseline = cache.stats();
+        CompletableFuture.delayedExecutor(observeWindow.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> observed = cache.stats());
+        if (warmUpEnabled) {
+            log.info("Redirect cache warmed in {} ms: {} entries from peers, {} from click stats",
+                    TimeUnit.NANOSECONDS.toMillis(warmUpNanos), peerEntries.sum(), clickEntries.sum());
+        }
+    }
+
+    private void warmFromPeers() {
+        warming = true;
+        try {
+            long start = System.nanoTime();
+            long deadline = start + peerTimeout.toNanos();
+            Set<String> seen = new HashSet<>();
+            channel.publish(ClusterMessage.Type.SNAPSHOT_REQUEST, List.of());
+            // Wait for the first snapshot, then until no further chunk arrives for a short while.
+            while (System.nanoTime() < deadline) {
+                loadSnapshotCodes(seen);
+                long last = lastSnapshotNanos;
+                if (last > start && System.nanoTime() - last > SNAPSHOT_SETTLE_NANOS) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+            loadSnapshotCodes(seen);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Warming the redirect cache from peers failed; starting with what was loaded", ex);
+        } finally {
+            warming = false;
+            snapshotCodes.clear();
+            invalidatedDuringWarmUp.clear();
+        }
+    }
+
+    private void loadSnapshotCodes(Set<String> seen) {
+        String shortCode;
+        while ((shortCode = snapshotCodes.poll()) != null) {
+            if (!seen.add(shortCode) || invalidatedDuringWarmUp.contains(shortCode)) {
+                continue;
+            }
+            RedirectTarget target = store.findRedirect(shortCode);
+            if (target != null && !invalidatedDuringWarmUp.contains(shortCode)) {
+                cache.put(shortCode, CachedRedirect.of(target));
+                peerEntries.increment();
+            }
+        }
+    }
+
+    private void warmFromClickStats() {
+        try {
+            for (String shortCode : clickStats.findMostClickedShortCodes(PageRequest.of(0, warmUpSize))) {
+                RedirectTarget target = store.findRedirect(shortCode);
+                if (target != null) {
+                    cache.put(shortCode, CachedRedirect.of(target));
+                    clickEntries.increment();
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Warming the redirect cache from click stats failed; starting with what was loaded", ex);
+        }
+    }
+
+    private void onMessage(ClusterMessage message) {
+        switch (message.type()) {
+            case INVALIDATE -> {
+                for (String shortCode : message.values()) {
+                    cache.invalidate(shortCode);
+                    if (warming) {
+                        invalidatedDuringWarmUp.add(shortCode);
+                    }
+                }
+                remoteInvalidations.add(message.values().size());
+            }
+            case GONE -> {
+                // Dropped like an invalidation; the sender's word is not enough to answer 410.
+                message.values().forEach(cache::invalidate);
+                if (warming) {
+                    invalidatedDuringWarmUp.addAll(message.values());
+                }
+                remoteInvalidations.add(message.values().size());
+            }
+            case SNAPSHOT_REQUEST -> sendSnapshot();
+            case SNAPSHOT -> {
+                if (!warming) {
+                    return;
+                }
+                snapshotCodes.addAll(message.values());
+                lastSnapshotNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private void sendSnapshot() {
+        List<String> shortCodes = new ArrayList<>(cache.hottest(warmUpSize).keySet());
+        for (List<String> chunk : ClusterMessage.split(shortCodes, 1)) {
+            channel.publish(ClusterMessage.Type.SNAPSHOT, chunk);
+        }
+    }
+
+    private double warmUpHitRatio() {
+        CacheStats start = baseline;
+        if (start == null) {
+            return Double.NaN;
+        }
+        CacheStats end = observed;
+        return (end != null ? end : cache.stats()).minus(start).hitRate();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("cache.warmup.duration", this, TimeUnit.NANOSECONDS, s -> s.warmUpNanos)
+                .description("Time spent warming the redirect cache at startup")
+                .register(registry);
+        Gauge.builder("cache.warmup.entries", peerEntries, LongAdder::sum)
+                .tag("source", "peers")
+                .register(registry);
+        Gauge.builder("cache.warmup.entries", clickEntries, LongAdder::sum)
+                .tag("source", "clicks")
+                .register(registry);
+        Gauge.builder("cache.warmup.hit.ratio", this, ClusterCacheSync::warmUpHitRatio)
+                .description("Redirect cache hit ratio since warm-up, fixed once the observe window ends")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", localInvalidations, LongAdder::sum)
+                .tag("origin", "local")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", remoteInvalidations, LongAdder::sum)
+                .tag("origin", "remote")
+                .register(registry);
+    }
+}
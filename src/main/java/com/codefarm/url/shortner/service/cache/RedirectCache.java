@@ -0,0 +1,223 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded shortCode -> {@link CachedRedirect} cache in front of the repository.
+ * Caffeine's W-TinyLFU policy keeps the hot codes resident; hit/miss/eviction
+ * counters are published as {@code cache.*} meters tagged {@code cache=redirect}.
+ *
+ * <p>Alongside it, a set of codes whose links expired and were deleted, kept for
+ * {@code cache.gone.ttl} so they answer 410 instead of reaching the store. Caffeine expires
+ * these entries on its timer wheel, so the set never needs a scan. {@link #put} and
+ * {@link #invalidate} drop a code's marker, since an expired alias can be created again.
+ *
+ * <p>With {@code cache.arena.enabled}, generated codes are also kept off-heap in a {@link UrlArena}
+ * of up to {@code cache.arena.max-entries} entries and {@code cache.arena.max-bytes} of records,
+ * so the long tail that does not fit in {@code cache.redirect.max-size} is still answered without
+ * the store, at no GC cost. A Caffeine miss that hits the arena is put back into Caffeine, except
+ * through {@link #copyOffHeapUrl}, which serves the hit without building any object. Arena
+ * entries have no TTL: a generated code never changes target, and deletes reach the arena
+ * through {@link #invalidate} and {@link #markGone}. When the arena fills up it is replaced by an
+ * empty one. Custom aliases stay on-heap only.
+ */
+@Component
+public class RedirectCache implements MeterBinder {
+
+    private final Cache<String, CachedRedirect> cache;
+    private final Cache<String, Boolean> gone;
+    private final boolean arenaEnabled;
+    private final long arenaMaxEntries;
+    private final long arenaMaxBytes;
+    private final long arenaSlabSize;
+    private final LongAdder arenaHits = new LongAdder();
+    private final LongAdder arenaResets = new LongAdder();
+    private volatile UrlArena arena;
+
+    public RedirectCache(
+            @Value("${cache.redirect.max-size:100000}") long maxSize,
+            @Value("${cache.redirect.ttl:10m}") Duration ttl,
+            @Value("${cache.gone.max-size:100000}") long goneMaxSize,
+            @Value("${cache.gone.ttl:1d}") Duration goneTtl,
+            @Value("${cache.arena.enabled:false}") boolean arenaEnabled,
+            @Value("${cache.arena.max-entries:1000000}") long arenaMaxEntries,
+            @Value("${cache.arena.max-bytes:128MB}") DataSize arenaMaxBytes,
+            @Value("${cache.arena.slab-size:16MB}") DataSize arenaSlabSize) {
+        if (arenaEnabled && (arenaSlabSize.toBytes() < 64 * 1024 || arenaSlabSize.toBytes() > arenaMaxBytes.toBytes())) {
+            throw new IllegalArgumentException("cache.arena.slab-size must be at least 64KB and at most cache.arena.max-bytes");
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.gone = Caffeine.newBuilder()
+                .maximumSize(goneMaxSize)
+                .expireAfterWrite(goneTtl)
+                .build();
+        this.arenaEnabled = arenaEnabled;
+        this.arenaMaxEntries = arenaMaxEntries;
+        this.arenaMaxBytes = arenaMaxBytes.toBytes();
+        this.arenaSlabSize = arenaSlabSize.toBytes();
+        this.arena = arenaEnabled ? newArena() : null;
+    }
+
+    public CachedRedirect get(String shortCode) {
+        CachedRedirect cached = cache.getIfPresent(shortCode);
+        UrlArena offHeap = arena;
+        if (cached != null || offHeap == null) {
+            return cached;
+        }
+        long key = UrlArena.key(shortCode);
+        RedirectTarget target = key < 0 ? null : offHeap.get(key, shortCode);
+        if (target == null) {
+            return null;
+        }
+        arenaHits.increment();
+        cached = CachedRedirect.of(target);
+        cache.put(shortCode, cached);
+        return cached;
+    }
+
+    /**
+     * For a code held in the arena but not on-heap, copies its URL's UTF-8 bytes into {@code dst}
+     * at {@code offset}, so the caller can write the redirect without building a response.
+     * Returns -1 when the code is on-heap or not in the arena, when its link can expire, or when
+     * the URL is longer than {@code maxLength}: {@link #get} answers those. Otherwise the URL's
+     * length in the low 32 bits and the mapping's own redirect status above them (0 for the
+     * configured default). Unlike {@link #get}, a hit is not put back into Caffeine; nothing is
+     * allocated.
+     */
+    public long copyOffHeapUrl(String shortCode, byte[] dst, int offset, int maxLength) {
+        UrlArena offHeap = arena;
+        long key;
+        if (offHeap == null || (key = UrlArena.key(shortCode)) < 0 || cache.asMap().containsKey(shortCode)) {
+            return -1;
+        }
+        long copied = offHeap.copyUrl(key, shortCode, dst, offset, maxLength);
+        if (copied < 0 || UrlArena.copiedExpires(copied)) {
+            return -1;
+        }
+        arenaHits.increment();
+        return (long) UrlArena.copiedStatus(copied) << 32 | UrlArena.copiedLength(copied);
+    }
+
+    public void put(String shortCode, CachedRedirect redirect) {
+        gone.invalidate(shortCode);
+        cache.put(shortCode, redirect);
+        if (arenaEnabled && !redirect.target().custom()) {
+            putOffHeap(shortCode, redirect.target());
+        }
+    }
+
+    /**
+     * Replaces the entry of a code just read from this cache, e.g. once it is rendered. Its target
+     * is unchanged, so the arena, which already has it, is left alone.
+     */
+    public void refresh(String shortCode, CachedRedirect redirect) {
+        cache.put(shortCode, redirect);
+    }
+
+    /**
+     * Drops {@code shortCode} and its gone marker on this node only; use
+     * {@link ClusterCacheSync#invalidate} to reach every node.
+     */
+    public void invalidate(String shortCode) {
+        cache.invalidate(shortCode);
+        gone.invalidate(shortCode);
+        removeOffHeap(shortCode);
+    }
+
+    /** Replaces cached entries for {@code shortCodes} with gone markers, on this node only. */
+    public void markGone(Collection<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            gone.put(shortCode, Boolean.TRUE);
+            cache.invalidate(shortCode);
+            removeOffHeap(shortCode);
+        }
+    }
+
+    public boolean isGone(String shortCode) {
+        return gone.getIfPresent(shortCode) != null;
+    }
+
+    /** Up to {@code limit} entries, most frequently used first (the eviction policy's view). */
+    public Map<String, CachedRedirect> hottest(int limit) {
+        return cache.policy().eviction().map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private void putOffHeap(String shortCode, RedirectTarget target) {
+        long key = UrlArena.key(shortCode);
+        if (key < 0) {
+            return;
+        }
+        UrlArena current = arena;
+        if (current.put(key, shortCode, target)) {
+            return;
+        }
+        synchronized (this) {
+            if (arena == current) {
+                arena = newArena();
+                arenaResets.increment();
+            }
+        }
+        arena.put(key, shortCode, target);
+    }
+
+    private void removeOffHeap(String shortCode) {
+        UrlArena current = arena;
+        long key;
+        if (current != null && (key = UrlArena.key(shortCode)) >= 0) {
+            current.remove(key, shortCode);
+        }
+    }
+
+    private UrlArena newArena() {
+        return new UrlArena(arenaMaxEntries, arenaMaxBytes, arenaSlabSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "redirect");
+        if (!arenaEnabled) {
+            return;
+        }
+        Gauge.builder("cache.arena.entries", this, c -> c.arena.size())
+                .description("Redirect targets held off-heap")
+                .register(registry);
+        Gauge.builder("cache.arena.memory", this, c -> c.arena.usedBytes())
+                .description("Off-heap bytes used by the arena index and records")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("cache.arena.prefixes", this, c -> c.arena.prefixCount())
+                .description("URL prefixes in the arena's dictionary")
+                .register(registry);
+        FunctionCounter.builder("cache.arena.hits", arenaHits, LongAdder::sum)
+                .description("Redirect cache misses answered from the arena")
+                .register(registry);
+        FunctionCounter.builder("cache.arena.resets", arenaResets, LongAdder::sum)
+                .description("Times the arena filled up and was replaced by an empty one")
+                .register(registry);
+    }
+}
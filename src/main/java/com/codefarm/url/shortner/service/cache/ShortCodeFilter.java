@@ -0,0 +1,96 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over every stored short code. A negative answer is definite,
+ * so unknown codes can be rejected and fresh codes accepted without a repository query.
+ * Until the startup load has finished (or when disabled) every code is reported as possibly present.
+ * Off by default: the filter only sees codes written by this node, so it is only correct when
+ * this node is the only writer.
+ * With {@code shortcode.filter.background-load} the load runs on its own thread instead of
+ * holding back the ready event; lookups reach the store until it finishes.
+ */
+@Component
+public class ShortCodeFilter implements MeterBinder {
+
+    private final UrlStore store;
+    private final BloomFilter filter;
+    private final boolean enabled;
+    private final int loadBatchSize;
+    private final boolean loadInBackground;
+    private final LongAdder definiteMisses = new LongAdder();
+    private volatile boolean ready;
+
+    public ShortCodeFilter(
+            UrlStore store,
+            @Value("${shortcode.filter.enabled:false}") boolean enabled,
+            @Value("${shortcode.filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${shortcode.filter.fpp:0.01}") double falsePositiveRate,
+            @Value("${shortcode.filter.load-batch-size:10000}") int loadBatchSize,
+            @Value("${shortcode.filter.background-load:false}") boolean loadInBackground) {
+        this.store = store;
+        this.enabled = enabled;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.loadBatchSize = loadBatchSize;
+        this.loadInBackground = loadInBackground;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        if (loadInBackground) {
+            Thread.ofPlatform().name("shortcode-filter-load").daemon().start(this::fill);
+        } else {
+            fill();
+        }
+    }
+
+    private void fill() {
+        store.scanShortCodes(loadBatchSize, batch -> batch.forEach(filter::put));
+        ready = true;
+    }
+
+    public boolean mightExist(String shortCode) {
+        if (!ready || filter.mightContain(shortCode)) {
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    public void add(String shortCode) {
+        if (enabled) {
+            filter.put(shortCode);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shortcode.filter.fpp", filter, BloomFilter::expectedFalsePositiveRate)
+                .description("Estimated false-positive rate from the bits currently set")
+                .register(registry);
+        Gauge.builder("shortcode.filter.memory", filter, BloomFilter::memoryBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("shortcode.filter.insertions", filter, BloomFilter::insertions)
+                .register(registry);
+        FunctionCounter.builder("shortcode.filter.definite.misses", definiteMisses, LongAdder::sum)
+                .description("Lookups answered as absent without touching the repository")
+                .register(registry);
+    }
+}
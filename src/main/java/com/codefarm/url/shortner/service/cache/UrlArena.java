@@ -0,0 +1,366 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.util.Base62Encoder;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Off-heap redirect targets keyed by short code, for codes that decode as Base62. Nothing per
+ * entry lives on the heap, so millions of entries cost the collector nothing.
+ * <ul>
+ *   <li>Records are appended to slabs of {@code slabSize} bytes, allocated as needed up to
+ *       {@code maxBytes}: code length, flags (status, custom, expiry), prefix id, suffix length,
+ *       expiry if any, then the UTF-8 bytes of the URL after its prefix.</li>
+ *   <li>Prefixes are "scheme://host/" plus up to {@value #PREFIX_DEPTH} path directories,
+ *       kept once in a dictionary of at most 65535 entries. A URL uses the deepest prefix already
+ *       known; when none is, its deepest candidate is added while there is room.</li>
+ *   <li>The index is an open-addressing table of 16-byte slots {@code key, offset + 1} with
+ *       linear probing, where the key is {@link Base62Encoder#fromBase62} of the code. Two codes
+ *       that differ only in leading zeros share a key; the record's code length tells them apart,
+ *       and the loser reads as a miss. Fixed-width codes ({@code shortcode.fixed-width}) use other
+ *       digits but go through the same decoding, which is still one-to-one for a given length, so
+ *       the same tie-break applies. Those that decode past {@code Long.MAX_VALUE} (ids from
+ *       10 * 62^10 up) have no key and stay in the heap cache.</li>
+ * </ul>
+ * Space is never reused: removed records, and records of a code displaced by its leading-zero
+ * twin, stay where they are. When the index or
+ * the slabs are full, {@link #put} refuses and the owner starts a new arena; memory is released
+ * once the old one is unreachable.
+ *
+ * <p>Single writer (puts of new codes and removes synchronize on the arena), any number of
+ * lock-free readers: the writer fills the record and the slot key, then publishes the slot value
+ * with release semantics; readers load it with acquire semantics before reading anything else.
+ * A put of a code already stored is a read and takes no lock.
+ */
+final class UrlArena {
+
+    static final int PREFIX_DEPTH = 2;
+
+    private static final Base62Encoder BASE62 = new Base62Encoder();
+    private static final VarHandle LONGS = ValueLayout.JAVA_LONG.varHandle();
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = -1L;
+    private static final int SLOT_BYTES = 16;
+    private static final double MAX_LOAD = 0.7;
+    private static final int MAX_PREFIXES = 0xFFFF;
+    private static final int[] STATUSES = {0, 301, 302, 307, 308};
+    private static final int STATUS_MASK = 0x07;
+    private static final int CUSTOM = 0x08;
+    private static final int EXPIRES = 0x10;
+    // code length (1), flags (1), prefix id (2), suffix length (2); expiry adds seconds (8) and nanos (4)
+    private static final int HEADER_BYTES = 6;
+    private static final int EXPIRY_BYTES = 12;
+
+    private final Arena memory = Arena.ofAuto();
+    private final MemorySegment index;
+    private final long mask;
+    private final long maxSlotsUsed;
+    private final MemorySegment[] slabs;
+    private final long slabSize;
+
+    // id -> prefix; element 0 is the empty prefix. Written by the writer before the records using them are published.
+    private final byte[][] prefixBytes = new byte[MAX_PREFIXES + 1][];
+    private final Map<String, Integer> prefixIds = new HashMap<>();
+    private final List<String> prefixes = new ArrayList<>();
+
+    // writer only
+    private int slab = -1;
+    private long position;
+    private long slotsUsed;
+
+    private volatile long entries;
+    private volatile long recordBytes;
+    private volatile int prefixCount;
+
+    UrlArena(long maxEntries, long maxBytes, long slabSize) {
+        long capacity = Math.max(1024, Long.highestOneBit(Math.max((long) (maxEntries / MAX_LOAD) - 1, 1)) << 1);
+        this.index = memory.allocate(capacity * SLOT_BYTES, Long.BYTES);
+        this.mask = capacity - 1;
+        this.maxSlotsUsed = (long) (capacity * MAX_LOAD);
+        this.slabSize = slabSize;
+        this.slabs = new MemorySegment[(int) Math.max(1, (maxBytes + slabSize - 1) / slabSize)];
+        prefixBytes[0] = new byte[0];
+        prefixes.add("");
+    }
+
+    /** The index key of {@code shortCode}, or -1 when it is not a Base62 number. */
+    static long key(String shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > Base62Encoder.MAX_LENGTH) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = shortCode.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                return -1;
+            }
+        }
+        try {
+            return BASE62.fromBase62(shortCode);
+        } catch (IllegalArgumentException ex) {
+            // 11 characters beyond Long.MAX_VALUE
+            return -1;
+        }
+    }
+
+    /**
+     * Stores the target of a code with the given key; {@code false} when the arena is full. A code
+     * already stored keeps its record, since a code's target does not change while it is cached
+     * (changes go through {@link #remove} first); re-putting a promoted entry costs no space. A URL
+     * too long for one record is skipped, so reads of its code miss.
+     */
+    boolean put(long key, String shortCode, RedirectTarget target) {
+        if (find(key, shortCode.length()) >= 0) {
+            return true;
+        }
+        synchronized (this) {
+            return find(key, shortCode.length()) >= 0 || append(key, shortCode, target);
+        }
+    }
+
+    private boolean append(long key, String shortCode, RedirectTarget target) {
+        if (slotsUsed + 1 > maxSlotsUsed) {
+            return false;
+        }
+        int prefixId = prefixId(target.longUrl());
+        byte[] suffix = target.longUrl().substring(prefixes.get(prefixId).length()).getBytes(StandardCharsets.UTF_8);
+        LocalDateTime expiresAt = target.expiresAt();
+        int size = HEADER_BYTES + (expiresAt != null ? EXPIRY_BYTES : 0) + suffix.length;
+        if (suffix.length > 0xFFFF || size > slabSize) {
+            return true;
+        }
+        long offset = allocate(size);
+        if (offset < 0) {
+            return false;
+        }
+        MemorySegment segment = slabs[slab];
+        long at = offset - (long) slab * slabSize;
+        int flags = statusIndex(target.redirectStatus()) | (target.custom() ? CUSTOM : 0) | (expiresAt != null ? EXPIRES : 0);
+        segment.set(ValueLayout.JAVA_BYTE, at, (byte) shortCode.length());
+        segment.set(ValueLayout.JAVA_BYTE, at + 1, (byte) flags);
+        segment.set(ValueLayout.JAVA_SHORT_UNALIGNED, at + 2, (short) prefixId);
+        segment.set(ValueLayout.JAVA_SHORT_UNALIGNED, at + 4, (short) suffix.length);
+        long data = at + HEADER_BYTES;
+        if (expiresAt != null) {
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, data, expiresAt.toEpochSecond(ZoneOffset.UTC));
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, data + 8, expiresAt.getNano());
+            data += EXPIRY_BYTES;
+        }
+        MemorySegment.copy(suffix, 0, segment, ValueLayout.JAVA_BYTE, data, suffix.length);
+        recordBytes += size;
+        publish(key, offset + 1);
+        return true;
+    }
+
+    /** The stored target, or {@code null}. Allocates only the URL's bytes and string and the target. */
+    RedirectTarget get(long key, String shortCode) {
+        long offset = find(key, shortCode.length());
+        if (offset < 0) {
+            return null;
+        }
+        MemorySegment segment = slabs[(int) (offset / slabSize)];
+        long at = offset % slabSize;
+        int flags = segment.get(ValueLayout.JAVA_BYTE, at + 1);
+        byte[] prefix = prefixBytes[Short.toUnsignedInt(segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, at + 2))];
+        int suffixLength = Short.toUnsignedInt(segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, at + 4));
+        long data = at + HEADER_BYTES;
+        LocalDateTime expiresAt = null;
+        if ((flags & EXPIRES) != 0) {
+            expiresAt = LocalDateTime.ofEpochSecond(segment.get(ValueLayout.JAVA_LONG_UNALIGNED, data),
+                    segment.get(ValueLayout.JAVA_INT_UNALIGNED, data + 8), ZoneOffset.UTC);
+            data += EXPIRY_BYTES;
+        }
+        byte[] url = new byte[prefix.length + suffixLength];
+        System.arraycopy(prefix, 0, url, 0, prefix.length);
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, data, url, prefix.length, suffixLength);
+        int status = STATUSES[flags & STATUS_MASK];
+        return new RedirectTarget(new String(url, StandardCharsets.UTF_8), status == 0 ? null : status,
+                (flags & CUSTOM) != 0, expiresAt);
+    }
+
+    /**
+     * Copies the stored URL's UTF-8 bytes, as they go into a {@code Location} header, into
+     * {@code dst} at {@code dstOffset}, for callers that write the redirect without building a
+     * {@link RedirectTarget}. Returns -1 when the code is not stored or its URL is longer than
+     * {@code maxLength}; otherwise the URL's length and the record's flags, read with
+     * {@link #copiedLength}, {@link #copiedStatus} and {@link #copiedExpires}. Allocates nothing.
+     */
+    long copyUrl(long key, String shortCode, byte[] dst, int dstOffset, int maxLength) {
+        long offset = find(key, shortCode.length());
+        if (offset < 0) {
+            return -1;
+        }
+        MemorySegment segment = slabs[(int) (offset / slabSize)];
+        long at = offset % slabSize;
+        int flags = segment.get(ValueLayout.JAVA_BYTE, at + 1);
+        byte[] prefix = prefixBytes[Short.toUnsignedInt(segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, at + 2))];
+        int suffixLength = Short.toUnsignedInt(segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, at + 4));
+        int length = prefix.length + suffixLength;
+        if (length > maxLength) {
+            return -1;
+        }
+        long data = at + HEADER_BYTES + ((flags & EXPIRES) != 0 ? EXPIRY_BYTES : 0);
+        System.arraycopy(prefix, 0, dst, dstOffset, prefix.length);
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, data, dst, dstOffset + prefix.length, suffixLength);
+        return (long) (flags & 0xFF) << 32 | length;
+    }
+
+    static int copiedLength(long copied) {
+        return (int) copied;
+    }
+
+    /** The mapping's own redirect status, or 0 for the configured default. */
+    static int copiedStatus(long copied) {
+        return STATUSES[(int) (copied >>> 32) & STATUS_MASK];
+    }
+
+    static boolean copiedExpires(long copied) {
+        return ((copied >>> 32) & EXPIRES) != 0;
+    }
+
+    synchronized void remove(long key, String shortCode) {
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long at = slot * SLOT_BYTES;
+            long value = (long) LONGS.getAcquire(index, at + 8);
+            if (value == EMPTY) {
+                return;
+            }
+            if (value != REMOVED && (long) LONGS.get(index, at) == key) {
+                if (codeLength(value - 1) == shortCode.length()) {
+                    LONGS.setRelease(index, at + 8, REMOVED);
+                    entries--;
+                }
+                return;
+            }
+        }
+    }
+
+    long size() {
+        return entries;
+    }
+
+    /** Off-heap bytes in use: the index plus the records written, including replaced ones. */
+    long usedBytes() {
+        return index.byteSize() + recordBytes;
+    }
+
+    int prefixCount() {
+        return prefixCount;
+    }
+
+    private long find(long key, int codeLength) {
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long at = slot * SLOT_BYTES;
+            long value = (long) LONGS.getAcquire(index, at + 8);
+            if (value == EMPTY) {
+                return -1;
+            }
+            if (value != REMOVED && (long) LONGS.get(index, at) == key) {
+                return codeLength(value - 1) == codeLength ? value - 1 : -1;
+            }
+        }
+    }
+
+    private void publish(long key, long value) {
+        for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long at = slot * SLOT_BYTES;
+            long current = (long) LONGS.getAcquire(index, at + 8);
+            if (current == EMPTY) {
+                LONGS.set(index, at, key);
+                LONGS.setRelease(index, at + 8, value);
+                slotsUsed++;
+                entries++;
+                return;
+            }
+            if (current != REMOVED && (long) LONGS.get(index, at) == key) {
+                LONGS.setRelease(index, at + 8, value);
+                return;
+            }
+        }
+    }
+
+    private int codeLength(long offset) {
+        return slabs[(int) (offset / slabSize)].get(ValueLayout.JAVA_BYTE, offset % slabSize);
+    }
+
+    // Records never straddle slabs; the tail of a slab too short for the next record stays unused.
+    private long allocate(int size) {
+        if (slab < 0 || position + size > slabSize) {
+            if (slab + 1 == slabs.length) {
+                return -1;
+            }
+            slab++;
+            slabs[slab] = memory.allocate(slabSize);
+            position = 0;
+        }
+        long offset = (long) slab * slabSize + position;
+        position += size;
+        return offset;
+    }
+
+    private int prefixId(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return 0;
+        }
+        int[] ends = new int[PREFIX_DEPTH + 1];
+        int count = 0;
+        for (int i = schemeEnd + 3; i < url.length() && count < ends.length; i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            if (c == '/') {
+                ends[count++] = i + 1;
+            }
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            Integer id = prefixIds.get(url.substring(0, ends[i]));
+            if (id != null) {
+                return id;
+            }
+        }
+        if (count == 0 || prefixes.size() > MAX_PREFIXES) {
+            return 0;
+        }
+        String prefix = url.substring(0, ends[count - 1]);
+        int id = prefixes.size();
+        prefixBytes[id] = prefix.getBytes(StandardCharsets.UTF_8);
+        prefixes.add(prefix);
+        prefixIds.put(prefix, id);
+        prefixCount = id;
+        return id;
+    }
+
+    private static int statusIndex(Integer status) {
+        if (status == null) {
+            return 0;
+        }
+        for (int i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported redirect status " + status);
+    }
+
+    // Snowflake ids keep their low (sequence) bits mostly zero; spread them over the table.
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
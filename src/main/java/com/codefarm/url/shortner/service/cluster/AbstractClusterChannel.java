@@ -0,0 +1,97 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Encoding, listener dispatch and the {@code cluster.messages} meters shared by the channel
+ * implementations, which only move bytes.
+ */
+abstract class AbstractClusterChannel implements ClusterChannel, MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractClusterChannel.class);
+
+    private final String nodeId;
+    private final List<Consumer<ClusterMessage>> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    AbstractClusterChannel(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(ClusterMessage.Type type, List<String> values) {
+        byte[] message = new ClusterMessage(type, nodeId, values).encode();
+        try {
+            transmit(message);
+            sent.increment();
+        } catch (IOException | RuntimeException ex) {
+            failed.increment();
+            log.warn("Could not send {} cluster message", type, ex);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterMessage> listener) {
+        listeners.add(listener);
+    }
+
+    /** Sends one encoded message to the other nodes. */
+    abstract void transmit(byte[] message) throws IOException;
+
+    /** Decodes and dispatches bytes received from the network or another loopback member. */
+    void deliver(byte[] data, int offset, int length) {
+        ClusterMessage message;
+        try {
+            message = ClusterMessage.decode(data, offset, length);
+        } catch (IOException | RuntimeException ex) {
+            failed.increment();
+            log.debug("Dropped malformed cluster message", ex);
+            return;
+        }
+        if (message.sender().equals(nodeId)) {
+            return;
+        }
+        received.increment();
+        for (Consumer<ClusterMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException ex) {
+                log.warn("Cluster message listener failed on {}", message.type(), ex);
+            }
+        }
+    }
+
+    @Override
+    public abstract void close();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cluster.messages", sent, LongAdder::sum)
+                .tag("result", "sent")
+                .register(registry);
+        FunctionCounter.builder("cluster.messages", received, LongAdder::sum)
+                .tag("result", "received")
+                .register(registry);
+        FunctionCounter.builder("cluster.messages", failed, LongAdder::sum)
+                .tag("result", "failed")
+                .description("Messages that could not be sent, or were received but could not be decoded")
+                .register(registry);
+    }
+}
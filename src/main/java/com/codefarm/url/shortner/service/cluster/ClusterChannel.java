@@ -0,0 +1,25 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Best-effort broadcast between the nodes of one deployment, selected with {@code cluster.channel}:
+ * {@code loopback} (default; nodes in the same JVM, for tests and single-node runs) or
+ * {@code multicast} (UDP multicast on the local network). Delivery is unordered and may drop
+ * messages; a node never receives its own.
+ */
+public interface ClusterChannel {
+
+    /** This node's id, unique per process start. */
+    String nodeId();
+
+    /** Sends to every other node. Throws {@link IllegalArgumentException} if the message is too large. */
+    void publish(ClusterMessage.Type type, List<String> values);
+
+    /** Registers a listener; it runs on the channel's receiving thread and must not block. */
+    void subscribe(Consumer<ClusterMessage> listener);
+
+    /** {@code false} only when the channel knows no other node can be listening. */
+    boolean mayHavePeers();
+}
@@ -0,0 +1,43 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the {@link ClusterChannel} named by {@code cluster.channel}. Node ids combine the
+ * Snowflake datacenter and machine ids with a random suffix, so they are readable in logs and
+ * still differ across restarts.
+ */
+@Configuration(proxyBeanMethods = false)
+class ClusterChannelConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cluster.channel", havingValue = "loopback", matchIfMissing = true)
+    LoopbackClusterChannel loopbackClusterChannel(
+            @Value("${snowflake.datacenter.id:1}") long datacenterId,
+            @Value("${snowflake.machine.id:1}") long machineId,
+            @Value("${cluster.loopback.group:default}") String group) {
+        return new LoopbackClusterChannel(nodeId(datacenterId, machineId), group);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cluster.channel", havingValue = "multicast")
+    MulticastClusterChannel multicastClusterChannel(
+            @Value("${snowflake.datacenter.id:1}") long datacenterId,
+            @Value("${snowflake.machine.id:1}") long machineId,
+            @Value("${cluster.multicast.group:239.255.42.99}") String group,
+            @Value("${cluster.multicast.port:45566}") int port,
+            @Value("${cluster.multicast.interface:}") String interfaceName,
+            @Value("${cluster.multicast.ttl:1}") int ttl) throws IOException {
+        return new MulticastClusterChannel(nodeId(datacenterId, machineId), group, port, interfaceName, ttl);
+    }
+
+    private static String nodeId(long datacenterId, long machineId) {
+        return "%d-%d-%08x".formatted(datacenterId, machineId, ThreadLocalRandom.current().nextInt());
+    }
+}
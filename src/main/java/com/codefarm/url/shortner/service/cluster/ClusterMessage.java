@@ -0,0 +1,103 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message between nodes: a type, the sending node's id and a list of strings whose meaning
+ * depends on the type. Encoded as {@code magic, type, sender, count, values} with
+ * {@link DataOutputStream} strings; one message must fit a single UDP datagram.
+ */
+public record ClusterMessage(Type type, String sender, List<String> values) {
+
+    /** Keeps an encoded message well inside the 65,507-byte UDP payload limit. */
+    public static final int MAX_BYTES = 60_000;
+
+    private static final int MAGIC = 0x55524C43;
+    private static final int HEADER_BYTES = 64;
+
+    public enum Type {
+        /** Values: short codes to drop from local caches, gone markers included. */
+        INVALIDATE,
+        /** No values: a starting node asks peers for their hottest cache entries. */
+        SNAPSHOT_REQUEST,
+        /** Values: the sender's hottest short codes; the receiver reads their targets from its store. */
+        SNAPSHOT,
+        /** Values: short codes whose links expired; drop them like {@link #INVALIDATE}, leaving no gone marker. */
+        GONE
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(type.ordinal());
+            out.writeUTF(sender);
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (bytes.size() > MAX_BYTES) {
+            throw new IllegalArgumentException("Cluster message of " + bytes.size() + " bytes exceeds " + MAX_BYTES);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ClusterMessage decode(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a cluster message");
+        }
+        int type = in.readUnsignedByte();
+        if (type >= Type.values().length) {
+            throw new IOException("Unknown cluster message type " + type);
+        }
+        String sender = in.readUTF();
+        int count = in.readInt();
+        if (count < 0 || count > length) {
+            throw new IOException("Bad value count " + count);
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return new ClusterMessage(Type.values()[type], sender, values);
+    }
+
+    /**
+     * Splits {@code values} into chunks that each encode within {@link #MAX_BYTES}, never
+     * separating a run of {@code groupSize} consecutive values (e.g. a code and its URL).
+     */
+    public static List<List<String>> split(List<String> values, int groupSize) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int bytes = HEADER_BYTES;
+        for (int i = 0; i + groupSize <= values.size(); i += groupSize) {
+            int groupBytes = 0;
+            for (int j = i; j < i + groupSize; j++) {
+                groupBytes += 2 + values.get(j).getBytes(StandardCharsets.UTF_8).length;
+            }
+            if (bytes + groupBytes > MAX_BYTES && !chunk.isEmpty()) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                bytes = HEADER_BYTES;
+            }
+            chunk.addAll(values.subList(i, i + groupSize));
+            bytes += groupBytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
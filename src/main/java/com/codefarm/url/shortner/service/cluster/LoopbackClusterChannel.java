@@ -0,0 +1,42 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-JVM channel: every instance with the same group name is a node. Messages go through the
+ * same encoding as on the network and are delivered synchronously on the publishing thread.
+ */
+final class LoopbackClusterChannel extends AbstractClusterChannel {
+
+    private static final Map<String, List<LoopbackClusterChannel>> GROUPS = new ConcurrentHashMap<>();
+
+    private final List<LoopbackClusterChannel> members;
+
+    LoopbackClusterChannel(String nodeId, String group) {
+        super(nodeId);
+        this.members = GROUPS.computeIfAbsent(group, _ -> new CopyOnWriteArrayList<>());
+        members.add(this);
+    }
+
+    @Override
+    void transmit(byte[] message) {
+        for (LoopbackClusterChannel member : members) {
+            if (member != this) {
+                member.deliver(message, 0, message.length);
+            }
+        }
+    }
+
+    @Override
+    public boolean mayHavePeers() {
+        return members.size() > 1;
+    }
+
+    @Override
+    public void close() {
+        members.remove(this);
+    }
+}
@@ -0,0 +1,79 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+
+/**
+ * UDP multicast channel: each message is one datagram sent to {@code cluster.multicast.group}.
+ * Nodes find each other by joining the same group and port, with no peer list to maintain; the
+ * network must route multicast between them (one subnet, or {@code cluster.multicast.ttl} > 1).
+ */
+final class MulticastClusterChannel extends AbstractClusterChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastClusterChannel.class);
+    private static final int MAX_DATAGRAM_BYTES = 65_507;
+
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final MulticastSocket socket;
+
+    MulticastClusterChannel(String nodeId, String group, int port, String interfaceName, int ttl) throws IOException {
+        super(nodeId);
+        this.group = new InetSocketAddress(InetAddress.getByName(group), port);
+        this.networkInterface = interfaceName.isBlank() ? null : NetworkInterface.getByName(interfaceName);
+        if (!interfaceName.isBlank() && networkInterface == null) {
+            throw new IllegalArgumentException("No network interface named " + interfaceName);
+        }
+        this.socket = new MulticastSocket(port);
+        socket.setTimeToLive(ttl);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.joinGroup(this.group, networkInterface);
+        Thread.ofPlatform().name("cluster-receiver").daemon().start(this::receive);
+        log.info("Joined cluster multicast group {} as {}", this.group, nodeId);
+    }
+
+    @Override
+    void transmit(byte[] message) throws IOException {
+        socket.send(new DatagramPacket(message, message.length, group));
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM_BYTES];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                deliver(buffer, packet.getOffset(), packet.getLength());
+            } catch (IOException ex) {
+                if (!socket.isClosed()) {
+                    log.warn("Cluster receive failed", ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean mayHavePeers() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.leaveGroup(group, networkInterface);
+        } catch (IOException ex) {
+            log.debug("Leaving multicast group failed", ex);
+        }
+        socket.close();
+    }
+}
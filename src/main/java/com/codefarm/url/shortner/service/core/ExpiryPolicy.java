@@ -0,0 +1,60 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.exception.ApiError;
+import com.codefarm.url.shortner.service.exception.InvalidUrlException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * When a new link expires: after the requested TTL, else after {@code expiry.default-ttl}
+ * (0 means never). With {@code expiry.max-ttl} set, longer TTLs are rejected and every link expires.
+ */
+@Component
+class ExpiryPolicy {
+
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+
+    ExpiryPolicy(
+            @Value("${expiry.default-ttl:0s}") Duration defaultTtl,
+            @Value("${expiry.max-ttl:0s}") Duration maxTtl) {
+        if (defaultTtl.isNegative() || maxTtl.isNegative()) {
+            throw new IllegalArgumentException("expiry.default-ttl and expiry.max-ttl must not be negative");
+        }
+        if (!maxTtl.isZero() && (defaultTtl.isZero() || defaultTtl.compareTo(maxTtl) > 0)) {
+            throw new IllegalArgumentException("expiry.default-ttl must be set and within expiry.max-ttl");
+        }
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+    }
+
+    /** The expiry for a link created at {@code createdAt}, or {@code null} if it never expires. */
+    LocalDateTime expiresAt(Duration requestedTtl, LocalDateTime createdAt) {
+        if (requestedTtl == null) {
+            return defaultTtl.isZero() ? null : createdAt.plus(defaultTtl);
+        }
+        if (requestedTtl.isNegative() || requestedTtl.isZero() || (!maxTtl.isZero() && requestedTtl.compareTo(maxTtl) > 0)) {
+            throw InvalidUrlException.of(ApiError.TTL_INVALID);
+        }
+        return createdAt.plus(requestedTtl);
+    }
+
+    /**
+     * Whether an existing link expiring at {@code existing} may be handed out instead of a new one
+     * that would expire at {@code requested} ({@code null}: never, on both sides). With an explicit
+     * TTL the existing link must live at least as long. Without one the caller takes the default
+     * lifetime, so any live link will do, except that a default of never needs a link that never expires.
+     */
+    boolean allowsReuse(LocalDateTime existing, Duration requestedTtl, LocalDateTime requested, LocalDateTime now) {
+        if (existing == null) {
+            return true;
+        }
+        if (requested == null) {
+            return false;
+        }
+        return requestedTtl == null ? existing.isAfter(now) : !existing.isBefore(requested);
+    }
+}
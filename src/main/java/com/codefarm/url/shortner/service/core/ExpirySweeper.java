@@ -0,0 +1,177 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.cache.ClusterCacheSync;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes expired mappings in the background. Every {@code expiry.sweep.interval} it scans the
+ * store for links past their expiry, {@code expiry.sweep.batch-size} at a time, and for each batch
+ * marks the codes gone (so this node keeps answering 410 without a store lookup, and other nodes
+ * drop them), deletes the rows and takes them off their users' counts. The codes are marked before
+ * the deletes: a custom alias can be created again as soon as its row is gone, and the marker must
+ * not land after that alias's invalidation. Deletes are paced to at most
+ * {@code expiry.sweep.max-rows-per-second}, so a large backlog drains slowly instead of competing
+ * with live traffic for connections.
+ *
+ * <p>Meters: {@code expiry.sweeper.reclaimed} (rows deleted), {@code expiry.sweeper.lag} (how long
+ * the oldest row deleted by the last sweep had been expired) and {@code expiry.sweeper.duration}
+ * (length of the last sweep).
+ */
+@Component
+public class ExpirySweeper implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpirySweeper.class);
+
+    private final UrlStore store;
+    private final ClusterCacheSync cacheSync;
+    private final UserUrlCounters userUrlCounters;
+    private final boolean enabled;
+    private final Duration interval;
+    private final int batchSize;
+    private final double maxRowsPerSecond;
+
+    private final LongAdder reclaimed = new LongAdder();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("expiry-sweeper").daemon().factory());
+    private volatile long lagNanos;
+    private volatile long durationNanos;
+
+    public ExpirySweeper(
+            UrlStore store,
+            ClusterCacheSync cacheSync,
+            UserUrlCounters userUrlCounters,
+            @Value("${expiry.sweep.enabled:true}") boolean enabled,
+            @Value("${expiry.sweep.interval:1m}") Duration interval,
+            @Value("${expiry.sweep.batch-size:500}") int batchSize,
+            @Value("${expiry.sweep.max-rows-per-second:2000}") double maxRowsPerSecond) {
+        this.store = store;
+        this.cacheSync = cacheSync;
+        this.userUrlCounters = userUrlCounters;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            sweeper.scheduleWithFixedDelay(this::sweep, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /** Runs one sweep on the calling thread; returns the number of rows deleted. */
+    public long sweep() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        long before = reclaimed.sum();
+        LocalDateTime[] oldest = {null};
+        try {
+            store.scanExpired(now, batchSize, batch -> {
+                long batchStart = System.nanoTime();
+                LocalDateTime batchOldest = reclaim(batch, now);
+                if (batchOldest != null && (oldest[0] == null || batchOldest.isBefore(oldest[0]))) {
+                    oldest[0] = batchOldest;
+                }
+                throttle(batch.size(), System.nanoTime() - batchStart);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Expiry sweep stopped early; it will resume on the next run", ex);
+        }
+        lagNanos = oldest[0] == null ? 0 : Duration.between(oldest[0], now).toNanos();
+        durationNanos = System.nanoTime() - start;
+        long deleted = reclaimed.sum() - before;
+        if (deleted > 0) {
+            log.info("Expiry sweep deleted {} mappings in {} ms", deleted, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+        return deleted;
+    }
+
+    /** Deletes one batch; returns the earliest expiry among the rows this node deleted. */
+    private LocalDateTime reclaim(List<UrlMapping> batch, LocalDateTime now) {
+        List<String> shortCodes = new ArrayList<>(batch.size());
+        batch.forEach(mapping -> shortCodes.add(mapping.getShortCode()));
+        cacheSync.markGone(shortCodes);
+        List<String> revived = new ArrayList<>();
+        Map<String, Long> perUser = new HashMap<>();
+        long deleted = 0;
+        LocalDateTime oldest = null;
+        for (UrlMapping mapping : batch) {
+            // Another node may be sweeping too; only the one whose delete succeeds adjusts the counts.
+            if (!store.deleteExpired(mapping.getShortCode(), now)) {
+                // Deleted elsewhere and possibly created again since: that alias must not stay gone.
+                if (store.exists(mapping.getShortCode())) {
+                    revived.add(mapping.getShortCode());
+                }
+                continue;
+            }
+            deleted++;
+            if (mapping.getUserId() != null) {
+                perUser.merge(mapping.getUserId(), 1L, Long::sum);
+            }
+            if (oldest == null || mapping.getExpiresAt().isBefore(oldest)) {
+                oldest = mapping.getExpiresAt();
+            }
+        }
+        cacheSync.invalidate(revived);
+        perUser.forEach((userId, count) -> userUrlCounters.add(userId, -count));
+        reclaimed.add(deleted);
+        return oldest;
+    }
+
+    // Sleeps off whatever part of the batch's time budget the deletes did not use.
+    private void throttle(int rows, long elapsedNanos) {
+        long budgetNanos = (long) (rows / maxRowsPerSecond * 1_000_000_000L);
+        long pauseNanos = budgetNanos - elapsedNanos;
+        if (pauseNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Expiry sweep interrupted", ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("expiry.sweeper.reclaimed", reclaimed, LongAdder::sum)
+                .description("Expired mappings deleted by the sweeper")
+                .register(registry);
+        TimeGauge.builder("expiry.sweeper.lag", this, TimeUnit.NANOSECONDS, s -> s.lagNanos)
+                .description("How long the oldest mapping deleted by the last sweep had been expired")
+                .register(registry);
+        TimeGauge.builder("expiry.sweeper.duration", this, TimeUnit.NANOSECONDS, s -> s.durationNanos)
+                .description("Duration of the last sweep, including throttling pauses")
+                .register(registry);
+    }
+}
@@ -0,0 +1,169 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for single shortens ({@code shorten.group-commit.enabled}). Callers queue their
+ * request and wait. One writer thread takes the first queued request, keeps collecting for up to
+ * {@code shorten.group-commit.window} or {@code shorten.group-commit.max-size} requests, and hands
+ * the group to the service, which runs it as one transaction: one dedup query, one alias query,
+ * one batch insert and one commit. The window bounds the latency added to a request; with a
+ * window of 0 a group is whatever queued up while the previous one was committing.
+ * <p>
+ * A full queue ({@code shorten.group-commit.queue-capacity}) blocks callers until the writer
+ * catches up.
+ */
+@Component
+public class GroupCommitWriter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+    private final BlockingQueue<ShortenItem> queue;
+
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public GroupCommitWriter(
+            @Value("${shorten.group-commit.enabled:false}") boolean enabled,
+            @Value("${shorten.group-commit.window:1ms}") Duration window,
+            @Value("${shorten.group-commit.max-size:256}") int maxSize,
+            @Value("${shorten.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Starts the writer; {@code committer} processes a group and completes each item's result. */
+    void start(Consumer<List<ShortenItem>> committer) {
+        if (enabled && writer == null) {
+            running = true;
+            writer = Thread.ofPlatform().name("shorten-group-commit").daemon().start(() -> run(committer));
+        }
+    }
+
+    /** Queues the item and waits for its group to commit; rethrows the item's own error. */
+    ShortenResponse submit(ShortenItem item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a shorten request", ex);
+        }
+        // Queued after the writer drained the queue for the last time: nobody would complete it
+        if (!running && queue.remove(item)) {
+            throw new IllegalStateException("Group-commit writer stopped");
+        }
+        try {
+            return item.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /** Counts a group that failed as a whole and was retried one item at a time. */
+    void fallback() {
+        fallbacks.increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread current = writer;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    private void run(Consumer<List<ShortenItem>> committer) {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<ShortenItem> group = new ArrayList<>(maxSize);
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxSize) {
+                    if (queue.drainTo(group, maxSize - group.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    ShortenItem next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            if (!group.isEmpty()) {
+                commit(group, committer);
+            }
+        }
+        List<ShortenItem> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        IllegalStateException stopped = new IllegalStateException("Group-commit writer stopped");
+        abandoned.forEach(item -> item.result().completeExceptionally(stopped));
+    }
+
+    private void commit(List<ShortenItem> group, Consumer<List<ShortenItem>> committer) {
+        try {
+            committer.accept(group);
+        } catch (RuntimeException ex) {
+            log.error("Group commit of {} shorten requests failed", group.size(), ex);
+            group.forEach(item -> item.result().completeExceptionally(ex));
+        }
+        groups.increment();
+        items.add(group.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("shorten.group.queue.depth", queue, BlockingQueue::size)
+                .description("Shorten requests waiting for the group-commit writer")
+                .register(registry);
+        FunctionCounter.builder("shorten.group.commits", groups, LongAdder::sum)
+                .description("Groups committed by the group-commit writer")
+                .register(registry);
+        FunctionCounter.builder("shorten.group.items", items, LongAdder::sum)
+                .description("Shorten requests committed in groups; divide by commits for the mean group size")
+                .register(registry);
+        FunctionCounter.builder("shorten.group.fallbacks", fallbacks, LongAdder::sum)
+                .description("Groups that failed as a whole and were retried one request per transaction")
+                .register(registry);
+    }
+}
@@ -0,0 +1,145 @@
+package com.codefarm.url.shortner.service.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and outcome counters for the service's own hot paths: redirect (by outcome), shorten
+ * (single including its commit, batch excluding it) and each store call made from them. HTTP endpoints,
+ * Spring Data repositories, connection pools and threads are covered by Boot's own meters.
+ * <p>
+ * Timers are registered once and recorded with {@link System#nanoTime()} deltas, so a request
+ * costs two clock reads and one timer update. With {@code metrics.hot-path.enabled=false}
+ * nothing is read or recorded; the outcome counters stay on, they are single adds.
+ */
+@Component
+public class HotPathMetrics implements MeterBinder {
+
+    enum RedirectOutcome {
+        REDIRECT, NOT_MODIFIED, NOT_FOUND, GONE;
+
+        static RedirectOutcome of(HttpStatusCode status) {
+            return switch (status.value()) {
+                case 304 -> NOT_MODIFIED;
+                case 404 -> NOT_FOUND;
+                case 410 -> GONE;
+                default -> REDIRECT;
+            };
+        }
+    }
+
+    enum StoreCall {
+        FIND_REDIRECT("findRedirect"),
+        FIND_BY_LONG_URL("findByLongUrl"),
+        FIND_BY_LONG_URLS("findByLongUrls"),
+        EXISTS("exists"),
+        FIND_EXISTING_SHORT_CODES("findExistingShortCodes"),
+        PUT_IF_ABSENT("putIfAbsent"),
+        PUT_ALL("putAll");
+
+        private final String operation;
+
+        StoreCall(String operation) {
+            this.operation = operation;
+        }
+    }
+
+    private final boolean enabled;
+    private final boolean histograms;
+
+    private final LongAdder dedupHits = new LongAdder();
+    private final LongAdder aliasConflicts = new LongAdder();
+    // Null until bound; requests arriving earlier are simply not timed.
+    private volatile Timer[] redirectTimers;
+    private volatile Timer[] storeTimers;
+    private volatile Timer shortenTimer;
+    private volatile Timer batchTimer;
+
+    public HotPathMetrics(
+            @Value("${metrics.hot-path.enabled:true}") boolean enabled,
+            @Value("${metrics.hot-path.histograms:true}") boolean histograms) {
+        this.enabled = enabled;
+        this.histograms = histograms;
+    }
+
+    /** Start time for one of the {@code record} methods, or 0 when timing is off. */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void recordRedirect(long start, HttpStatusCode status) {
+        recordRedirect(start, RedirectOutcome.of(status));
+    }
+
+    void recordRedirect(long start, RedirectOutcome outcome) {
+        Timer[] timers = redirectTimers;
+        if (start != 0 && timers != null) {
+            timers[outcome.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordStore(StoreCall call, long start) {
+        Timer[] timers = storeTimers;
+        if (start != 0 && timers != null) {
+            timers[call.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordShorten(long start, boolean batch) {
+        Timer timer = batch ? batchTimer : shortenTimer;
+        if (start != 0 && timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void dedupHits(int count) {
+        dedupHits.add(count);
+    }
+
+    void aliasConflicts(int count) {
+        aliasConflicts.add(count);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shorten.dedup.hits", dedupHits, LongAdder::sum)
+                .description("Shorten requests answered with an existing mapping for the same long URL")
+                .register(registry);
+        FunctionCounter.builder("shorten.alias.conflicts", aliasConflicts, LongAdder::sum)
+                .description("Custom aliases rejected because the code is already taken")
+                .register(registry);
+        if (!enabled) {
+            return;
+        }
+        Timer[] redirects = new Timer[RedirectOutcome.values().length];
+        for (RedirectOutcome outcome : RedirectOutcome.values()) {
+            redirects[outcome.ordinal()] = timer("redirect.resolve")
+                    .description("Redirect lookups, from cache or store to the response")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry);
+        }
+        Timer[] stores = new Timer[StoreCall.values().length];
+        for (StoreCall call : StoreCall.values()) {
+            stores[call.ordinal()] = timer("store.calls")
+                    .description("Url store calls made while redirecting and shortening")
+                    .tag("operation", call.operation)
+                    .register(registry);
+        }
+        shortenTimer = timer("shorten.create").tag("mode", "single").register(registry);
+        batchTimer = timer("shorten.create").tag("mode", "batch").register(registry);
+        storeTimers = stores;
+        redirectTimers = redirects;
+    }
+
+    private Timer.Builder timer(String name) {
+        return Timer.builder(name).publishPercentileHistogram(histograms);
+    }
+}
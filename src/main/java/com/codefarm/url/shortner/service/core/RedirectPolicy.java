@@ -0,0 +1,221 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.cache.CachedRedirect;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Turns a {@link RedirectTarget} into the HTTP response.
+ * <ul>
+ *   <li>Status: the mapping's own (301, 302, 307 or 308), else {@code redirect.status}.</li>
+ *   <li>{@code Cache-Control}: {@code private, max-age} by default. With {@code redirect.cache.public},
+ *       generated codes, which never change target, are sent {@code public} with {@code s-maxage} and
+ *       {@code stale-while-revalidate}, so shared caches and CDNs can answer them. Custom aliases
+ *       and expiring links stay private.</li>
+ *   <li>{@code ETag}: a hash of status and target, so a cache revalidating with
+ *       {@code If-None-Match} gets a bodiless 304.</li>
+ * </ul>
+ * Header values are constants except {@code Location} and {@code ETag}. With {@code redirect.prerender}
+ * the whole response is built once per cached code and then shared, read-only, by every hit.
+ * {@link #writeGeneratedHead} writes the same redirect as raw HTTP/1.1 bytes around a URL that is
+ * already in the caller's buffer, for the fast path's arena hits.
+ */
+@Component
+class RedirectPolicy {
+
+    private static final List<String> X_ROBOTS_TAG = List.of("noindex");
+
+    /** Bytes {@link #writeGeneratedHead} needs in front of the URL: the status line and {@code Location: }. */
+    static final int HEAD_ROOM = 64;
+    /** Bytes {@link #writeGeneratedHead} needs after the URL: the other headers, whatever the configuration. */
+    static final int TRAILER_ROOM = 256;
+
+    private static final byte[] MOVED_PERMANENTLY = statusLine("301 Moved Permanently");
+    private static final byte[] FOUND = statusLine("302 Found");
+    private static final byte[] TEMPORARY_REDIRECT = statusLine("307 Temporary Redirect");
+    private static final byte[] PERMANENT_REDIRECT = statusLine("308 Permanent Redirect");
+    private static final byte[] ETAG_START = ascii("ETag: \"");
+    private static final byte[] ETAG_END = ascii("\"\r\n");
+    private static final byte[] HEAD_END = ascii("X-Robots-Tag: noindex\r\ncontent-length: 0\r\n");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final HttpStatus defaultStatus;
+    private final List<String> privateCacheControl;
+    private final List<String> publicCacheControl;
+    private final byte[] generatedCacheControl;
+    private final boolean etags;
+    private final boolean prerender;
+
+    RedirectPolicy(
+            @Value("${redirect.status:301}") int defaultStatus,
+            @Value("${redirect.cache.max-age:90s}") Duration maxAge,
+            @Value("${redirect.cache.public:false}") boolean publicForGenerated,
+            @Value("${redirect.cache.shared-max-age:1d}") Duration sharedMaxAge,
+            @Value("${redirect.cache.stale-while-revalidate:10m}") Duration staleWhileRevalidate,
+            @Value("${redirect.etag:true}") boolean etags,
+            @Value("${redirect.prerender:false}") boolean prerender) {
+        if (!isSupportedStatus(defaultStatus)) {
+            throw new IllegalArgumentException("redirect.status must be 301, 302, 307 or 308");
+        }
+        this.defaultStatus = HttpStatus.valueOf(defaultStatus);
+        this.privateCacheControl = List.of("private, max-age=" + maxAge.toSeconds());
+        this.publicCacheControl = publicForGenerated
+                ? List.of("public, max-age=%d, s-maxage=%d, stale-while-revalidate=%d".formatted(
+                        maxAge.toSeconds(), sharedMaxAge.toSeconds(), staleWhileRevalidate.toSeconds()))
+                : privateCacheControl;
+        this.generatedCacheControl = ascii("\r\nCache-Control: " + publicCacheControl.getFirst() + "\r\n");
+        this.etags = etags;
+        this.prerender = prerender;
+    }
+
+    static boolean isSupportedStatus(Integer status) {
+        return status == null || status == 301 || status == 302 || status == 307 || status == 308;
+    }
+
+    boolean prerenders() {
+        return prerender;
+    }
+
+    /** The cache entry for {@code target}: pre-rendered when {@code redirect.prerender} is on. */
+    CachedRedirect cacheEntry(RedirectTarget target) {
+        if (!prerender) {
+            return CachedRedirect.of(target);
+        }
+        return new CachedRedirect(target, redirect(target, true), notModified(target, true));
+    }
+
+    /** The redirect, or a 304 when {@code ifNoneMatch} names the current ETag. */
+    ResponseEntity<Void> respond(CachedRedirect cached, String ifNoneMatch) {
+        if (etags && ifNoneMatch != null && matches(ifNoneMatch, etag(cached))) {
+            return cached.isRendered() ? cached.notModified() : notModified(cached.target(), false);
+        }
+        return cached.isRendered() ? cached.response() : redirect(cached.target(), false);
+    }
+
+    /**
+     * Writes the response head of the redirect to a generated code that never expires, whose
+     * target URL's UTF-8 bytes are in {@code head} at {@link #HEAD_ROOM}, and returns its length.
+     * The head starts at 0 and ends with the last header's CRLF, so the caller can add
+     * {@code Connection} before the blank line. Same headers as the redirect {@link #respond}
+     * gives for the target; {@code ownStatus} is the mapping's own status, or 0 for the default.
+     * {@code head} needs {@link #TRAILER_ROOM} bytes after the URL. Allocates nothing.
+     */
+    int writeGeneratedHead(int ownStatus, byte[] head, int urlLength) {
+        int status = ownStatus == 0 ? defaultStatus.value() : ownStatus;
+        // The ETag hashes "<status> <url>", as etag(RedirectTarget) does; the status line overwrites the prefix
+        int hashed = HEAD_ROOM - 4;
+        head[hashed] = (byte) ('0' + status / 100);
+        head[hashed + 1] = (byte) ('0' + status / 10 % 10);
+        head[hashed + 2] = (byte) ('0' + status % 10);
+        head[hashed + 3] = ' ';
+        long hash = UrlHashing.longUrlHash(head, hashed, urlLength + 4);
+        byte[] statusLine = statusLine(status);
+        int start = HEAD_ROOM - statusLine.length;
+        System.arraycopy(statusLine, 0, head, start, statusLine.length);
+        int end = put(generatedCacheControl, head, HEAD_ROOM + urlLength);
+        if (etags) {
+            end = put(ETAG_START, head, end);
+            end = putHex(hash, head, end);
+            end = put(ETAG_END, head, end);
+        }
+        end = put(HEAD_END, head, end);
+        System.arraycopy(head, start, head, 0, end - start);
+        return end - start;
+    }
+
+    private ResponseEntity<Void> redirect(RedirectTarget target, boolean shared) {
+        LinkedMultiValueMap<String, String> headers = new LinkedMultiValueMap<>(6);
+        headers.put(HttpHeaders.LOCATION, List.of(target.longUrl()));
+        headers.put(HttpHeaders.CACHE_CONTROL, cacheControl(target));
+        if (etags) {
+            headers.put(HttpHeaders.ETAG, List.of(etag(target)));
+        }
+        headers.put("X-Robots-Tag", X_ROBOTS_TAG);
+        return new ResponseEntity<>(headers(headers, shared), status(target));
+    }
+
+    // A 304 carries the headers a cache would update on its stored redirect, not Location.
+    private ResponseEntity<Void> notModified(RedirectTarget target, boolean shared) {
+        LinkedMultiValueMap<String, String> headers = new LinkedMultiValueMap<>(4);
+        headers.put(HttpHeaders.CACHE_CONTROL, cacheControl(target));
+        headers.put(HttpHeaders.ETAG, List.of(etag(target)));
+        return new ResponseEntity<>(headers(headers, shared), HttpStatus.NOT_MODIFIED);
+    }
+
+    private static HttpHeaders headers(LinkedMultiValueMap<String, String> headers, boolean shared) {
+        HttpHeaders httpHeaders = new HttpHeaders(headers);
+        return shared ? HttpHeaders.readOnlyHttpHeaders(httpHeaders) : httpHeaders;
+    }
+
+    private HttpStatus status(RedirectTarget target) {
+        return target.redirectStatus() == null ? defaultStatus : HttpStatus.valueOf(target.redirectStatus());
+    }
+
+    private List<String> cacheControl(RedirectTarget target) {
+        return target.custom() || target.expiresAt() != null ? privateCacheControl : publicCacheControl;
+    }
+
+    private String etag(CachedRedirect cached) {
+        return cached.isRendered() ? cached.notModified().getHeaders().getETag() : etag(cached.target());
+    }
+
+    // Covers the status too, so changing redirect.status makes caches fetch the new redirect.
+    private String etag(RedirectTarget target) {
+        long hash = UrlHashing.longUrlHash(status(target).value() + " " + target.longUrl());
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    // If-None-Match uses weak comparison: "*" or any listed tag, with or without W/, matches.
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || (tag.startsWith("W/") && tag.substring(2).equals(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] statusLine(int status) {
+        return switch (status) {
+            case 301 -> MOVED_PERMANENTLY;
+            case 302 -> FOUND;
+            case 307 -> TEMPORARY_REDIRECT;
+            case 308 -> PERMANENT_REDIRECT;
+            default -> throw new IllegalArgumentException("Not a redirect status: " + status);
+        };
+    }
+
+    private static byte[] statusLine(String status) {
+        return ascii("HTTP/1.1 " + status + "\r\nLocation: ");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int put(byte[] bytes, byte[] head, int at) {
+        System.arraycopy(bytes, 0, head, at, bytes.length);
+        return at + bytes.length;
+    }
+
+    // Long.toHexString's digits, without the String
+    private static int putHex(long value, byte[] head, int at) {
+        int digits = Math.max(1, (67 - Long.numberOfLeadingZeros(value)) / 4);
+        for (int i = digits - 1; i >= 0; i--) {
+            head[at + i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+        return at + digits;
+    }
+}
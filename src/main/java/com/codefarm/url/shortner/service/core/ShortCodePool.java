@@ -0,0 +1,183 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.cache.ShortCodeFilter;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.util.Base62Encoder;
+import com.codefarm.url.shortner.service.util.IdGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-generated, already-validated short codes. A background worker tops the pool up one batch
+ * at a time whenever its depth falls below the low watermark; {@link #next()} is a lock-free
+ * poll. If the pool is empty the caller generates a code inline (counted as a starvation).
+ * Generated codes that turn out to be taken are counted as collisions, inline or in a batch.
+ * A pooled code is not reserved: a client can still claim it as a custom alias before it is
+ * used, in which case the insert fails and the service retries with another code.
+ */
+@Component
+public class ShortCodePool implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ShortCodePool.class);
+    private static final int INLINE_ATTEMPTS = 3;
+
+    private final IdGenerator idGenerator;
+    private final Base62Encoder encoder;
+    private final ShortCodeFilter shortCodeFilter;
+    private final UrlStore store;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int lowWatermark;
+    private final boolean fixedWidth;
+
+    private final ConcurrentLinkedQueue<String> codes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final LongAdder starvations = new LongAdder();
+    private final LongAdder refills = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("shortcode-pool-refill").daemon().factory());
+
+    public ShortCodePool(
+            IdGenerator idGenerator,
+            Base62Encoder encoder,
+            ShortCodeFilter shortCodeFilter,
+            UrlStore store,
+            @Value("${shortcode.pool.enabled:true}") boolean enabled,
+            @Value("${shortcode.pool.batch-size:1000}") int batchSize,
+            @Value("${shortcode.pool.low-watermark:250}") int lowWatermark,
+            @Value("${shortcode.fixed-width:false}") boolean fixedWidth) {
+        this.idGenerator = idGenerator;
+        this.encoder = encoder;
+        this.shortCodeFilter = shortCodeFilter;
+        this.store = store;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lowWatermark = lowWatermark;
+        this.fixedWidth = fixedWidth;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefill() {
+        triggerRefill();
+    }
+
+    public String next() {
+        String code = codes.poll();
+        if (code == null) {
+            if (enabled) {
+                starvations.increment();
+            }
+            code = generateInline();
+        } else {
+            depth.decrementAndGet();
+        }
+        if (depth.get() < lowWatermark) {
+            triggerRefill();
+        }
+        return code;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    private void triggerRefill() {
+        if (!enabled || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refiller.execute(this::refill);
+        } catch (RejectedExecutionException _) {
+            refilling.set(false);
+        }
+    }
+
+    private void refill() {
+        try {
+            List<String> batch = generateBatch();
+            codes.addAll(batch);
+            depth.addAndGet(batch.size());
+            refills.increment();
+        } catch (RuntimeException ex) {
+            log.warn("Short code pool refill failed; requests fall back to inline generation", ex);
+            return;
+        } finally {
+            refilling.set(false);
+        }
+        if (depth.get() < lowWatermark) {
+            triggerRefill();
+        }
+    }
+
+    // Codes the Bloom filter cannot rule out are checked against the store in one query.
+    private List<String> generateBatch() {
+        List<String> batch = new ArrayList<>(batchSize);
+        List<String> suspects = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            String code = encode(idGenerator.nextId());
+            batch.add(code);
+            if (shortCodeFilter.mightExist(code)) {
+                suspects.add(code);
+            }
+        }
+        if (!suspects.isEmpty()) {
+            Set<String> taken = store.findExistingShortCodes(suspects);
+            batch.removeIf(taken::contains);
+            collisions.add(taken.size());
+        }
+        return batch;
+    }
+
+    private String generateInline() {
+        for (int i = 0; i < INLINE_ATTEMPTS; i++) {
+            String code = encode(idGenerator.nextId());
+            if (!shortCodeFilter.mightExist(code) || !store.exists(code)) {
+                return code;
+            }
+            collisions.increment();
+        }
+        throw new IllegalStateException("Failed to generate unique short code");
+    }
+
+    private String encode(long id) {
+        return fixedWidth ? encoder.toBase62Padded(id) : encoder.toBase62(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shortcode.pool.depth", depth, AtomicInteger::get)
+                .description("Validated short codes waiting to be handed out")
+                .register(registry);
+        FunctionCounter.builder("shortcode.pool.starvations", starvations, LongAdder::sum)
+                .description("Requests that found the pool empty and generated a code inline")
+                .register(registry);
+        FunctionCounter.builder("shortcode.pool.refills", refills, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("shortcode.collisions", collisions, LongAdder::sum)
+                .description("Generated codes discarded because the store already had them")
+                .register(registry);
+    }
+}
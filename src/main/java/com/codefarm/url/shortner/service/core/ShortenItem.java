@@ -0,0 +1,50 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One shorten inside a batch or a commit group: the caller's request, base URL and user, and what
+ * became of it, either the mapping it resolved to or the error a single shorten would have thrown.
+ * Group-commit callers wait on {@link #result()}.
+ */
+final class ShortenItem {
+
+    final ShortenRequest request;
+    final String baseUrl;
+    final String userId;
+
+    // Filled in by the service while the batch or group is processed
+    String longUrl;
+    String alias;
+    Integer redirectStatus;
+    LocalDateTime expiresAt;
+    UrlMapping mapping;
+    RuntimeException error;
+
+    private final CompletableFuture<ShortenResponse> result = new CompletableFuture<>();
+
+    ShortenItem(ShortenRequest request, String baseUrl, String userId) {
+        this.request = request;
+        this.baseUrl = baseUrl;
+        this.userId = userId;
+    }
+
+    CompletableFuture<ShortenResponse> result() {
+        return result;
+    }
+
+    /** Forgets the outcome of a rolled-back attempt, keeping {@code error} if one is given. */
+    void reset(RuntimeException error) {
+        longUrl = null;
+        alias = null;
+        redirectStatus = null;
+        expiresAt = null;
+        mapping = null;
+        this.error = error;
+    }
+}
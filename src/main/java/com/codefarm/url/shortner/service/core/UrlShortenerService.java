@@ -1,5 +1,6 @@
 package com.codefarm.url.shortner.service.core;
 
+import com.codefarm.url.shortner.service.web.dto.BatchShortenResult;
 import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
 import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
 import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
@@ -9,8 +10,18 @@ import java.util.List;
 
 public interface UrlShortenerService {
     ShortenResponse shortenUrl(ShortenRequest request, String requestBaseUrl, String userUuid);
-    ResponseEntity<Void> redirect(String shortCode);
-    List<UserMetricsResponse> userMetrics();
+    List<BatchShortenResult> shortenBatch(List<ShortenRequest> requests, String requestBaseUrl, String userUuid);
+    ResponseEntity<?> redirect(String shortCode, String ifNoneMatch);
+    /** Like {@link #redirect}, but answers from memory only; {@code null} when the store must be asked. */
+    ResponseEntity<?> redirectIfCached(String shortCode, String ifNoneMatch);
+    /**
+     * For a redirect answered from the off-heap arena, writes its HTTP/1.1 response head into
+     * {@code head}, up to the last header's CRLF, and returns its length; -1 when
+     * {@link #redirectIfCached} must answer instead. Allocates nothing.
+     */
+    int redirectHeadIfOffHeap(String shortCode, String ifNoneMatch, byte[] head);
+    List<UserMetricsResponse> userMetrics(int page, int size);
+    List<UserMetricsResponse> topUsers(int limit);
 }
 
 
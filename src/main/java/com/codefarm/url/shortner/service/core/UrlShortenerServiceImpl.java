@@ -1,151 +1,496 @@
 package com.codefarm.url.shortner.service.core;
 
+import com.codefarm.url.shortner.service.cache.CachedRedirect;
+import com.codefarm.url.shortner.service.cache.ClusterCacheSync;
+import com.codefarm.url.shortner.service.cache.RedirectCache;
+import com.codefarm.url.shortner.service.cache.ShortCodeFilter;
+import com.codefarm.url.shortner.service.exception.ApiError;
 import com.codefarm.url.shortner.service.exception.CustomAliasAlreadyExistsException;
 import com.codefarm.url.shortner.service.exception.InvalidUrlException;
-import com.codefarm.url.shortner.service.exception.UrlNotFoundException;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
 import com.codefarm.url.shortner.service.model.UrlMapping;
-import com.codefarm.url.shortner.service.repository.UrlMappingRepository;
-import com.codefarm.url.shortner.service.util.Base62Encoder;
-import com.codefarm.url.shortner.service.util.SnowflakeIdGenerator;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import com.codefarm.url.shortner.service.util.UrlValidator;
+import com.codefarm.url.shortner.service.web.dto.BatchShortenResult;
 import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
 import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
 import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class UrlShortenerServiceImpl implements UrlShortenerService {
 
-    private final UrlMappingRepository repository;
-    private final SnowflakeIdGenerator idGenerator;
-    private final Base62Encoder encoder;
+    private static final int CODE_CONFLICT_ATTEMPTS = 3;
+
+    private final UrlStore store;
+    private final ShortCodePool shortCodePool;
+    private final RedirectCache redirectCache;
+    private final ClusterCacheSync cacheSync;
+    private final ShortCodeFilter shortCodeFilter;
+    private final UserUrlCounters userUrlCounters;
+    private final RedirectPolicy redirectPolicy;
+    private final ExpiryPolicy expiryPolicy;
+    private final HotPathMetrics metrics;
+    private final GroupCommitWriter groupCommit;
+    private final TransactionTemplate transactionTemplate;
 
     public UrlShortenerServiceImpl(
-            UrlMappingRepository repository,
-            SnowflakeIdGenerator idGenerator,
-            Base62Encoder encoder) {
-        this.repository = repository;
-        this.idGenerator = idGenerator;
-        this.encoder = encoder;
+            UrlStore store,
+            ShortCodePool shortCodePool,
+            RedirectCache redirectCache,
+            ClusterCacheSync cacheSync,
+            ShortCodeFilter shortCodeFilter,
+            UserUrlCounters userUrlCounters,
+            RedirectPolicy redirectPolicy,
+            ExpiryPolicy expiryPolicy,
+            HotPathMetrics metrics,
+            GroupCommitWriter groupCommit,
+            TransactionTemplate transactionTemplate) {
+        this.store = store;
+        this.shortCodePool = shortCodePool;
+        this.redirectCache = redirectCache;
+        this.cacheSync = cacheSync;
+        this.shortCodeFilter = shortCodeFilter;
+        this.userUrlCounters = userUrlCounters;
+        this.redirectPolicy = redirectPolicy;
+        this.expiryPolicy = expiryPolicy;
+        this.metrics = metrics;
+        this.groupCommit = groupCommit;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    void startGroupCommit() {
+        groupCommit.start(this::commitGroup);
     }
 
+    // Not @Transactional: with group commit the caller only waits while the writer thread runs the
+    // transaction, so it must not hold a connection of its own.
     @Override
-    @Transactional
     public ShortenResponse shortenUrl(ShortenRequest request, String requestBaseUrl, String userUuid) {
+        long start = metrics.start();
+        try {
+            if (groupCommit.isEnabled()) {
+                return groupCommit.submit(new ShortenItem(request, requestBaseUrl, normalizeUserId(userUuid)));
+            }
+            return retryingCodeConflicts(() -> transactionTemplate.execute(_ -> shorten(request, requestBaseUrl, userUuid)));
+        } finally {
+            metrics.recordShorten(start, false);
+        }
+    }
+
+    private ShortenResponse shorten(ShortenRequest request, String requestBaseUrl, String userUuid) {
         String longUrl = normalizeUrl(request.longUrl());
 
         if (isOwnShortUrl(longUrl, requestBaseUrl)) {
-            throw new InvalidUrlException("Cannot shorten a URL from this service. Provide the original long URL.");
+            throw InvalidUrlException.of(ApiError.URL_SELF_REFERENCE);
         }
+        Integer redirectStatus = validateRedirectStatus(request.redirectStatus());
+        LocalDateTime createdAt = LocalDateTime.now();
+        LocalDateTime expiresAt = expiryPolicy.expiresAt(request.ttl(), createdAt);
 
-        Optional<UrlMapping> existing = repository.findByLongUrl(longUrl);
+        long lookup = metrics.start();
+        Optional<UrlMapping> existing = store.findByLongUrl(longUrl, UrlHashing.longUrlHash(longUrl),
+                m -> isReusable(m, redirectStatus, request.ttl(), createdAt, expiresAt));
+        metrics.recordStore(HotPathMetrics.StoreCall.FIND_BY_LONG_URL, lookup);
         if (existing.isPresent()) {
+            metrics.dedupHits(1);
             String shortCode = existing.get().getShortCode();
-            return new ShortenResponse(shortCode, buildShortUrl(requestBaseUrl, shortCode), existing.get().getCreatedAt());
+            return new ShortenResponse(shortCode, buildShortUrl(requestBaseUrl, shortCode), existing.get().getCreatedAt(),
+                    existing.get().getExpiresAt());
         }
 
-        String normalizedUserId = (userUuid == null || userUuid.isBlank()) ? null : userUuid.trim();
+        String normalizedUserId = normalizeUserId(userUuid);
 
-        if (request.customAlias() != null && !request.customAlias().isBlank()) {
-            String alias = request.customAlias().trim();
+        String alias = normalizeAlias(request.customAlias());
+        if (alias != null) {
             validateAlias(alias);
-            if (repository.existsByShortCode(alias)) {
-                throw new CustomAliasAlreadyExistsException("Alias already in use");
+            if (shortCodeFilter.mightExist(alias) && exists(alias)) {
+                metrics.aliasConflicts(1);
+                throw CustomAliasAlreadyExistsException.INSTANCE;
+            }
+            UrlMapping mapping = new UrlMapping(alias, longUrl, createdAt, true, normalizedUserId, redirectStatus, expiresAt);
+            if (!putIfAbsent(mapping)) {
+                metrics.aliasConflicts(1);
+                throw CustomAliasAlreadyExistsException.INSTANCE;
+            }
+            shortCodeFilter.add(alias);
+            afterCommit(() -> {
+                // The alias may have expired before; clear its gone markers on every node.
+                cacheSync.invalidate(alias);
+                redirectCache.put(alias, redirectPolicy.cacheEntry(mapping.redirectTarget()));
+                userUrlCounters.increment(normalizedUserId);
+            });
+            return new ShortenResponse(alias, buildShortUrl(requestBaseUrl, alias), createdAt, expiresAt);
+        }
+
+        String shortCode = shortCodePool.next();
+        UrlMapping mapping = new UrlMapping(shortCode, longUrl, createdAt, false, normalizedUserId, redirectStatus, expiresAt);
+        if (!putIfAbsent(mapping)) {
+            throw new DuplicateKeyException("Generated short code already in use: " + shortCode);
+        }
+        shortCodeFilter.add(shortCode);
+        afterCommit(() -> {
+            redirectCache.put(shortCode, redirectPolicy.cacheEntry(mapping.redirectTarget()));
+            userUrlCounters.increment(normalizedUserId);
+        });
+        return new ShortenResponse(shortCode, buildShortUrl(requestBaseUrl, shortCode), createdAt, expiresAt);
+    }
+
+    /**
+     * Same rules as {@link #shortenUrl}, applied to a whole batch in one transaction: the batch is
+     * deduplicated against itself and against the store with one query, alias conflicts are
+     * checked with one query, and new mappings are written with JDBC batch inserts. Bad URLs and
+     * alias conflicts are reported per item; results are in request order.
+     */
+    @Override
+    public List<BatchShortenResult> shortenBatch(List<ShortenRequest> requests, String requestBaseUrl, String userUuid) {
+        long start = metrics.start();
+        try {
+            String userId = normalizeUserId(userUuid);
+            List<ShortenItem> items = requests.stream().map(r -> new ShortenItem(r, requestBaseUrl, userId)).toList();
+            commit(items);
+            return items.stream().map(item -> item.error != null
+                    ? BatchShortenResult.failure(item.error.getMessage())
+                    : BatchShortenResult.success(item.mapping.getShortCode(),
+                            buildShortUrl(item.baseUrl, item.mapping.getShortCode()), item.mapping.getCreatedAt(),
+                            item.mapping.getExpiresAt()))
+                    .toList();
+        } finally {
+            metrics.recordShorten(start, true);
+        }
+    }
+
+    // Runs on the group-commit writer thread. A group that fails as a whole (a store error, or a
+    // code another node took between the check and the insert) is retried one item per
+    // transaction, so only the items that really fail report an error.
+    private void commitGroup(List<ShortenItem> items) {
+        try {
+            commit(items);
+        } catch (RuntimeException ex) {
+            if (items.size() == 1) {
+                items.getFirst().reset(ex);
+            } else {
+                groupCommit.fallback();
+                for (ShortenItem item : items) {
+                    item.reset(null);
+                    try {
+                        commit(List.of(item));
+                    } catch (RuntimeException itemEx) {
+                        item.reset(itemEx);
+                    }
+                }
+            }
+        }
+        for (ShortenItem item : items) {
+            if (item.error != null) {
+                item.result().completeExceptionally(item.error);
+            } else {
+                String shortCode = item.mapping.getShortCode();
+                item.result().complete(new ShortenResponse(shortCode, buildShortUrl(item.baseUrl, shortCode),
+                        item.mapping.getCreatedAt(), item.mapping.getExpiresAt()));
+            }
+        }
+    }
+
+    private void commit(List<ShortenItem> items) {
+        retryingCodeConflicts(() -> {
+            items.forEach(item -> item.reset(null));
+            transactionTemplate.executeWithoutResult(_ -> shortenAll(items));
+            return null;
+        });
+    }
+
+    // A generated code can be taken by the time it is written: a client may have claimed it as a
+    // custom alias after the pool checked it. The store then fails the transaction, and the
+    // attempt is run again with fresh codes from the pool; the alias is now seen as taken.
+    private <T> T retryingCodeConflicts(Supplier<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (DataIntegrityViolationException ex) {
+                if (i == CODE_CONFLICT_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    // Shared by batches and commit groups; runs inside the caller's transaction. Items may come
+    // from different callers, so base URL and user are per item.
+    private void shortenAll(List<ShortenItem> items) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (ShortenItem item : items) {
+            try {
+                item.longUrl = normalizeUrl(item.request.longUrl());
+                if (isOwnShortUrl(item.longUrl, item.baseUrl)) {
+                    throw InvalidUrlException.of(ApiError.URL_SELF_REFERENCE);
+                }
+                item.redirectStatus = validateRedirectStatus(item.request.redirectStatus());
+                item.expiresAt = expiryPolicy.expiresAt(item.request.ttl(), createdAt);
+                item.alias = normalizeAlias(item.request.customAlias());
+                if (item.alias != null) {
+                    validateAlias(item.alias);
+                }
+            } catch (InvalidUrlException ex) {
+                item.reset(ex);
             }
-            UrlMapping mapping = new UrlMapping(alias, longUrl, LocalDateTime.now(), true, normalizedUserId);
-            repository.save(mapping);
-            return new ShortenResponse(alias, buildShortUrl(requestBaseUrl, alias), mapping.getCreatedAt());
         }
 
-        String shortCode = generateUniqueShortCode();
-        UrlMapping mapping = new UrlMapping(shortCode, longUrl, LocalDateTime.now(), false, normalizedUserId);
-        repository.save(mapping);
-        return new ShortenResponse(shortCode, buildShortUrl(requestBaseUrl, shortCode), mapping.getCreatedAt());
+        List<ShortenItem> valid = items.stream().filter(item -> item.error == null).toList();
+        Map<String, List<UrlMapping>> byLongUrl = findExisting(valid.stream().map(item -> item.longUrl).toList());
+        Set<String> takenAliases = findTakenAliases(valid.stream().map(item -> item.alias).filter(Objects::nonNull).toList());
+
+        List<UrlMapping> created = new ArrayList<>();
+        int reused = 0;
+        int conflicts = 0;
+        for (ShortenItem item : valid) {
+            UrlMapping mapping = firstReusable(byLongUrl.get(item.longUrl), item, createdAt);
+            if (mapping == null) {
+                if (item.alias != null && !takenAliases.add(item.alias)) {
+                    item.error = CustomAliasAlreadyExistsException.INSTANCE;
+                    conflicts++;
+                    continue;
+                }
+                String shortCode = item.alias != null ? item.alias : shortCodePool.next();
+                mapping = new UrlMapping(shortCode, item.longUrl, createdAt, item.alias != null, item.userId,
+                        item.redirectStatus, item.expiresAt);
+                created.add(mapping);
+                byLongUrl.computeIfAbsent(item.longUrl, _ -> new ArrayList<>(1)).add(mapping);
+            } else {
+                reused++;
+            }
+            item.mapping = mapping;
+        }
+
+        metrics.dedupHits(reused);
+        metrics.aliasConflicts(conflicts);
+        long write = metrics.start();
+        store.putAll(created);
+        metrics.recordStore(HotPathMetrics.StoreCall.PUT_ALL, write);
+        created.forEach(m -> shortCodeFilter.add(m.getShortCode()));
+        afterCommit(() -> created.forEach(m -> {
+            if (m.isCustom()) {
+                cacheSync.invalidate(m.getShortCode());
+            }
+            redirectCache.put(m.getShortCode(), redirectPolicy.cacheEntry(m.redirectTarget()));
+            userUrlCounters.increment(m.getUserId());
+        }));
     }
 
+    // Not @Transactional: neither cache hits nor the store lookup on a miss need one.
+    // Misses return the shared pre-serialized 404 instead of throwing. Expired links answer 410
+    // from the cached entry or the gone markers, and reach the store at most once per node.
     @Override
-    @Transactional(readOnly = true)
-    public ResponseEntity<Void> redirect(String shortCode) {
-        UrlMapping mapping = repository.findById(shortCode)
-                .orElseThrow(() -> new UrlNotFoundException("Short code not found: " + shortCode));
+    public ResponseEntity<?> redirect(String shortCode, String ifNoneMatch) {
+        long start = metrics.start();
+        ResponseEntity<?> response = resolve(shortCode, ifNoneMatch, true);
+        metrics.recordRedirect(start, response.getStatusCode());
+        return response;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Location", mapping.getLongUrl());
-        headers.add("Cache-Control", "private, max-age=90");
-        headers.add("X-Robots-Tag", "noindex");
-        return new ResponseEntity<>(headers, HttpStatus.MOVED_PERMANENTLY);
+    // For callers that must not block (the Netty fast path): everything but the store lookup.
+    @Override
+    public ResponseEntity<?> redirectIfCached(String shortCode, String ifNoneMatch) {
+        long start = metrics.start();
+        ResponseEntity<?> response = resolve(shortCode, ifNoneMatch, false);
+        if (response != null) {
+            metrics.recordRedirect(start, response.getStatusCode());
+        }
+        return response;
     }
 
+    // Only arena hits of generated codes that never expire: those need neither the Bloom filter,
+    // the gone markers nor an expiry check, and their redirect is always the same bytes.
     @Override
-    @Transactional(readOnly = true)
-    public java.util.List<UserMetricsResponse> userMetrics() {
-        return repository.countUrlsPerUser().stream()
-                .map(r -> new UserMetricsResponse(r.getUserId(), r.getCount()))
-                .toList();
-    }
-
-    private String generateUniqueShortCode() {
-        for (int i = 0; i < 3; i++) {
-            long id = idGenerator.nextId();
-            String code = encoder.toBase62(id);
-            if (!repository.existsByShortCode(code)) {
-                return code;
+    public int redirectHeadIfOffHeap(String shortCode, String ifNoneMatch, byte[] head) {
+        if (ifNoneMatch != null) {
+            return -1;
+        }
+        long start = metrics.start();
+        long copied = redirectCache.copyOffHeapUrl(shortCode, head, RedirectPolicy.HEAD_ROOM,
+                head.length - RedirectPolicy.HEAD_ROOM - RedirectPolicy.TRAILER_ROOM);
+        if (copied < 0) {
+            return -1;
+        }
+        int length = redirectPolicy.writeGeneratedHead((int) (copied >>> 32), head, (int) copied);
+        metrics.recordRedirect(start, HotPathMetrics.RedirectOutcome.REDIRECT);
+        return length;
+    }
+
+    private ResponseEntity<?> resolve(String shortCode, String ifNoneMatch, boolean mayBlock) {
+        CachedRedirect cached = redirectCache.get(shortCode);
+        if (cached == null && !shortCodeFilter.mightExist(shortCode)) {
+            return ApiError.SHORT_CODE_NOT_FOUND.response();
+        }
+        if (cached == null) {
+            if (redirectCache.isGone(shortCode)) {
+                return ApiError.SHORT_CODE_EXPIRED.response();
+            }
+            if (!mayBlock) {
+                return null;
             }
+            long lookup = metrics.start();
+            RedirectTarget target = store.findRedirect(shortCode);
+            metrics.recordStore(HotPathMetrics.StoreCall.FIND_REDIRECT, lookup);
+            if (target == null) {
+                return ApiError.SHORT_CODE_NOT_FOUND.response();
+            }
+            cached = redirectPolicy.cacheEntry(target);
+            redirectCache.put(shortCode, cached);
+        } else if (!cached.isRendered() && redirectPolicy.prerenders()) {
+            cached = redirectPolicy.cacheEntry(cached.target());
+            redirectCache.refresh(shortCode, cached);
+        }
+        if (cached.target().isExpired()) {
+            return ApiError.SHORT_CODE_EXPIRED.response();
+        }
+        return redirectPolicy.respond(cached, ifNoneMatch);
+    }
+
+    @Override
+    public List<UserMetricsResponse> userMetrics(int page, int size) {
+        return userUrlCounters.page(page, size);
+    }
+
+    @Override
+    public List<UserMetricsResponse> topUsers(int limit) {
+        return userUrlCounters.top(limit);
+    }
+
+    private Map<String, List<UrlMapping>> findExisting(List<String> longUrls) {
+        if (longUrls.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, Long> hashes = new HashMap<>();
+        longUrls.forEach(url -> hashes.computeIfAbsent(url, UrlHashing::longUrlHash));
+        long start = metrics.start();
+        Map<String, List<UrlMapping>> existing = store.findByLongUrls(hashes);
+        metrics.recordStore(HotPathMetrics.StoreCall.FIND_BY_LONG_URLS, start);
+        return existing;
+    }
+
+    private Set<String> findTakenAliases(List<String> aliases) {
+        List<String> suspects = aliases.stream().filter(shortCodeFilter::mightExist).distinct().toList();
+        if (suspects.isEmpty()) {
+            return new HashSet<>();
         }
-        throw new IllegalStateException("Failed to generate unique short code");
+        long start = metrics.start();
+        Set<String> taken = store.findExistingShortCodes(suspects);
+        metrics.recordStore(HotPathMetrics.StoreCall.FIND_EXISTING_SHORT_CODES, start);
+        return taken;
+    }
+
+    private boolean exists(String shortCode) {
+        long start = metrics.start();
+        boolean exists = store.exists(shortCode);
+        metrics.recordStore(HotPathMetrics.StoreCall.EXISTS, start);
+        return exists;
+    }
+
+    private boolean putIfAbsent(UrlMapping mapping) {
+        long start = metrics.start();
+        boolean inserted = store.putIfAbsent(mapping);
+        metrics.recordStore(HotPathMetrics.StoreCall.PUT_IF_ABSENT, start);
+        return inserted;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String normalizeUserId(String userUuid) {
+        return (userUuid == null || userUuid.isBlank()) ? null : userUuid.trim();
+    }
+
+    private static String normalizeAlias(String customAlias) {
+        return (customAlias == null || customAlias.isBlank()) ? null : customAlias.trim();
+    }
+
+    private UrlMapping firstReusable(List<UrlMapping> candidates, ShortenItem item, LocalDateTime createdAt) {
+        if (candidates != null) {
+            for (UrlMapping candidate : candidates) {
+                if (isReusable(candidate, item.redirectStatus, item.request.ttl(), createdAt, item.expiresAt)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    // An existing link is shared if it redirects the same way and its expiry suits the request
+    // (see ExpiryPolicy.allowsReuse); the response then carries the existing link's own expiry.
+    private boolean isReusable(UrlMapping existing, Integer redirectStatus, Duration ttl, LocalDateTime createdAt,
+                               LocalDateTime expiresAt) {
+        return Objects.equals(existing.getRedirectStatus(), redirectStatus)
+                && expiryPolicy.allowsReuse(existing.getExpiresAt(), ttl, expiresAt, createdAt);
+    }
+
+    private static Integer validateRedirectStatus(Integer redirectStatus) {
+        if (!RedirectPolicy.isSupportedStatus(redirectStatus)) {
+            throw InvalidUrlException.of(ApiError.REDIRECT_STATUS_INVALID);
+        }
+        return redirectStatus;
     }
 
     private static void validateAlias(String alias) {
-        if (!alias.matches("^[a-zA-Z0-9_-]{1,32}$")) {
-            throw new InvalidUrlException("Alias contains invalid characters");
+        if (!UrlValidator.isValidAlias(alias)) {
+            throw InvalidUrlException.of(ApiError.ALIAS_INVALID);
         }
     }
 
-    private static String normalizeUrl(String url) {
+    // The candidate always carries an http(s) prefix, so only the host needs checking.
+    static String normalizeUrl(String url) {
         if (url == null || url.isBlank()) {
-            throw new InvalidUrlException("URL cannot be empty");
+            throw InvalidUrlException.of(ApiError.URL_EMPTY);
         }
         String trimmed = url.trim();
         String candidate = (trimmed.startsWith("http://") || trimmed.startsWith("https://")) ? trimmed : ("https://" + trimmed);
-        try {
-            URI uri = new URI(candidate);
-            if (uri.getScheme() == null || uri.getHost() == null) {
-                throw new InvalidUrlException("Invalid URL format");
-            }
-            String scheme = uri.getScheme().toLowerCase();
-            if (!scheme.equals("http") && !scheme.equals("https")) {
-                throw new InvalidUrlException("Only HTTP/HTTPS URLs are allowed");
-            }
-            return candidate;
-        } catch (URISyntaxException _) {
-            throw new InvalidUrlException("Invalid URL format");
+        if (UrlValidator.host(candidate) == null) {
+            throw InvalidUrlException.of(ApiError.URL_INVALID);
         }
+        return candidate;
     }
 
-    private static boolean isOwnShortUrl(String url, String baseUrl) {
-        try {
-            URI uri = new URI(url);
-            String host = uri.getHost();
-            if (host == null) return false;
+    static boolean isOwnShortUrl(String url, String baseUrl) {
+        String host = UrlValidator.host(url);
+        if (host == null) return false;
 
-            URI base = new URI(baseUrl);
-            String baseHost = base.getHost();
-            if (baseHost == null) return false;
+        String baseHost = UrlValidator.host(baseUrl);
+        if (baseHost == null) return false;
 
-            String normalizedHost = host.toLowerCase().replace("www.", "");
-            String normalizedBase = baseHost.toLowerCase().replace("www.", "");
-            return normalizedHost.equals(normalizedBase) || normalizedHost.endsWith("." + normalizedBase);
-        } catch (URISyntaxException _) {
-            return false;
-        }
+        String normalizedHost = host.toLowerCase().replace("www.", "");
+        String normalizedBase = baseHost.toLowerCase().replace("www.", "");
+        return normalizedHost.equals(normalizedBase) || normalizedHost.endsWith("." + normalizedBase);
     }
 
     private static String buildShortUrl(String baseUrl, String shortCode) {
@@ -0,0 +1,151 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user URL counts kept in memory so {@code /api/v1/metrics/users} never runs the
+ * {@code GROUP BY user_id} query on the request path. Rebuilt from one aggregate scan of the
+ * store before the web server starts, incremented after each committed save and
+ * periodically written to {@code user_url_counts} for external readers.
+ */
+@Component
+public class UserUrlCounters implements SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserUrlCounters.class);
+
+    private static final String UPSERT = """
+            MERGE INTO user_url_counts t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS TIMESTAMP))) AS s(user_id, url_count, updated_at)
+            ON t.user_id = s.user_id
+            WHEN MATCHED THEN UPDATE SET url_count = s.url_count, updated_at = s.updated_at
+            WHEN NOT MATCHED THEN INSERT (user_id, url_count, updated_at) VALUES (s.user_id, s.url_count, s.updated_at)
+            """;
+
+    private final UrlStore store;
+    private final JdbcTemplate jdbcTemplate;
+    private final long persistIntervalMillis;
+    // Sorted by user id so pages are stable without sorting per request.
+    private final ConcurrentSkipListMap<String, LongAdder> counts = new ConcurrentSkipListMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService persister = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-counters-persist").daemon().factory());
+
+    public UserUrlCounters(
+            UrlStore store,
+            JdbcTemplate jdbcTemplate,
+            @Value("${metrics.users.persist-interval:30s}") Duration persistInterval) {
+        this.store = store;
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistIntervalMillis = persistInterval.toMillis();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        store.countByUser().forEach((userId, count) -> adder(userId).add(count));
+        dirty.addAll(counts.keySet());
+        persister.scheduleWithFixedDelay(this::persist, persistIntervalMillis, persistIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persister.shutdownNow();
+        persist();
+    }
+
+    public void increment(String userId) {
+        add(userId, 1);
+    }
+
+    public void add(String userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        adder(userId).add(delta);
+        dirty.add(userId);
+    }
+
+    public List<UserMetricsResponse> page(int page, int size) {
+        List<UserMetricsResponse> result = new ArrayList<>(size);
+        long skip = (long) page * size;
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            if (result.size() == size) {
+                break;
+            }
+            result.add(new UserMetricsResponse(entry.getKey(), entry.getValue().sum()));
+        }
+        return result;
+    }
+
+    public List<UserMetricsResponse> top(int limit) {
+        Comparator<UserMetricsResponse> byCount = Comparator.comparingLong(UserMetricsResponse::count);
+        PriorityQueue<UserMetricsResponse> heap = new PriorityQueue<>(limit + 1, byCount);
+        counts.forEach((userId, adder) -> {
+            heap.add(new UserMetricsResponse(userId, adder.sum()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        });
+        List<UserMetricsResponse> result = new ArrayList<>(heap);
+        result.sort(byCount.reversed());
+        return result;
+    }
+
+    private LongAdder adder(String userId) {
+        return counts.computeIfAbsent(userId, _ -> new LongAdder());
+    }
+
+    private void persist() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>();
+        for (String userId : dirty) {
+            dirty.remove(userId);
+            rows.add(new Object[]{userId, counts.get(userId).sum(), now});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        } catch (RuntimeException ex) {
+            rows.forEach(row -> dirty.add((String) row[0]));
+            log.warn("Failed to persist {} user URL counters; will retry", rows.size(), ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("metrics.users.tracked", counts, Map::size)
+                .description("Users with an in-memory URL counter")
+                .register(registry);
+    }
+}
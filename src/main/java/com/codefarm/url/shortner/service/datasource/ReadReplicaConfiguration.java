@@ -0,0 +1,71 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary/replica split, active when {@code datasource.replicas.urls} is set. The application's
+ * {@link DataSource} becomes a lazy proxy over a routing data source:
+ * {@code spring.datasource.*} is the primary, and each replica URL gets its own Hikari pool
+ * (named {@code replica-1}, {@code replica-2}, ...). Every pool publishes the Hikari meters,
+ * including {@code hikaricp.connections.acquire} (connection wait) and
+ * {@code hikaricp.connections.usage} (time a connection is held), tagged by pool.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    ReplicaPool replicaDataSource(
+            DataSourceProperties properties,
+            HikariDataSource primaryDataSource,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.selection:ROUND_ROBIN}") ReplicaSelection selection,
+            @Value("${datasource.replicas.max-pool-size:10}") int maxPoolSize,
+            @Value("${datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${datasource.replicas.health-check-interval:5s}") Duration healthCheckInterval) {
+        List<HikariDataSource> pools = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setJdbcUrl(urls.get(i).trim());
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+            pool.setMaximumPoolSize(maxPoolSize);
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            pool.setReadOnly(true);
+            // Start even if a replica is down; the health check ejects it.
+            pool.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(pool::setMetricRegistry);
+            pools.add(pool);
+        }
+        return new ReplicaPool(pools, primaryDataSource, selection, healthCheckInterval);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new RoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
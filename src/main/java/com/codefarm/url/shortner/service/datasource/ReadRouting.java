@@ -0,0 +1,32 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks reads that run outside a transaction as safe for a replica. Code inside
+ * {@code @Transactional(readOnly = true)} is routed to replicas without this; the redirect lookup
+ * deliberately runs without a transaction and opts in here instead.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static <T> T replica(Supplier<T> read) {
+        if (REPLICA.get() != null) {
+            return read.get();
+        }
+        REPLICA.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REPLICA.remove();
+        }
+    }
+
+    static boolean isReplicaScope() {
+        return REPLICA.get() != null;
+    }
+}
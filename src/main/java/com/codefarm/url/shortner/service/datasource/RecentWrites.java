@@ -0,0 +1,39 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-your-writes window: short codes written in the last {@code datasource.read-your-writes.window}
+ * are read from the primary, since a lagging replica may not have them yet. Inactive unless
+ * replicas are configured.
+ */
+@Component
+public class RecentWrites {
+
+    private final Cache<String, Boolean> codes;
+
+    public RecentWrites(
+            @Value("${datasource.replicas.urls:}") List<String> replicaUrls,
+            @Value("${datasource.read-your-writes.window:5s}") Duration window,
+            @Value("${datasource.read-your-writes.max-size:100000}") long maxSize) {
+        this.codes = replicaUrls.isEmpty() || window.isZero()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maxSize).build();
+    }
+
+    public void record(String shortCode) {
+        if (codes != null) {
+            codes.put(shortCode, Boolean.TRUE);
+        }
+    }
+
+    public boolean contains(String shortCode) {
+        return codes != null && codes.getIfPresent(shortCode) != null;
+    }
+}
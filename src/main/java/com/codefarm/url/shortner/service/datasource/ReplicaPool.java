@@ -0,0 +1,179 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of read-replica pools behind one {@link DataSource}. Each connection request goes to a
+ * healthy replica picked round-robin or by fewest active connections. A replica whose
+ * {@code getConnection} fails is ejected at once. A background check every
+ * {@code datasource.replicas.health-check-interval} readmits replicas that answer again, and
+ * ejects ones that stop answering. With no healthy replica, reads fall back to the primary.
+ */
+class ReplicaPool extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final List<Replica> replicas;
+    private final DataSource fallback;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-health").daemon().factory());
+
+    ReplicaPool(List<HikariDataSource> replicas, DataSource fallback, ReplicaSelection selection, Duration healthCheckInterval) {
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.fallback = fallback;
+        this.selection = selection;
+        long interval = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = select();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.selections.increment();
+                return connection;
+            } catch (SQLException ex) {
+                replica.eject(ex);
+            }
+        }
+        fallbacks.increment();
+        return fallback.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica pools use their configured credentials");
+    }
+
+    private Replica select() {
+        return switch (selection) {
+            case ROUND_ROBIN -> roundRobin();
+            case LEAST_CONNECTIONS -> leastConnections();
+        };
+    }
+
+    private Replica roundRobin() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica leastConnections() {
+        Replica best = null;
+        int fewest = Integer.MAX_VALUE;
+        for (Replica replica : replicas) {
+            int active = replica.activeConnections();
+            if (replica.healthy && active < fewest) {
+                best = replica;
+                fewest = active;
+            }
+        }
+        return best;
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    replica.readmit();
+                } else {
+                    replica.eject(null);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                replica.eject(ex);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            String pool = replica.dataSource.getPoolName();
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", pool)
+                    .register(registry);
+            FunctionCounter.builder("datasource.replica.selections", replica.selections, LongAdder::sum)
+                    .tag("pool", pool)
+                    .register(registry);
+            FunctionCounter.builder("datasource.replica.ejections", replica.ejections, LongAdder::sum)
+                    .tag("pool", pool)
+                    .register(registry);
+        }
+        FunctionCounter.builder("datasource.replica.fallbacks", fallbacks, LongAdder::sum)
+                .description("Read connections served by the primary because no replica was healthy")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(r -> r.dataSource.close());
+    }
+
+    private static final class Replica {
+
+        final HikariDataSource dataSource;
+        final LongAdder selections = new LongAdder();
+        final LongAdder ejections = new LongAdder();
+        volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        void eject(Exception cause) {
+            if (healthy) {
+                healthy = false;
+                ejections.increment();
+                log.warn("Ejected read replica {}", dataSource.getPoolName(), cause);
+            }
+        }
+
+        void readmit() {
+            if (!healthy) {
+                healthy = true;
+                log.info("Readmitted read replica {}", dataSource.getPoolName());
+            }
+        }
+    }
+}
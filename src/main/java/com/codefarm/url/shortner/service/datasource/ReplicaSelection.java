@@ -0,0 +1,6 @@
+package com.codefarm.url.shortner.service.datasource;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    LEAST_CONNECTIONS
+}
@@ -0,0 +1,30 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions and {@link ReadRouting#replica} scopes to the replica pool and
+ * everything else to the primary. Must sit behind a {@code LazyConnectionDataSourceProxy}: the
+ * transaction's read-only flag is only set after the transaction manager asks for a connection.
+ */
+class RoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    RoutingDataSource(DataSource primary, DataSource replicas) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replicas));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReadRouting.isReplicaScope() || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
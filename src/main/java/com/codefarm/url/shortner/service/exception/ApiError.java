@@ -0,0 +1,43 @@
+package com.codefarm.url.shortner.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Every error the API returns, with its {@code {"error": ...}} JSON body serialized once. The
+ * response entities are immutable and shared, so error paths allocate nothing per request.
+ */
+public enum ApiError {
+
+    URL_EMPTY(HttpStatus.BAD_REQUEST, "URL cannot be empty"),
+    URL_INVALID(HttpStatus.BAD_REQUEST, "Invalid URL format"),
+    URL_SELF_REFERENCE(HttpStatus.BAD_REQUEST, "Cannot shorten a URL from this service. Provide the original long URL."),
+    ALIAS_INVALID(HttpStatus.BAD_REQUEST, "Alias contains invalid characters"),
+    ALIAS_TAKEN(HttpStatus.CONFLICT, "Alias already in use"),
+    REDIRECT_STATUS_INVALID(HttpStatus.BAD_REQUEST, "Redirect status must be 301, 302, 307 or 308"),
+    TTL_INVALID(HttpStatus.BAD_REQUEST, "TTL must be positive and no longer than the allowed maximum"),
+    SHORT_CODE_NOT_FOUND(HttpStatus.NOT_FOUND, "Short code not found"),
+    SHORT_CODE_EXPIRED(HttpStatus.GONE, "Short URL has expired"),
+    RATE_LIMITED(HttpStatus.TOO_MANY_REQUESTS, "Too many requests; retry after the time in Retry-After");
+
+    private final String message;
+    private final ResponseEntity<byte[]> response;
+
+    // Messages are plain ASCII without quotes or backslashes, so no JSON escaping is needed.
+    ApiError(HttpStatus status, String message) {
+        this.message = message;
+        byte[] body = ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        this.response = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public ResponseEntity<byte[]> response() {
+        return response;
+    }
+}
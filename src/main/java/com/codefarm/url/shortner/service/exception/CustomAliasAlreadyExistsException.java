@@ -1,9 +1,11 @@
 package com.codefarm.url.shortner.service.exception;
 
+/** Stackless singleton; see {@link InvalidUrlException}. */
 public class CustomAliasAlreadyExistsException extends RuntimeException {
-    public CustomAliasAlreadyExistsException(String message) {
-        super(message);
-    }
-}
 
+    public static final CustomAliasAlreadyExistsException INSTANCE = new CustomAliasAlreadyExistsException();
 
+    private CustomAliasAlreadyExistsException() {
+        super(ApiError.ALIAS_TAKEN.message(), null, false, false);
+    }
+}
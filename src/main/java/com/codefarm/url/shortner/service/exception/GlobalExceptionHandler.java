@@ -1,32 +1,19 @@
 package com.codefarm.url.shortner.service.exception;
 
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.util.Map;
-
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(InvalidUrlException.class)
-    public ResponseEntity<Map<String, Object>> handleInvalidUrl(InvalidUrlException ex) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(Map.of("error", ex.getMessage()));
+    public ResponseEntity<byte[]> handleInvalidUrl(InvalidUrlException ex) {
+        return ex.error().response();
     }
 
     @ExceptionHandler(CustomAliasAlreadyExistsException.class)
-    public ResponseEntity<Map<String, Object>> handleAliasExists(CustomAliasAlreadyExistsException ex) {
-        return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body(Map.of("error", ex.getMessage()));
-    }
-
-    @ExceptionHandler(UrlNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleNotFound(UrlNotFoundException ex) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(Map.of("error", ex.getMessage()));
+    public ResponseEntity<byte[]> handleAliasExists(CustomAliasAlreadyExistsException ex) {
+        return ApiError.ALIAS_TAKEN.response();
     }
 }
-
-
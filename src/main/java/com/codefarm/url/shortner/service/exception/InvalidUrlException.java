@@ -1,9 +1,34 @@
 package com.codefarm.url.shortner.service.exception;
 
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Stackless and preallocated per {@link ApiError}: bad input is common, so rejecting it must not
+ * pay for a stack trace.
+ */
 public class InvalidUrlException extends RuntimeException {
-    public InvalidUrlException(String message) {
-        super(message);
+
+    private static final Map<ApiError, InvalidUrlException> INSTANCES = new EnumMap<>(ApiError.class);
+
+    static {
+        for (ApiError error : ApiError.values()) {
+            INSTANCES.put(error, new InvalidUrlException(error));
+        }
     }
-}
 
+    private final transient ApiError error;
+
+    private InvalidUrlException(ApiError error) {
+        super(error.message(), null, false, false);
+        this.error = error;
+    }
+
+    public static InvalidUrlException of(ApiError error) {
+        return INSTANCES.get(error);
+    }
 
+    public ApiError error() {
+        return error;
+    }
+}
@@ -1,9 +0,0 @@
-package com.codefarm.url.shortner.service.exception;
-
-public class UrlNotFoundException extends RuntimeException {
-    public UrlNotFoundException(String message) {
-        super(message);
-    }
-}
-
-
@@ -0,0 +1,249 @@
+package com.codefarm.url.shortner.service.fastpath;
+
+import com.codefarm.url.shortner.service.analytics.ClickRecorder;
+import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import com.codefarm.url.shortner.service.exception.ApiError;
+import com.codefarm.url.shortner.service.util.UrlValidator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Answers {@code GET|HEAD /{shortCode}} on the fast-path listener. Codes answered from memory
+ * (redirect cache, Bloom filter, gone markers) are written straight from the event loop. A miss
+ * turns off reading on the connection, looks the code up on a virtual thread, writes the answer
+ * back on the event loop and turns reading on again, so pipelined requests are answered in order.
+ * <p>
+ * Error responses are the {@link ApiError} bodies copied once into direct buffers and shared by
+ * every connection; a redirect is headers only. A redirect answered from the off-heap arena is
+ * written by the service into a per-event-loop scratch array and copied from there into a pooled
+ * buffer, so it allocates no objects; {@link ResponseEncoder} passes such raw buffers through.
+ * Writes are flushed once per socket read.
+ */
+@ChannelHandler.Sharable
+final class FastRedirectHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+    private static final Logger log = LoggerFactory.getLogger(FastRedirectHandler.class);
+
+    private static final Map<ResponseEntity<?>, FullHttpResponse> ERRORS = new IdentityHashMap<>();
+    private static final FullHttpResponse BAD_REQUEST = empty(HttpResponseStatus.BAD_REQUEST);
+    private static final FullHttpResponse METHOD_NOT_ALLOWED = empty(HttpResponseStatus.METHOD_NOT_ALLOWED);
+    private static final FullHttpResponse INTERNAL_ERROR = empty(HttpResponseStatus.INTERNAL_SERVER_ERROR);
+    private static final byte[] CONNECTION_CLOSE = "connection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_KEEP_ALIVE = "connection: keep-alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_OF_HEAD = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int SCRATCH_BYTES = 8192;
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SCRATCH_BYTES];
+        }
+    };
+
+    static {
+        for (ApiError error : ApiError.values()) {
+            ResponseEntity<byte[]> entity = error.response();
+            byte[] body = entity.getBody();
+            ByteBuf content = Unpooled.unreleasableBuffer(Unpooled.directBuffer(body.length).writeBytes(body).asReadOnly());
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.valueOf(entity.getStatusCode().value()), content);
+            response.headers()
+                    .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                    .setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+            ERRORS.put(entity, response);
+        }
+        METHOD_NOT_ALLOWED.headers().set(HttpHeaderNames.ALLOW, "GET, HEAD");
+    }
+
+    private final UrlShortenerService service;
+    private final ClickRecorder clickRecorder;
+    private final Executor lookups;
+
+    FastRedirectHandler(UrlShortenerService service, ClickRecorder clickRecorder, Executor lookups) {
+        this.service = service;
+        this.clickRecorder = clickRecorder;
+        this.lookups = lookups;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject message) {
+        // Request bodies (HttpContent) are ignored and released by the superclass
+        if (!(message instanceof HttpRequest request)) {
+            return;
+        }
+        if (!request.decoderResult().isSuccess()) {
+            write(ctx, request, BAD_REQUEST.retainedDuplicate(), false);
+            return;
+        }
+        boolean head = HttpMethod.HEAD.equals(request.method());
+        if (!head && !HttpMethod.GET.equals(request.method())) {
+            write(ctx, request, METHOD_NOT_ALLOWED.retainedDuplicate(), HttpUtil.isKeepAlive(request));
+            return;
+        }
+        String shortCode = shortCode(request.uri());
+        if (shortCode == null) {
+            write(ctx, request, error(ApiError.SHORT_CODE_NOT_FOUND.response(), head), HttpUtil.isKeepAlive(request));
+            return;
+        }
+        String ifNoneMatch = request.headers().get(HttpHeaderNames.IF_NONE_MATCH);
+        byte[] scratch = SCRATCH.get();
+        int headLength = service.redirectHeadIfOffHeap(shortCode, ifNoneMatch, scratch);
+        if (headLength >= 0) {
+            recordClick(request, shortCode);
+            writeHead(ctx, request, scratch, headLength);
+            return;
+        }
+        ResponseEntity<?> response = service.redirectIfCached(shortCode, ifNoneMatch);
+        if (response != null) {
+            respond(ctx, request, shortCode, response, head);
+            return;
+        }
+
+        ctx.channel().config().setAutoRead(false);
+        lookups.execute(() -> {
+            ResponseEntity<?> found;
+            try {
+                found = service.redirect(shortCode, ifNoneMatch);
+            } catch (RuntimeException ex) {
+                log.error("Fast-path lookup of {} failed", shortCode, ex);
+                found = null;
+            }
+            ResponseEntity<?> result = found;
+            ctx.executor().execute(() -> {
+                if (result == null) {
+                    write(ctx, request, INTERNAL_ERROR.retainedDuplicate(), false);
+                } else {
+                    respond(ctx, request, shortCode, result, head);
+                }
+                ctx.flush();
+                ctx.channel().config().setAutoRead(true);
+            });
+        });
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.debug("Fast-path connection failed", cause);
+        ctx.close();
+    }
+
+    // "/{shortCode}" with an optional query. Anything else, including absolute-form request
+    // targets and codes the service could never have issued, is answered 404 without a lookup.
+    static String shortCode(String uri) {
+        if (uri.length() < 2 || uri.charAt(0) != '/') {
+            return null;
+        }
+        int end = uri.length();
+        for (int i = 1; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        String shortCode = uri.substring(1, end);
+        return UrlValidator.isValidAlias(shortCode) ? shortCode : null;
+    }
+
+    private void respond(ChannelHandlerContext ctx, HttpRequest request, String shortCode,
+                         ResponseEntity<?> response, boolean head) {
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        if (ERRORS.containsKey(response)) {
+            write(ctx, request, error(response, head), keepAlive);
+            return;
+        }
+        // A 304 is a cache revalidating, not a visitor following the link.
+        if (response.getStatusCode().is3xxRedirection() && response.getStatusCode() != HttpStatus.NOT_MODIFIED) {
+            recordClick(request, shortCode);
+        }
+        write(ctx, request, headersOnly(response), keepAlive);
+    }
+
+    private void recordClick(HttpRequest request, String shortCode) {
+        clickRecorder.record(shortCode, request.headers().get(HttpHeaderNames.REFERER),
+                request.headers().get(HttpHeaderNames.USER_AGENT));
+    }
+
+    // The Connection header HttpUtil.setKeepAlive would set, then the blank line. HEAD gets the same bytes.
+    private static void writeHead(ChannelHandlerContext ctx, HttpRequest request, byte[] head, int length) {
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        boolean http10 = request.protocolVersion().equals(HttpVersion.HTTP_1_0);
+        byte[] end = !keepAlive && !http10 ? CONNECTION_CLOSE : keepAlive && http10 ? CONNECTION_KEEP_ALIVE : END_OF_HEAD;
+        ByteBuf response = ctx.alloc().directBuffer(length + end.length).writeBytes(head, 0, length).writeBytes(end);
+        if (keepAlive) {
+            ctx.write(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static void write(ChannelHandlerContext ctx, HttpRequest request, FullHttpResponse response, boolean keepAlive) {
+        HttpUtil.setKeepAlive(response.headers(), request.protocolVersion(), keepAlive);
+        if (keepAlive) {
+            ctx.write(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    // HEAD gets the same headers, including Content-Length, without the body.
+    private static FullHttpResponse error(ResponseEntity<?> response, boolean head) {
+        FullHttpResponse template = ERRORS.get(response);
+        return head ? template.replace(Unpooled.EMPTY_BUFFER) : template.retainedDuplicate();
+    }
+
+    private static FullHttpResponse headersOnly(ResponseEntity<?> entity) {
+        int status = entity.getStatusCode().value();
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.valueOf(status), Unpooled.EMPTY_BUFFER);
+        entity.getHeaders().forEach((name, values) -> response.headers().add(name, values));
+        if (status != HttpStatus.NOT_MODIFIED.value()) {
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+        }
+        return response;
+    }
+
+    private static FullHttpResponse empty(HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+        return response;
+    }
+
+    /** An {@link HttpResponseEncoder} that lets the raw response buffers of {@link #writeHead} through. */
+    static final class ResponseEncoder extends HttpResponseEncoder {
+        @Override
+        public boolean acceptOutboundMessage(Object msg) throws Exception {
+            return !(msg instanceof ByteBuf) && super.acceptOutboundMessage(msg);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.codefarm.url.shortner.service.fastpath;
+
+import com.codefarm.url.shortner.service.analytics.ClickRecorder;
+import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.flow.FlowControlHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional second listener for redirects only ({@code redirect.fast-path.enabled}), on
+ * {@code redirect.fast-path.port}. A plain Netty HTTP/1.1 pipeline on {@code redirect.fast-path.threads}
+ * event loops (0 = one per core), without the servlet container, filter chain and MVC dispatch.
+ * It answers exactly what {@code GET /{shortCode}} on the main port answers, through the same
+ * {@link UrlShortenerService} lookup, and records clicks the same way; every other path is a 404
+ * and every other method a 405.
+ * <p>
+ * The listener starts once the application is ready, so the Bloom filter and cache warm-up have
+ * run before it takes traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "redirect.fast-path.enabled", havingValue = "true")
+public class FastRedirectServer {
+
+    private static final Logger log = LoggerFactory.getLogger(FastRedirectServer.class);
+
+    private final UrlShortenerService service;
+    private final ClickRecorder clickRecorder;
+    private final int port;
+    private final int threads;
+
+    // Store lookups of cache misses; they block, so they must not run on an event loop
+    private final ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor();
+    private EventLoopGroup eventLoops;
+    private Channel serverChannel;
+
+    public FastRedirectServer(
+            UrlShortenerService service,
+            ClickRecorder clickRecorder,
+            @Value("${redirect.fast-path.port:8090}") int port,
+            @Value("${redirect.fast-path.threads:0}") int threads) {
+        this.service = service;
+        this.clickRecorder = clickRecorder;
+        this.port = port;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws InterruptedException {
+        eventLoops = new NioEventLoopGroup(threads, new DefaultThreadFactory("fast-redirect", true));
+        FastRedirectHandler handler = new FastRedirectHandler(service, clickRecorder, lookups);
+        serverChannel = new ServerBootstrap()
+                .group(eventLoops)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        // FlowControlHandler holds pipelined requests back while a miss is looked up
+                        channel.pipeline().addLast(new HttpRequestDecoder(4096, 8192, 8192),
+                                new FastRedirectHandler.ResponseEncoder(), new FlowControlHandler(), handler);
+                    }
+                })
+                .bind(port)
+                .sync()
+                .channel();
+        log.info("Fast-path redirect listener on port {} with {} event loops", port, threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        if (eventLoops != null) {
+            eventLoops.shutdownGracefully().syncUninterruptibly();
+        }
+        lookups.shutdown();
+    }
+}
@@ -0,0 +1,16 @@
+package com.codefarm.url.shortner.service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the redirect path needs from a mapping: where to send the client, the mapping's own
+ * redirect status ({@code null} means the configured default), whether the code is a custom
+ * alias and when it expires ({@code null} for never).
+ */
+public record RedirectTarget(String longUrl, Integer redirectStatus, boolean custom, LocalDateTime expiresAt) {
+
+    /** Reads the clock only for mappings that can expire. */
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
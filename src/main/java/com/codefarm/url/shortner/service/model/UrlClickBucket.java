@@ -0,0 +1,77 @@
+package com.codefarm.url.shortner.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Click counts per short code, dimension ({@code referrer} or {@code user_agent}) and bucket.
+ */
+@Entity
+@Table(name = "url_click_buckets")
+@IdClass(UrlClickBucket.Key.class)
+public class UrlClickBucket {
+
+    public static final String REFERRER = "referrer";
+    public static final String USER_AGENT = "user_agent";
+
+    @Id
+    @Column(name = "short_code", nullable = false, length = 32)
+    private String shortCode;
+
+    @Id
+    @Column(name = "dimension", nullable = false, length = 16)
+    private String dimension;
+
+    @Id
+    @Column(name = "bucket", nullable = false, length = 255)
+    private String bucket;
+
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+
+    protected UrlClickBucket() {
+        // JPA only
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public static class Key implements Serializable {
+        private String shortCode;
+        private String dimension;
+        private String bucket;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(shortCode, key.shortCode)
+                    && Objects.equals(dimension, key.dimension)
+                    && Objects.equals(bucket, key.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shortCode, dimension, bucket);
+        }
+    }
+}
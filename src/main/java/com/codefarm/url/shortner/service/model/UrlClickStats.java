@@ -0,0 +1,50 @@
+package com.codefarm.url.shortner.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-short-code click totals. Written only by the analytics flusher through batched MERGE
+ * upserts; mapped here for schema generation and reads.
+ */
+@Entity
+@Table(name = "url_clicks")
+public class UrlClickStats {
+
+    @Id
+    @Column(name = "short_code", nullable = false, length = 32)
+    private String shortCode;
+
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+
+    @Column(name = "first_click_at", nullable = false)
+    private LocalDateTime firstClickAt;
+
+    @Column(name = "last_click_at", nullable = false)
+    private LocalDateTime lastClickAt;
+
+    protected UrlClickStats() {
+        // JPA only
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public LocalDateTime getFirstClickAt() {
+        return firstClickAt;
+    }
+
+    public LocalDateTime getLastClickAt() {
+        return lastClickAt;
+    }
+}
@@ -1,15 +1,25 @@
 package com.codefarm.url.shortner.service.model;
 
+import com.codefarm.url.shortner.service.util.UrlHashing;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "url_mappings")
-public class UrlMapping {
+@Table(name = "url_mappings", indexes = {
+        @Index(name = "idx_url_mappings_long_url_hash", columnList = "long_url_hash"),
+        @Index(name = "idx_url_mappings_user_id", columnList = "user_id"),
+        @Index(name = "idx_url_mappings_expires_at", columnList = "expires_at")
+})
+public class UrlMapping implements Persistable<String> {
 
     @Id
     @Column(name = "short_code", nullable = false, length = 16)
@@ -18,6 +28,10 @@ public class UrlMapping {
     @Column(name = "long_url", nullable = false, length = 2048)
     private String longUrl;
 
+    // Nullable only so rows created before the column existed can be backfilled.
+    @Column(name = "long_url_hash")
+    private Long longUrlHash;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -27,6 +41,19 @@ public class UrlMapping {
     @Column(name = "user_id")
     private String userId;
 
+    // 301, 302, 307 or 308; null follows redirect.status.
+    @Column(name = "redirect_status")
+    private Integer redirectStatus;
+
+    // Null for links that never expire; expired rows are deleted by ExpirySweeper.
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Short codes are assigned, not generated, so Spring Data cannot tell new rows apart by a
+    // null id. Without this, save() merges (SELECT then INSERT) and inserts cannot be batched.
+    @Transient
+    private boolean isNew = true;
+
     protected UrlMapping() {
         // JPA only
     }
@@ -34,16 +61,46 @@ public class UrlMapping {
     public UrlMapping(String shortCode, String longUrl, LocalDateTime createdAt, boolean custom) {
         this.shortCode = shortCode;
         this.longUrl = longUrl;
+        this.longUrlHash = UrlHashing.longUrlHash(longUrl);
         this.createdAt = createdAt;
         this.custom = custom;
     }
 
     public UrlMapping(String shortCode, String longUrl, LocalDateTime createdAt, boolean custom, String userId) {
+        this(shortCode, longUrl, createdAt, custom, userId, null);
+    }
+
+    public UrlMapping(String shortCode, String longUrl, LocalDateTime createdAt, boolean custom, String userId,
+                      Integer redirectStatus) {
+        this(shortCode, longUrl, createdAt, custom, userId, redirectStatus, null);
+    }
+
+    public UrlMapping(String shortCode, String longUrl, LocalDateTime createdAt, boolean custom, String userId,
+                      Integer redirectStatus, LocalDateTime expiresAt) {
         this.shortCode = shortCode;
         this.longUrl = longUrl;
+        this.longUrlHash = UrlHashing.longUrlHash(longUrl);
         this.createdAt = createdAt;
         this.custom = custom;
         this.userId = userId;
+        this.redirectStatus = redirectStatus;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return shortCode;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
     }
 
     public String getShortCode() {
@@ -54,6 +111,16 @@ public class UrlMapping {
         return longUrl;
     }
 
+    public Long getLongUrlHash() {
+        return longUrlHash;
+    }
+
+    public void backfillLongUrlHash() {
+        if (longUrlHash == null) {
+            longUrlHash = UrlHashing.longUrlHash(longUrl);
+        }
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -65,6 +132,18 @@ public class UrlMapping {
     public String getUserId() {
         return userId;
     }
+
+    public Integer getRedirectStatus() {
+        return redirectStatus;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public RedirectTarget redirectTarget() {
+        return new RedirectTarget(longUrl, redirectStatus, custom, expiresAt);
+    }
 }
 
 
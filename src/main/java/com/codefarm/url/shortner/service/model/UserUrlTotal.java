@@ -0,0 +1,43 @@
+package com.codefarm.url.shortner.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted snapshot of the in-memory per-user URL counters; written periodically by
+ * {@code UserUrlCounters}.
+ */
+@Entity
+@Table(name = "user_url_counts")
+public class UserUrlTotal {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "url_count", nullable = false)
+    private long urlCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected UserUrlTotal() {
+        // JPA only
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getUrlCount() {
+        return urlCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import com.codefarm.url.shortner.service.exception.ApiError;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the write endpoints ({@code POST /api/v1/shorten}, {@code /api/v1/shorten/batch}
+ * and the form's {@code POST /shorten}). Runs before the dispatcher servlet, so a rejected request
+ * never reaches a controller, the ID generator or the database: it gets 429 with
+ * {@code Retry-After} and the shared error body. Batch requests cost {@code ratelimit.batch-cost}
+ * tokens. The client IP is {@code getRemoteAddr()}; behind a proxy, set
+ * {@code server.forward-headers-strategy} so it is the original client's.
+ *
+ * <p>Paths are matched the way the dispatcher will resolve them: decoded, with {@code ;params}
+ * and duplicate slashes removed, so {@code /api/v1/shorten;x=y} is still limited.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_SHORTEN = "/api/v1/shorten";
+    private static final String API_BATCH = "/api/v1/shorten/batch";
+    private static final String FORM_SHORTEN = "/shorten";
+
+    private final RateLimiter limiter;
+    private final boolean enabled;
+    private final int batchCost;
+
+    public RateLimitFilter(
+            RateLimiter limiter,
+            @Value("${ratelimit.enabled:true}") boolean enabled,
+            @Value("${ratelimit.batch-cost:10}") int batchCost) {
+        this.limiter = limiter;
+        this.enabled = enabled;
+        this.batchCost = batchCost;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return !path.equals(API_SHORTEN) && !path.equals(API_BATCH) && !path.equals(FORM_SHORTEN);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = path(request);
+        // The form sends the user id as a field; a urlencoded body is small and parsed once anyway.
+        String userId = path.equals(FORM_SHORTEN) ? request.getParameter("userUuid") : request.getHeader("user_uuid");
+        long waitNanos = limiter.tryAcquire(userId, request.getRemoteAddr(), path.equals(API_BATCH) ? batchCost : 1);
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        byte[] body = ApiError.RATE_LIMITED.response().getBody();
+        response.setStatus(HttpServletResponse.SC_TOO_MANY_REQUESTS);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ceilSeconds(waitNanos))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+}
@@ -0,0 +1,64 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A tier's limit: {@code ratePerSecond} sustained, up to {@code burst} at once. Enforced as a
+ * token bucket in its GCRA form, where a bucket is a single {@code long}, the time at which it
+ * would be full again ("theoretical arrival time"). Admitting a request pushes that time forward
+ * by one emission interval per token with a CAS, so there is no lock and no refill timer.
+ */
+final class RateLimitTier {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int burst;
+
+    RateLimitTier(String name, double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit tier " + name + " needs a positive rate and burst");
+        }
+        this.name = name;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.burst = burst;
+    }
+
+    /** Parses {@code name:requestsPerSecond:burst}. */
+    static RateLimitTier parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Rate limit tier must be name:requestsPerSecond:burst, got " + spec);
+        }
+        return new RateLimitTier(parts[0], Double.parseDouble(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    String name() {
+        return name;
+    }
+
+    /** A bucket that starts full. */
+    static AtomicLong newBucket() {
+        return new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Takes {@code cost} tokens (at most the burst) from {@code bucket}. Returns 0 if they were
+     * available, otherwise how many nanoseconds until they will be; a rejected request takes nothing.
+     */
+    long tryAcquire(AtomicLong bucket, long nowNanos, int cost) {
+        long increment = intervalNanos * Math.min(cost, burst);
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, nowNanos) + increment;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+}
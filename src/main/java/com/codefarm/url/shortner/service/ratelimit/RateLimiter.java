@@ -0,0 +1,114 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per client IP, plus one per {@code user_uuid} when the request has one. Every
+ * request is charged to its IP under {@code ratelimit.ip-tier}; a request with a user id must also
+ * fit that user's bucket, {@code ratelimit.user-tier} unless {@code ratelimit.user-tiers} assigns
+ * the user another tier. The user id is whatever the client sent, so it can only narrow what an
+ * IP gets: a client minting a fresh id per request still hits its IP's limit.
+ *
+ * <p>Buckets live in a Caffeine cache bounded to {@code ratelimit.max-keys} and dropped after
+ * {@code ratelimit.idle-expiry} without requests. A dropped bucket comes back full, which is the
+ * state an idle bucket would have reached anyway once the idle time exceeds its refill time.
+ * Looking up an existing bucket takes no lock.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final RateLimitTier ipTier;
+    private final RateLimitTier userTier;
+    private final Map<String, RateLimitTier> userTiers = new HashMap<>();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimiter(
+            @Value("${ratelimit.tiers:ip:20:50,user:5:20}") List<String> tiers,
+            @Value("${ratelimit.ip-tier:ip}") String ipTier,
+            @Value("${ratelimit.user-tier:user}") String userTier,
+            @Value("${ratelimit.user-tiers:}") List<String> userTiers,
+            @Value("${ratelimit.max-keys:1000000}") long maxKeys,
+            @Value("${ratelimit.idle-expiry:10m}") Duration idleExpiry) {
+        Map<String, RateLimitTier> byName = new HashMap<>();
+        for (String spec : tiers) {
+            RateLimitTier tier = RateLimitTier.parse(spec);
+            byName.put(tier.name(), tier);
+        }
+        this.ipTier = tier(byName, ipTier);
+        this.userTier = tier(byName, userTier);
+        for (String assignment : userTiers) {
+            int colon = assignment.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("ratelimit.user-tiers entries must be user:tier, got " + assignment);
+            }
+            this.userTiers.put(assignment.substring(0, colon).trim(), tier(byName, assignment.substring(colon + 1).trim()));
+        }
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    /**
+     * Takes {@code cost} tokens for the client. Returns 0 if the request is admitted, otherwise
+     * the nanoseconds until it would be.
+     */
+    public long tryAcquire(String userId, String clientIp, int cost) {
+        return tryAcquire(userId, clientIp, cost, System.nanoTime());
+    }
+
+    long tryAcquire(String userId, String clientIp, int cost, long nowNanos) {
+        long wait = 0;
+        if (userId != null && !userId.isBlank()) {
+            // The user's bucket first: a user over their own limit then leaves the IP's tokens to
+            // the other users behind it. When the IP rejects, the user's tokens stay spent.
+            wait = userTiers.getOrDefault(userId, userTier).tryAcquire(bucket("u:" + userId), nowNanos, cost);
+        }
+        if (wait == 0) {
+            wait = ipTier.tryAcquire(bucket("ip:" + clientIp), nowNanos, cost);
+        }
+        (wait == 0 ? allowed : rejected).increment();
+        return wait;
+    }
+
+    private AtomicLong bucket(String key) {
+        return buckets.get(key, _ -> RateLimitTier.newBucket());
+    }
+
+    private static RateLimitTier tier(Map<String, RateLimitTier> byName, String name) {
+        RateLimitTier tier = byName.get(name);
+        if (tier == null) {
+            throw new IllegalArgumentException("Unknown rate limit tier " + name + "; define it in ratelimit.tiers");
+        }
+        return tier;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ratelimit.requests", allowed, LongAdder::sum)
+                .tag("result", "allowed")
+                .register(registry);
+        FunctionCounter.builder("ratelimit.requests", rejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .register(registry);
+        Gauge.builder("ratelimit.keys", buckets, Cache::estimatedSize)
+                .description("Clients with a live token bucket")
+                .register(registry);
+    }
+}
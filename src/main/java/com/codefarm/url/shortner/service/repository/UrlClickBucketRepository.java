@@ -0,0 +1,10 @@
+package com.codefarm.url.shortner.service.repository;
+
+import com.codefarm.url.shortner.service.model.UrlClickBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface UrlClickBucketRepository extends JpaRepository<UrlClickBucket, UrlClickBucket.Key> {
+    List<UrlClickBucket> findByShortCode(String shortCode);
+}
@@ -0,0 +1,14 @@
+package com.codefarm.url.shortner.service.repository;
+
+import com.codefarm.url.shortner.service.model.UrlClickStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface UrlClickStatsRepository extends JpaRepository<UrlClickStats, String> {
+
+    @Query("select s.shortCode from UrlClickStats s order by s.clicks desc")
+    List<String> findMostClickedShortCodes(Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package com.codefarm.url.shortner.service.repository;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Redirect-path lookup that bypasses JPA: a single prepared statement selecting only the
+ * redirect columns by primary key, run on an auto-commit connection (no transaction, no
+ * persistence context, no entity).
+ */
+@Repository
+public class UrlLookupRepository {
+
+    private static final String FIND_LONG_URL = "select long_url from url_mappings where short_code = ?";
+    private static final String FIND_REDIRECT =
+            "select long_url, redirect_status, is_custom, expires_at from url_mappings where short_code = ?";
+    private static final ResultSetExtractor<String> FIRST_STRING = rs -> rs.next() ? rs.getString(1) : null;
+    private static final ResultSetExtractor<RedirectTarget> REDIRECT_TARGET = rs -> rs.next()
+            ? new RedirectTarget(rs.getString(1), rs.getObject(2, Integer.class), rs.getBoolean(3),
+                    rs.getObject(4, LocalDateTime.class))
+            : null;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlLookupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Returns the long URL for {@code shortCode}, or {@code null} if there is none. */
+    public String findLongUrl(String shortCode) {
+        return jdbcTemplate.query(FIND_LONG_URL, FIRST_STRING, shortCode);
+    }
+
+    /** Same lookup plus the columns that shape the redirect response, or {@code null} if there is none. */
+    public RedirectTarget findRedirect(String shortCode) {
+        return jdbcTemplate.query(FIND_REDIRECT, REDIRECT_TARGET, shortCode);
+    }
+}
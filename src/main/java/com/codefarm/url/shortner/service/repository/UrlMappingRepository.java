@@ -1,15 +1,44 @@
 package com.codefarm.url.shortner.service.repository;
 
 import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface UrlMappingRepository extends JpaRepository<UrlMapping, String> {
     boolean existsByShortCode(String shortCode);
-    Optional<UrlMapping> findByLongUrl(String longUrl);
+    List<UrlMapping> findByLongUrl(String longUrl);
+    List<UrlMapping> findByLongUrlHash(long longUrlHash);
+    List<UrlMapping> findByLongUrlHashIn(Collection<Long> longUrlHashes);
+    List<UrlMapping> findByLongUrlIn(Collection<String> longUrls);
+    List<UrlMapping> findByLongUrlHashIsNull(Pageable pageable);
+
+    @Query("select m.shortCode from UrlMapping m where m.shortCode > :after order by m.shortCode")
+    List<String> findShortCodesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("select m.shortCode from UrlMapping m where m.shortCode in :shortCodes")
+    List<String> findExistingShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+    @Query("select m from UrlMapping m where m.expiresAt <= :now and m.shortCode > :after order by m.shortCode")
+    List<UrlMapping> findExpiredAfter(@Param("now") LocalDateTime now, @Param("after") String after, Pageable pageable);
+
+    // One DELETE statement whose row count says whether this caller removed the row.
+    @Modifying
+    @Transactional
+    @Query("delete from UrlMapping m where m.shortCode = :shortCode")
+    int deleteMapping(@Param("shortCode") String shortCode);
+
+    @Modifying
+    @Transactional
+    @Query("delete from UrlMapping m where m.shortCode = :shortCode and m.expiresAt <= :now")
+    int deleteExpiredMapping(@Param("shortCode") String shortCode, @Param("now") LocalDateTime now);
 
     interface UserUrlCount {
         String getUserId();
@@ -0,0 +1,26 @@
+package com.codefarm.url.shortner.service.startup;
+
+import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import com.codefarm.url.shortner.service.fastpath.FastRedirectServer;
+import com.codefarm.url.shortner.service.web.RedirectController;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The {@code fast-start} profile turns on {@code spring.main.lazy-initialization}, so the web UI
+ * controller, Thymeleaf, actuator endpoints and everything else off the redirect path are created
+ * on first use. The redirect path itself stays eager: otherwise the first redirect after startup
+ * would pay for building the service, the store and the JPA repositories.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-start")
+class FastStartConfiguration {
+
+    @Bean
+    static LazyInitializationExcludeFilter redirectPathIsEager() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                RedirectController.class, FastRedirectServer.class, UrlShortenerService.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.codefarm.url.shortner.service.startup;
+
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Health contributor {@code redirectPath}: up once a redirect lookup has reached the store. The
+ * probe asks for a code no mapping can have, so it only proves the store answers. After the
+ * first success it stays up without probing again; store outages after that are the store's own
+ * health indicators' business.
+ * <p>
+ * The {@code fast-start} profile puts it in the readiness group, next to {@code readinessState},
+ * so a new node reports ready as soon as it can serve redirects, not after warm-up.
+ */
+@Component
+public class RedirectPathHealthIndicator implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(RedirectPathHealthIndicator.class);
+    // Not a valid alias or Base62 code, so never stored
+    private static final String PROBE_CODE = ".";
+
+    private final UrlStore store;
+    private volatile boolean ready;
+
+    public RedirectPathHealthIndicator(UrlStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Health health() {
+        if (ready) {
+            return Health.up().build();
+        }
+        try {
+            store.findRedirect(PROBE_CODE);
+        } catch (RuntimeException ex) {
+            return Health.down(ex).build();
+        }
+        ready = true;
+        log.info("Redirect path ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        return Health.up().build();
+    }
+}
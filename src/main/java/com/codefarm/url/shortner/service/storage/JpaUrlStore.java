@@ -0,0 +1,158 @@
+package com.codefarm.url.shortner.service.storage;
+
+import com.codefarm.url.shortner.service.datasource.ReadRouting;
+import com.codefarm.url.shortner.service.datasource.RecentWrites;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.repository.UrlLookupRepository;
+import com.codefarm.url.shortner.service.repository.UrlMappingRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * {@link UrlStore} over {@code url_mappings} through JPA, with the redirect lookup on plain JDBC.
+ * Writes join the caller's transaction, so a code conflict surfaces as a constraint violation
+ * when it flushes rather than as a {@code false} return. With read replicas configured, the
+ * redirect lookup reads from a replica unless the code was written within the read-your-writes window.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaUrlStore implements UrlStore {
+
+    private final UrlMappingRepository repository;
+    private final UrlLookupRepository lookupRepository;
+    private final LongUrlHashBackfill longUrlHashBackfill;
+    private final RecentWrites recentWrites;
+
+    public JpaUrlStore(UrlMappingRepository repository,
+                       UrlLookupRepository lookupRepository,
+                       LongUrlHashBackfill longUrlHashBackfill,
+                       RecentWrites recentWrites) {
+        this.repository = repository;
+        this.lookupRepository = lookupRepository;
+        this.longUrlHashBackfill = longUrlHashBackfill;
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    public RedirectTarget findRedirect(String shortCode) {
+        if (recentWrites.contains(shortCode)) {
+            return lookupRepository.findRedirect(shortCode);
+        }
+        return ReadRouting.replica(() -> lookupRepository.findRedirect(shortCode));
+    }
+
+    @Override
+    public boolean putIfAbsent(UrlMapping mapping) {
+        repository.save(mapping);
+        recentWrites.record(mapping.getShortCode());
+        return true;
+    }
+
+    @Override
+    public void putAll(Collection<UrlMapping> mappings) {
+        repository.saveAll(mappings);
+        mappings.forEach(m -> recentWrites.record(m.getShortCode()));
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        return repository.deleteMapping(shortCode) > 0;
+    }
+
+    @Override
+    public boolean deleteExpired(String shortCode, LocalDateTime now) {
+        return repository.deleteExpiredMapping(shortCode, now) > 0;
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHash(long urlHash) {
+        return repository.findByLongUrlHash(urlHash);
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHashes(Collection<Long> urlHashes) {
+        return repository.findByLongUrlHashIn(urlHashes);
+    }
+
+    // Rows written before long_url_hash existed are only reachable by the full string until
+    // the backfill has finished.
+    @Override
+    public Optional<UrlMapping> findByLongUrl(String longUrl, long urlHash, Predicate<? super UrlMapping> accept) {
+        Optional<UrlMapping> found = UrlStore.super.findByLongUrl(longUrl, urlHash, accept);
+        if (found.isPresent() || longUrlHashBackfill.isComplete()) {
+            return found;
+        }
+        return repository.findByLongUrl(longUrl).stream().filter(accept).findFirst();
+    }
+
+    @Override
+    public Map<String, List<UrlMapping>> findByLongUrls(Map<String, Long> urlHashes) {
+        Map<String, List<UrlMapping>> existing = UrlStore.super.findByLongUrls(urlHashes);
+        if (!longUrlHashBackfill.isComplete()) {
+            Set<String> missing = new HashSet<>(urlHashes.keySet());
+            missing.removeAll(existing.keySet());
+            if (!missing.isEmpty()) {
+                repository.findByLongUrlIn(missing)
+                        .forEach(m -> existing.computeIfAbsent(m.getLongUrl(), _ -> new ArrayList<>(1)).add(m));
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        return repository.existsByShortCode(shortCode);
+    }
+
+    @Override
+    public Set<String> findExistingShortCodes(Collection<String> shortCodes) {
+        return new HashSet<>(repository.findExistingShortCodes(shortCodes));
+    }
+
+    @Override
+    public void scanShortCodes(int batchSize, Consumer<List<String>> batches) {
+        String after = "";
+        List<String> batch;
+        do {
+            batch = repository.findShortCodesAfter(after, PageRequest.ofSize(batchSize));
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+                after = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Override
+    public void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches) {
+        String after = "";
+        List<UrlMapping> batch;
+        do {
+            batch = repository.findExpiredAfter(now, after, PageRequest.ofSize(batchSize));
+            if (!batch.isEmpty()) {
+                after = batch.getLast().getShortCode();
+                batches.accept(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Override
+    public Map<String, Long> countByUser() {
+        Map<String, Long> counts = new HashMap<>();
+        repository.countUrlsPerUser().forEach(row -> counts.put(row.getUserId(), row.getCount()));
+        return counts;
+    }
+}
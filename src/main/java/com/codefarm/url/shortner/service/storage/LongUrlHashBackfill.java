@@ -0,0 +1,74 @@
+package com.codefarm.url.shortner.service.storage;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.repository.UrlMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills {@code long_url_hash} for rows written before the column existed. Runs once per start
+ * in a background thread, one short transaction per batch; until it finishes, dedup lookups
+ * that miss on the hash fall back to the full-string query. Only relevant to the JPA engine;
+ * the embedded engine computes the hash on every write.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class LongUrlHashBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(LongUrlHashBackfill.class);
+
+    private final UrlMappingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private volatile boolean complete;
+
+    public LongUrlHashBackfill(
+            UrlMappingRepository repository,
+            TransactionTemplate transactionTemplate,
+            @Value("${dedup.backfill.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofPlatform().name("long-url-hash-backfill").daemon().start(this::run);
+    }
+
+    private void run() {
+        long total = 0;
+        try {
+            int updated;
+            do {
+                updated = transactionTemplate.execute(_ -> backfillBatch());
+                total += updated;
+            } while (updated == batchSize);
+            complete = true;
+            if (total > 0) {
+                log.info("Backfilled long_url_hash for {} url mappings", total);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("long_url_hash backfill stopped after {} rows; dedup keeps using the full-string fallback", total, ex);
+        }
+    }
+
+    private int backfillBatch() {
+        List<UrlMapping> batch = repository.findByLongUrlHashIsNull(PageRequest.ofSize(batchSize));
+        batch.forEach(UrlMapping::backfillLongUrlHash);
+        return batch.size();
+    }
+}
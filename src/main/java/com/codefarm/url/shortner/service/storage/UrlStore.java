@@ -0,0 +1,128 @@
+package com.codefarm.url.shortner.service.storage;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Storage engine for short-code mappings, selected with {@code storage.engine}: {@code jpa}
+ * (default, {@link JpaUrlStore}), {@code embedded}
+ * ({@link com.codefarm.url.shortner.service.storage.embedded.EmbeddedUrlStore}) or {@code sharded}
+ * ({@link com.codefarm.url.shortner.service.storage.sharded.ShardedUrlStore}).
+ * Codes are unique; the long-URL hash index is not (distinct URLs may collide on the hash).
+ */
+public interface UrlStore {
+
+    /** Get-by-code for the redirect path, or {@code null} if the code is unknown. */
+    RedirectTarget findRedirect(String shortCode);
+
+    /** The long URL for {@code shortCode}, or {@code null} if the code is unknown. */
+    default String findLongUrl(String shortCode) {
+        RedirectTarget target = findRedirect(shortCode);
+        return target == null ? null : target.longUrl();
+    }
+
+    /**
+     * Stores the mapping unless its code is taken. Returns {@code false} on a conflict the engine
+     * can see immediately; transactional engines may instead fail the enclosing transaction.
+     */
+    boolean putIfAbsent(UrlMapping mapping);
+
+    /**
+     * Stores mappings whose codes the caller has already checked. A code that is taken after all
+     * fails the enclosing transaction, or throws {@link DuplicateKeyException} where the engine
+     * sees the conflict immediately; mappings stored before it may remain.
+     */
+    default void putAll(Collection<UrlMapping> mappings) {
+        for (UrlMapping mapping : mappings) {
+            if (!putIfAbsent(mapping)) {
+                throw new DuplicateKeyException("Short code already in use: " + mapping.getShortCode());
+            }
+        }
+    }
+
+    /** Removes the mapping for {@code shortCode}; returns whether one existed. */
+    boolean delete(String shortCode);
+
+    /**
+     * Removes the mapping for {@code shortCode} only if it expired by {@code now}; returns whether
+     * this call removed it. A code deleted elsewhere and created again keeps its new mapping. The
+     * default reads and then deletes, so it only narrows that window.
+     */
+    default boolean deleteExpired(String shortCode, LocalDateTime now) {
+        RedirectTarget target = findRedirect(shortCode);
+        return target != null && target.expiresAt() != null && !target.expiresAt().isAfter(now) && delete(shortCode);
+    }
+
+    /** Every mapping whose long-URL hash equals {@code urlHash}. */
+    List<UrlMapping> findByUrlHash(long urlHash);
+
+    default List<UrlMapping> findByUrlHashes(Collection<Long> urlHashes) {
+        List<UrlMapping> found = new ArrayList<>();
+        urlHashes.forEach(hash -> found.addAll(findByUrlHash(hash)));
+        return found;
+    }
+
+    /** A mapping for exactly {@code longUrl}, resolved through the URL-hash index. */
+    default Optional<UrlMapping> findByLongUrl(String longUrl, long urlHash) {
+        return findByLongUrl(longUrl, urlHash, _ -> true);
+    }
+
+    /**
+     * The first mapping for exactly {@code longUrl} that {@code accept} takes. A URL can have
+     * several mappings (different redirect status or expiry), so the filter runs on every
+     * candidate rather than on the first one found.
+     */
+    default Optional<UrlMapping> findByLongUrl(String longUrl, long urlHash, Predicate<? super UrlMapping> accept) {
+        for (UrlMapping candidate : findByUrlHash(urlHash)) {
+            if (candidate.getLongUrl().equals(longUrl) && accept.test(candidate)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Batch form of {@link #findByLongUrl}: every mapping for each URL, keyed by long URL, in
+     * mutable lists. {@code urlHashes} maps each URL to its hash.
+     */
+    default Map<String, List<UrlMapping>> findByLongUrls(Map<String, Long> urlHashes) {
+        Set<String> wanted = urlHashes.keySet();
+        Map<String, List<UrlMapping>> existing = new HashMap<>();
+        for (UrlMapping candidate : findByUrlHashes(new HashSet<>(urlHashes.values()))) {
+            if (wanted.contains(candidate.getLongUrl())) {
+                existing.computeIfAbsent(candidate.getLongUrl(), _ -> new ArrayList<>(1)).add(candidate);
+            }
+        }
+        return existing;
+    }
+
+    boolean exists(String shortCode);
+
+    /** The subset of {@code shortCodes} that are taken. */
+    Set<String> findExistingShortCodes(Collection<String> shortCodes);
+
+    /** Streams every short code to {@code batches}, at most {@code batchSize} at a time, in no particular order. */
+    void scanShortCodes(int batchSize, Consumer<List<String>> batches);
+
+    /**
+     * Streams every mapping that expired at or before {@code now} to {@code batches}, at most
+     * {@code batchSize} at a time. The consumer may delete the mappings it is given.
+     */
+    void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches);
+
+    /** Number of mappings per non-null user id. */
+    Map<String, Long> countByUser();
+}
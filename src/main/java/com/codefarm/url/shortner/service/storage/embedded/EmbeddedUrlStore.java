@@ -0,0 +1,593 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Embedded {@link UrlStore}: an append-only log of mapped segment files plus two memory-mapped
+ * hash indexes (short-code hash and long-URL hash, both pointing at log offsets). Lookups are
+ * an index probe and a read from mapped memory, with no locking and no heap structures sized by
+ * the data set. Writes are serialized by one lock.
+ *
+ * <p>Durability: records are in the page cache as soon as a write returns, so they survive a
+ * process crash. They reach the disk within {@code storage.embedded.fsync-interval}, or on
+ * shutdown. On a clean shutdown the indexes are reused at the next start. Otherwise they are
+ * rebuilt by replaying the log, and a torn record at the tail is cut off.
+ *
+ * <p>Compaction: once dead records (deleted or superseded mappings, tombstones) reach
+ * {@code storage.embedded.compaction.threshold} of the sealed segments, a background pass copies
+ * the live records to the head of the log, re-points the indexes and deletes the old segments.
+ * Segments are processed oldest first, so a tombstone is never removed before the record it deletes.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.engine", havingValue = "embedded")
+public class EmbeddedUrlStore implements UrlStore, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedUrlStore.class);
+
+    private static final String CODES_INDEX = "codes.idx";
+    private static final String URLS_INDEX = "urls.idx";
+    private static final String META = "store.meta";
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long indexCapacity;
+    private final Duration fsyncInterval;
+    private final Duration compactionInterval;
+    private final double compactionThreshold;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+    private volatile MappedHashIndex codeIndex;
+    private volatile MappedHashIndex urlIndex;
+    private volatile LogSegment active;
+    private ScheduledExecutorService maintenance;
+
+    public EmbeddedUrlStore(
+            @Value("${storage.embedded.dir:./data/url-store}") String dir,
+            @Value("${storage.embedded.segment-size:256MB}") DataSize segmentSize,
+            @Value("${storage.embedded.index-capacity:1048576}") long indexCapacity,
+            @Value("${storage.embedded.fsync-interval:1s}") Duration fsyncInterval,
+            @Value("${storage.embedded.compaction.interval:1m}") Duration compactionInterval,
+            @Value("${storage.embedded.compaction.threshold:0.5}") double compactionThreshold) {
+        if (segmentSize.toBytes() < LogRecord.MAX_RECORD_BYTES || segmentSize.toBytes() > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("storage.embedded.segment-size must be between 64KB and 1GB");
+        }
+        this.dir = Path.of(dir);
+        this.segmentBytes = (int) segmentSize.toBytes();
+        this.indexCapacity = indexCapacity;
+        this.fsyncInterval = fsyncInterval;
+        this.compactionInterval = compactionInterval;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(dir);
+            List<Integer> ids = listSegmentIds();
+            for (int id : ids) {
+                segments.put(id, LogSegment.open(dir, id));
+            }
+            if (!reuseCleanState(ids)) {
+                recover();
+            }
+            if (segments.isEmpty()) {
+                active = LogSegment.create(dir, 0, segmentBytes);
+                segments.put(0, active);
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+            writeMeta(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open url store in " + dir, ex);
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("url-store-maintenance").daemon().factory());
+        maintenance.scheduleWithFixedDelay(this::forceActive, fsyncInterval.toMillis(), fsyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactIfNeeded, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (maintenance == null) {
+            return;
+        }
+        maintenance.shutdownNow();
+        try {
+            maintenance.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            for (LogSegment segment : segments.values()) {
+                segment.force();
+            }
+            codeIndex.sync();
+            urlIndex.sync();
+            writeMeta(true);
+            for (LogSegment segment : segments.values()) {
+                segment.close();
+            }
+            codeIndex.close();
+            urlIndex.close();
+        } catch (IOException ex) {
+            log.warn("Url store in {} did not close cleanly; the indexes will be rebuilt on the next start", dir, ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public RedirectTarget findRedirect(String shortCode) {
+        long offset = findOffset(shortCode, codeHash(shortCode));
+        if (offset == MappedHashIndex.EMPTY) {
+            return null;
+        }
+        LogSegment segment = segments.get(LogSegment.segmentId(offset));
+        if (segment == null) {
+            // Compacted away between the index probe and the read; the index now has the new offset.
+            return findRedirect(shortCode);
+        }
+        return LogRecord.toRedirectTarget(segment.buffer(), LogSegment.position(offset));
+    }
+
+    @Override
+    public String findLongUrl(String shortCode) {
+        long offset = findOffset(shortCode, codeHash(shortCode));
+        if (offset == MappedHashIndex.EMPTY) {
+            return null;
+        }
+        LogSegment segment = segments.get(LogSegment.segmentId(offset));
+        if (segment == null) {
+            return findLongUrl(shortCode);
+        }
+        return LogRecord.longUrl(segment.buffer(), LogSegment.position(offset));
+    }
+
+    @Override
+    public boolean putIfAbsent(UrlMapping mapping) {
+        byte[] record = LogRecord.encodePut(mapping);
+        long codeHash = codeHash(mapping.getShortCode());
+        writeLock.lock();
+        try {
+            if (findOffset(mapping.getShortCode(), codeHash) != MappedHashIndex.EMPTY) {
+                return false;
+            }
+            long offset = append(record);
+            ensureIndexCapacity();
+            codeIndex.put(codeHash, offset);
+            urlIndex.put(mapping.getLongUrlHash(), offset);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        long codeHash = codeHash(shortCode);
+        writeLock.lock();
+        try {
+            long offset = findOffset(shortCode, codeHash);
+            if (offset == MappedHashIndex.EMPTY) {
+                return false;
+            }
+            LogSegment segment = segments.get(LogSegment.segmentId(offset));
+            long urlHash = LogRecord.urlHash(segment.buffer(), LogSegment.position(offset));
+            append(LogRecord.encodeDelete(shortCode, urlHash));
+            unindex(codeHash, urlHash, offset);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHash(long urlHash) {
+        List<UrlMapping> found = new ArrayList<>(1);
+        long moved = urlIndex.find(urlHash, offset -> {
+            LogSegment segment = segments.get(LogSegment.segmentId(offset));
+            if (segment == null) {
+                return false;
+            }
+            found.add(LogRecord.toMapping(segment.buffer(), LogSegment.position(offset)));
+            return true;
+        });
+        // A record was compacted away mid-scan; the index now has its new offset.
+        return moved == MappedHashIndex.EMPTY ? found : findByUrlHash(urlHash);
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        return findOffset(shortCode, codeHash(shortCode)) != MappedHashIndex.EMPTY;
+    }
+
+    @Override
+    public Set<String> findExistingShortCodes(Collection<String> shortCodes) {
+        Set<String> taken = new HashSet<>();
+        for (String shortCode : shortCodes) {
+            if (exists(shortCode)) {
+                taken.add(shortCode);
+            }
+        }
+        return taken;
+    }
+
+    @Override
+    public void scanShortCodes(int batchSize, Consumer<List<String>> batches) {
+        List<String> batch = new ArrayList<>(batchSize);
+        scanLive((buf, pos) -> {
+            batch.add(LogRecord.code(buf, pos));
+            if (batch.size() == batchSize) {
+                batches.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            batches.accept(batch);
+        }
+    }
+
+    /** One pass over the live records; expiry is read from the record header without decoding the rest. */
+    @Override
+    public void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches) {
+        long nowMillis = now.toInstant(ZoneOffset.UTC).toEpochMilli();
+        List<UrlMapping> batch = new ArrayList<>(batchSize);
+        scanLive((buf, pos) -> {
+            if (LogRecord.expiresAtMillis(buf, pos) <= nowMillis) {
+                batch.add(LogRecord.toMapping(buf, pos));
+                if (batch.size() == batchSize) {
+                    batches.accept(List.copyOf(batch));
+                    batch.clear();
+                }
+            }
+        });
+        if (!batch.isEmpty()) {
+            batches.accept(batch);
+        }
+    }
+
+    @Override
+    public Map<String, Long> countByUser() {
+        Map<String, Long> counts = new HashMap<>();
+        scanLive((buf, pos) -> {
+            String userId = LogRecord.userId(buf, pos);
+            if (userId != null) {
+                counts.merge(userId, 1L, Long::sum);
+            }
+        });
+        return counts;
+    }
+
+    /** Runs a compaction pass now if the sealed segments are at least the configured share dead. */
+    public synchronized void compactIfNeeded() {
+        long used = 0;
+        long dead = 0;
+        for (LogSegment segment : segments.headMap(activeId()).values()) {
+            used += segment.writePosition() - LogSegment.HEADER_BYTES;
+            dead += segment.deadBytes();
+        }
+        if (dead > 0 && dead >= used * compactionThreshold) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<LogSegment> sealed = new ArrayList<>(segments.headMap(activeId()).values());
+        long reclaimed = sealed.stream().mapToLong(LogSegment::deadBytes).sum();
+        try {
+            for (LogSegment segment : sealed) {
+                copyLiveRecords(segment);
+                writeLock.lock();
+                try {
+                    // The copies must be durable before the originals go away.
+                    for (LogSegment remaining : segments.tailMap(segment.id(), false).values()) {
+                        remaining.force();
+                    }
+                    segments.remove(segment.id());
+                } finally {
+                    writeLock.unlock();
+                }
+                segment.delete();
+            }
+            compactions.increment();
+            reclaimedBytes.add(reclaimed);
+            log.info("Compacted {} url store segments, reclaimed {} bytes", sealed.size(), reclaimed);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Url store compaction stopped; it will be retried", ex);
+        }
+    }
+
+    private void copyLiveRecords(LogSegment segment) {
+        ByteBuffer buf = segment.buffer();
+        int end = segment.writePosition();
+        for (int pos = LogSegment.HEADER_BYTES; pos < end; pos += LogRecord.length(buf, pos)) {
+            if (LogRecord.type(buf, pos) != LogRecord.PUT) {
+                continue;
+            }
+            long offset = segment.offsetOf(pos);
+            long codeHash = codeHash(LogRecord.code(buf, pos));
+            writeLock.lock();
+            try {
+                if (!codeIndex.contains(codeHash, offset)) {
+                    continue;
+                }
+                int length = LogRecord.length(buf, pos);
+                long copy = append(segment.copy(pos, length));
+                long urlHash = LogRecord.urlHash(buf, pos);
+                codeIndex.replace(codeHash, offset, copy);
+                urlIndex.replace(urlHash, offset, copy);
+                segment.addLiveBytes(-length);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("storage.embedded.mappings", this, s -> s.codeIndex.size())
+                .register(registry);
+        Gauge.builder("storage.embedded.log.size", this, s -> s.segments.values().stream().mapToLong(LogSegment::writePosition).sum())
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("storage.embedded.log.dead", this, s -> s.segments.values().stream().mapToLong(LogSegment::deadBytes).sum())
+                .baseUnit(BaseUnits.BYTES)
+                .description("Bytes held by deleted or superseded records and tombstones")
+                .register(registry);
+        Gauge.builder("storage.embedded.segments", segments, Map::size)
+                .register(registry);
+        FunctionCounter.builder("storage.embedded.compactions", compactions, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("storage.embedded.compaction.reclaimed", reclaimedBytes, LongAdder::sum)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    /**
+     * Probes the code index, starting over when it meets an offset whose segment was compacted
+     * away after the offset was read: by then the index holds the record's new offset, possibly in
+     * a slot this probe has already passed.
+     */
+    private long findOffset(String shortCode, long codeHash) {
+        long offset;
+        do {
+            offset = codeIndex.find(codeHash, o -> {
+                LogSegment segment = segments.get(LogSegment.segmentId(o));
+                return segment != null && !LogRecord.codeEquals(segment.buffer(), LogSegment.position(o), shortCode);
+            });
+        } while (offset != MappedHashIndex.EMPTY && !segments.containsKey(LogSegment.segmentId(offset)));
+        return offset;
+    }
+
+    private static long codeHash(String shortCode) {
+        return UrlHashing.longUrlHash(shortCode);
+    }
+
+    /** Appends under the write lock, rolling to a new segment when the active one is full. */
+    private long append(byte[] record) {
+        if (!active.hasRoom(record.length)) {
+            active.force();
+            try {
+                active = LogSegment.create(dir, active.id() + 1, segmentBytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot create url store segment", ex);
+            }
+            segments.put(active.id(), active);
+        }
+        int position = active.append(record);
+        if (LogRecord.type(active.buffer(), position) == LogRecord.PUT) {
+            active.addLiveBytes(record.length);
+        }
+        return active.offsetOf(position);
+    }
+
+    private void unindex(long codeHash, long urlHash, long offset) {
+        codeIndex.remove(codeHash, offset);
+        urlIndex.remove(urlHash, offset);
+        LogSegment segment = segments.get(LogSegment.segmentId(offset));
+        segment.addLiveBytes(-LogRecord.length(segment.buffer(), LogSegment.position(offset)));
+    }
+
+    private void ensureIndexCapacity() {
+        try {
+            if (codeIndex.isFull()) {
+                MappedHashIndex old = codeIndex;
+                codeIndex = old.rebuild(dir.resolve(CODES_INDEX));
+                old.close();
+            }
+            if (urlIndex.isFull()) {
+                MappedHashIndex old = urlIndex;
+                urlIndex = old.rebuild(dir.resolve(URLS_INDEX));
+                old.close();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot grow url store index", ex);
+        }
+    }
+
+    private int activeId() {
+        writeLock.lock();
+        try {
+            return active.id();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void forceActive() {
+        try {
+            LogSegment segment = active;
+            segment.force();
+        } catch (RuntimeException ex) {
+            log.warn("Url store fsync failed", ex);
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(ByteBuffer buf, int pos);
+    }
+
+    /** Visits every live PUT record, oldest segment first. */
+    private void scanLive(RecordVisitor visitor) {
+        for (LogSegment segment : segments.values()) {
+            ByteBuffer buf = segment.buffer();
+            int end = segment.writePosition();
+            for (int pos = LogSegment.HEADER_BYTES; pos < end; pos += LogRecord.length(buf, pos)) {
+                if (LogRecord.type(buf, pos) == LogRecord.PUT
+                        && codeIndex.contains(codeHash(LogRecord.code(buf, pos)), segment.offsetOf(pos))) {
+                    visitor.visit(buf, pos);
+                }
+            }
+        }
+    }
+
+    // ---- startup ----
+
+    private List<Integer> listSegmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(LogSegment.SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(0, name.length() - LogSegment.SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private boolean reuseCleanState(List<Integer> ids) {
+        Path meta = dir.resolve(META);
+        if (ids.isEmpty() || !Files.exists(meta)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(meta)) {
+            Properties props = new Properties();
+            props.load(in);
+            if (!Boolean.parseBoolean(props.getProperty("clean"))
+                    || !String.valueOf(ids).equals(props.getProperty("segments"))) {
+                return false;
+            }
+            for (LogSegment segment : segments.values()) {
+                segment.writePosition(Integer.parseInt(props.getProperty("segment." + segment.id() + ".end")));
+                segment.addLiveBytes(Long.parseLong(props.getProperty("segment." + segment.id() + ".live")));
+            }
+            codeIndex = MappedHashIndex.open(dir.resolve(CODES_INDEX));
+            urlIndex = MappedHashIndex.open(dir.resolve(URLS_INDEX));
+            log.info("Opened url store in {}: {} mappings in {} segments", dir, codeIndex.size(), ids.size());
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Url store metadata in {} is unusable; rebuilding indexes from the log", dir, ex);
+            for (LogSegment segment : segments.values()) {
+                segment.addLiveBytes(-segment.liveBytes());
+            }
+            return false;
+        }
+    }
+
+    /** Rebuilds both indexes by replaying every segment, cutting off anything after a bad record. */
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        codeIndex = MappedHashIndex.create(dir.resolve(CODES_INDEX), indexCapacity);
+        urlIndex = MappedHashIndex.create(dir.resolve(URLS_INDEX), indexCapacity);
+        long records = 0;
+        for (LogSegment segment : segments.values()) {
+            ByteBuffer buf = segment.buffer();
+            int pos = LogSegment.HEADER_BYTES;
+            int length;
+            while ((length = LogRecord.validLength(buf, pos, segment.capacity())) > 0) {
+                segment.writePosition(pos + length);
+                replay(segment, pos, length);
+                pos += length;
+                records++;
+            }
+            segment.writePosition(pos);
+            if (pos + LogRecord.HEADER_BYTES <= segment.capacity() && buf.getLong(pos) != 0) {
+                // Pages can reach the disk out of order, so clear everything past the last good record.
+                log.warn("Url store segment {} has a torn record at {}; truncating", segment.id(), pos);
+                segment.clear(pos, segment.capacity());
+                segment.force();
+            }
+        }
+        log.info("Recovered url store in {}: replayed {} records, {} mappings, in {} ms",
+                dir, records, codeIndex.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void replay(LogSegment segment, int pos, int length) {
+        ByteBuffer buf = segment.buffer();
+        String shortCode = LogRecord.code(buf, pos);
+        long codeHash = codeHash(shortCode);
+        long existing = findOffset(shortCode, codeHash);
+        if (existing != MappedHashIndex.EMPTY) {
+            LogSegment owner = segments.get(LogSegment.segmentId(existing));
+            unindex(codeHash, LogRecord.urlHash(owner.buffer(), LogSegment.position(existing)), existing);
+        }
+        if (LogRecord.type(buf, pos) == LogRecord.PUT) {
+            ensureIndexCapacity();
+            long offset = segment.offsetOf(pos);
+            codeIndex.put(codeHash, offset);
+            urlIndex.put(LogRecord.urlHash(buf, pos), offset);
+            segment.addLiveBytes(length);
+        }
+    }
+
+    private void writeMeta(boolean clean) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("clean", String.valueOf(clean));
+        props.setProperty("segments", String.valueOf(new ArrayList<>(segments.keySet())));
+        for (LogSegment segment : segments.values()) {
+            props.setProperty("segment." + segment.id() + ".end", String.valueOf(segment.writePosition()));
+            props.setProperty("segment." + segment.id() + ".live", String.valueOf(segment.liveBytes()));
+        }
+        Path tmp = dir.resolve(META + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "url store state; clean=false while the store is open");
+        }
+        Files.move(tmp, dir.resolve(META), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
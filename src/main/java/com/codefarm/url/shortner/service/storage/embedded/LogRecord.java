@@ -0,0 +1,224 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Log record layout. Every record is {@code crc32c:int, length:int, body}, where the CRC covers
+ * the length field and the body, and the body is
+ * <pre>
+ * type:byte flags:byte codeLength:short urlHash:long createdAt:long userIdLength:short urlLength:int
+ * code userId url [expiresAt:long]
+ * </pre>
+ * Flags: bit 0 marks a custom alias, bits 1-3 hold the mapping's redirect status (0 for the
+ * default, then 301, 302, 307, 308), bit 4 marks an expiring mapping, whose expiry follows the
+ * URL. Records written without bit 4 never expire. A {@link #DELETE} record carries the code and
+ * the deleted mapping's URL hash only. Short codes are ASCII (Base62 or validated aliases) and
+ * stored as Latin-1; user ids and URLs as UTF-8.
+ * All methods read a buffer with absolute gets, so concurrent readers need no coordination.
+ */
+final class LogRecord {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final int HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 1 << 16;
+
+    private static final int FIXED_BODY_BYTES = 26;
+    private static final int TYPE = HEADER_BYTES;
+    private static final int FLAGS = TYPE + 1;
+    private static final int CODE_LENGTH = FLAGS + 1;
+    private static final int URL_HASH = CODE_LENGTH + 2;
+    private static final int CREATED_AT = URL_HASH + 8;
+    private static final int USER_ID_LENGTH = CREATED_AT + 8;
+    private static final int URL_LENGTH = USER_ID_LENGTH + 2;
+    private static final int CODE = URL_LENGTH + 4;
+    private static final byte FLAG_CUSTOM = 1;
+    private static final int STATUS_SHIFT = 1;
+    private static final int STATUS_MASK = 0b111;
+    private static final int[] STATUSES = {0, 301, 302, 307, 308};
+    private static final byte FLAG_EXPIRES = 1 << 4;
+
+    private LogRecord() {
+    }
+
+    static byte[] encodePut(UrlMapping mapping) {
+        byte[] userId = mapping.getUserId() == null ? null : mapping.getUserId().getBytes(StandardCharsets.UTF_8);
+        byte[] url = mapping.getLongUrl().getBytes(StandardCharsets.UTF_8);
+        long createdAt = mapping.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        int flags = (mapping.isCustom() ? FLAG_CUSTOM : 0) | statusBits(mapping.getRedirectStatus()) << STATUS_SHIFT;
+        if (mapping.getExpiresAt() == null) {
+            return encode(PUT, (byte) flags, mapping.getShortCode(), mapping.getLongUrlHash(), createdAt, userId, url, 0);
+        }
+        long expiresAt = mapping.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return encode(PUT, (byte) (flags | FLAG_EXPIRES), mapping.getShortCode(), mapping.getLongUrlHash(), createdAt,
+                userId, url, expiresAt);
+    }
+
+    private static int statusBits(Integer redirectStatus) {
+        if (redirectStatus == null) {
+            return 0;
+        }
+        for (int i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i] == redirectStatus) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported redirect status " + redirectStatus);
+    }
+
+    static byte[] encodeDelete(String shortCode, long urlHash) {
+        return encode(DELETE, (byte) 0, shortCode, urlHash, 0, null, new byte[0], 0);
+    }
+
+    private static byte[] encode(byte type, byte flags, String code, long urlHash, long createdAt, byte[] userId, byte[] url,
+                                 long expiresAt) {
+        byte[] codeBytes = code.getBytes(StandardCharsets.ISO_8859_1);
+        int userIdLength = userId == null ? 0 : userId.length;
+        int expiresBytes = (flags & FLAG_EXPIRES) != 0 ? 8 : 0;
+        int total = HEADER_BYTES + FIXED_BODY_BYTES + codeBytes.length + userIdLength + url.length + expiresBytes;
+        if (total > MAX_RECORD_BYTES || userIdLength > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Mapping too large to store: " + code);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        buf.putInt(4, total - HEADER_BYTES)
+                .put(TYPE, type)
+                .put(FLAGS, flags)
+                .putShort(CODE_LENGTH, (short) codeBytes.length)
+                .putLong(URL_HASH, urlHash)
+                .putLong(CREATED_AT, createdAt)
+                .putShort(USER_ID_LENGTH, (short) (userId == null ? -1 : userIdLength))
+                .putInt(URL_LENGTH, url.length)
+                .put(CODE, codeBytes);
+        if (userId != null) {
+            buf.put(CODE + codeBytes.length, userId);
+        }
+        buf.put(CODE + codeBytes.length + userIdLength, url);
+        if (expiresBytes != 0) {
+            buf.putLong(CODE + codeBytes.length + userIdLength + url.length, expiresAt);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 4, total - 4);
+        buf.putInt(0, (int) crc.getValue());
+        return buf.array();
+    }
+
+    /**
+     * Total length of the record at {@code pos} if it is complete and its checksum matches,
+     * otherwise 0 (end of log, or a torn write).
+     */
+    static int validLength(ByteBuffer buf, int pos, int limit) {
+        if (pos + HEADER_BYTES + FIXED_BODY_BYTES > limit) {
+            return 0;
+        }
+        int bodyLength = buf.getInt(pos + 4);
+        if (bodyLength < FIXED_BODY_BYTES || bodyLength > MAX_RECORD_BYTES - HEADER_BYTES
+                || pos + HEADER_BYTES + bodyLength > limit) {
+            return 0;
+        }
+        byte type = buf.get(pos + TYPE);
+        if (type != PUT && type != DELETE) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(pos + 4, bodyLength + 4));
+        return (int) crc.getValue() == buf.getInt(pos) ? HEADER_BYTES + bodyLength : 0;
+    }
+
+    static int length(ByteBuffer buf, int pos) {
+        return HEADER_BYTES + buf.getInt(pos + 4);
+    }
+
+    static byte type(ByteBuffer buf, int pos) {
+        return buf.get(pos + TYPE);
+    }
+
+    static long urlHash(ByteBuffer buf, int pos) {
+        return buf.getLong(pos + URL_HASH);
+    }
+
+    static boolean codeEquals(ByteBuffer buf, int pos, String code) {
+        int length = buf.getShort(pos + CODE_LENGTH) & 0xFFFF;
+        if (length != code.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((buf.get(pos + CODE + i) & 0xFF) != code.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String code(ByteBuffer buf, int pos) {
+        return string(buf, pos + CODE, buf.getShort(pos + CODE_LENGTH) & 0xFFFF, true);
+    }
+
+    static String longUrl(ByteBuffer buf, int pos) {
+        return string(buf, urlStart(buf, pos), buf.getInt(pos + URL_LENGTH), false);
+    }
+
+    static boolean custom(ByteBuffer buf, int pos) {
+        return (buf.get(pos + FLAGS) & FLAG_CUSTOM) != 0;
+    }
+
+    /** The stored redirect status, or {@code null} for the configured default. */
+    static Integer redirectStatus(ByteBuffer buf, int pos) {
+        int bits = (buf.get(pos + FLAGS) >> STATUS_SHIFT) & STATUS_MASK;
+        return bits == 0 || bits >= STATUSES.length ? null : STATUSES[bits];
+    }
+
+    /** Epoch millis (UTC wall clock, like {@code createdAt}) at which the mapping expires, or {@link Long#MAX_VALUE}. */
+    static long expiresAtMillis(ByteBuffer buf, int pos) {
+        if ((buf.get(pos + FLAGS) & FLAG_EXPIRES) == 0) {
+            return Long.MAX_VALUE;
+        }
+        return buf.getLong(urlStart(buf, pos) + buf.getInt(pos + URL_LENGTH));
+    }
+
+    static LocalDateTime expiresAt(ByteBuffer buf, int pos) {
+        long millis = expiresAtMillis(buf, pos);
+        return millis == Long.MAX_VALUE ? null : dateTime(millis);
+    }
+
+    static RedirectTarget toRedirectTarget(ByteBuffer buf, int pos) {
+        return new RedirectTarget(longUrl(buf, pos), redirectStatus(buf, pos), custom(buf, pos), expiresAt(buf, pos));
+    }
+
+    static String userId(ByteBuffer buf, int pos) {
+        int length = buf.getShort(pos + USER_ID_LENGTH);
+        return length < 0 ? null : string(buf, pos + CODE + (buf.getShort(pos + CODE_LENGTH) & 0xFFFF), length, false);
+    }
+
+    static UrlMapping toMapping(ByteBuffer buf, int pos) {
+        return new UrlMapping(
+                code(buf, pos),
+                longUrl(buf, pos),
+                dateTime(buf.getLong(pos + CREATED_AT)),
+                custom(buf, pos),
+                userId(buf, pos),
+                redirectStatus(buf, pos),
+                expiresAt(buf, pos));
+    }
+
+    private static LocalDateTime dateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000), (int) Math.floorMod(epochMillis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    private static int urlStart(ByteBuffer buf, int pos) {
+        return pos + CODE + (buf.getShort(pos + CODE_LENGTH) & 0xFFFF) + Math.max(buf.getShort(pos + USER_ID_LENGTH), 0);
+    }
+
+    private static String string(ByteBuffer buf, int start, int length, boolean latin1) {
+        byte[] bytes = new byte[length];
+        buf.get(start, bytes);
+        return new String(bytes, latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+}
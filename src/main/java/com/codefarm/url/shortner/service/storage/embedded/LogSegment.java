@@ -0,0 +1,150 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One append-only log file, preallocated to its full size and mapped read-write. Records are
+ * addressed by a 64-bit offset: segment id in the high half, position in the low half. Positions
+ * start after the file header, so an offset is never 0 or negative.
+ *
+ * <p>Appends happen under the store's write lock; readers use absolute gets on {@link #buffer()}
+ * and only follow offsets published through the index after the record was written.
+ */
+final class LogSegment {
+
+    static final int HEADER_BYTES = 16;
+    static final String SUFFIX = ".log";
+
+    private static final int MAGIC = 0x55524C53;
+    private static final int VERSION = 1;
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private volatile int writePosition;
+    // Bytes of records the indexes still point at; only changed under the store's write lock.
+    private volatile long liveBytes;
+
+    private LogSegment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.writePosition = HEADER_BYTES;
+    }
+
+    static LogSegment create(Path dir, int id, int capacity) throws IOException {
+        Path path = path(dir, id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, id);
+        return new LogSegment(id, path, channel, buffer);
+    }
+
+    static LogSegment open(Path dir, int id) throws IOException {
+        Path path = path(dir, id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != id) {
+            channel.close();
+            throw new IOException("Not a url-store log segment: " + path);
+        }
+        return new LogSegment(id, path, channel, buffer);
+    }
+
+    static Path path(Path dir, int id) {
+        return dir.resolve("%08d%s".formatted(id, SUFFIX));
+    }
+
+    static int segmentId(long offset) {
+        return (int) (offset >>> 32);
+    }
+
+    static int position(long offset) {
+        return (int) offset;
+    }
+
+    int id() {
+        return id;
+    }
+
+    long offsetOf(int position) {
+        return ((long) id << 32) | position;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    void writePosition(int position) {
+        this.writePosition = position;
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    void addLiveBytes(long delta) {
+        liveBytes += delta;
+    }
+
+    long deadBytes() {
+        return writePosition - HEADER_BYTES - liveBytes;
+    }
+
+    boolean hasRoom(int length) {
+        return writePosition + length <= capacity;
+    }
+
+    /** Appends a fully encoded record and returns its position. */
+    int append(byte[] record) {
+        int position = writePosition;
+        buffer.put(position, record);
+        writePosition = position + record.length;
+        return position;
+    }
+
+    byte[] copy(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return bytes;
+    }
+
+    /** Zeroes a torn tail so a later replay stops at the same place. */
+    void clear(int from, int to) {
+        byte[] zeros = new byte[Math.min(to - from, 1 << 16)];
+        for (int i = from; i < to; i += zeros.length) {
+            buffer.put(i, zeros, 0, Math.min(zeros.length, to - i));
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
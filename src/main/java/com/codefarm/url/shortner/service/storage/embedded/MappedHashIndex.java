@@ -0,0 +1,205 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Memory-mapped open-addressing multimap from a 64-bit hash to log offsets, with linear probing.
+ * Each 16-byte slot holds {@code key, value}; a value of {@link #EMPTY} ends a probe chain and
+ * {@link #REMOVED} marks a deleted entry that still continues it. Keys are already well-mixed
+ * hashes, so the slot is taken from their low bits directly. The table lives outside the heap
+ * and is split across mappings of at most 1 GiB, so it can hold hundreds of millions of entries.
+ *
+ * <p>Single writer (the store's write lock), any number of lock-free readers: the writer stores
+ * the key, then publishes the value with release semantics; readers load the value with acquire
+ * semantics before looking at the key.
+ */
+final class MappedHashIndex implements Closeable {
+
+    static final long EMPTY = 0L;
+    static final long REMOVED = -1L;
+
+    private static final int MAGIC = 0x55524C49;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_SLOTS = 1L << CHUNK_SHIFT;
+    private static final long MIN_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.7;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] chunks;
+    private final long capacity;
+    private final long mask;
+    private long used;
+    private long live;
+
+    private MappedHashIndex(FileChannel channel, long capacity, long used, long live) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.used = used;
+        this.live = live;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        int chunkCount = (int) ((capacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT);
+        this.chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long slots = Math.min(CHUNK_SLOTS, capacity - ((long) i << CHUNK_SHIFT));
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + ((long) i << CHUNK_SHIFT) * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+    }
+
+    static MappedHashIndex create(Path path, long minCapacity) throws IOException {
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(minCapacity - 1, 1)) << 1);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedHashIndex index = new MappedHashIndex(channel, capacity, 0, 0);
+        index.header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, capacity);
+        index.writeCounts();
+        return index;
+    }
+
+    static MappedHashIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        long capacity = header.getLong(8);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || Long.bitCount(capacity) != 1
+                || channel.size() != HEADER_BYTES + capacity * SLOT_BYTES) {
+            channel.close();
+            throw new IOException("Not a url-store index: " + path);
+        }
+        return new MappedHashIndex(channel, capacity, header.getLong(16), header.getLong(24));
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long size() {
+        return live;
+    }
+
+    boolean isFull() {
+        return used + 1 > capacity * MAX_LOAD;
+    }
+
+    void put(long key, long value) {
+        for (long slot = key & mask; ; slot = (slot + 1) & mask) {
+            MappedByteBuffer chunk = chunk(slot);
+            int at = slotOffset(slot);
+            if ((long) LONGS.getAcquire(chunk, at + 8) == EMPTY) {
+                LONGS.set(chunk, at, key);
+                LONGS.setRelease(chunk, at + 8, value);
+                used++;
+                live++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Calls {@code visitor} with each value stored under {@code key} until it returns {@code false}.
+     * Returns the value the visitor stopped at, or {@link #EMPTY} if it saw them all.
+     */
+    long find(long key, LongPredicate visitor) {
+        for (long slot = key & mask; ; slot = (slot + 1) & mask) {
+            MappedByteBuffer chunk = chunk(slot);
+            int at = slotOffset(slot);
+            long value = (long) LONGS.getAcquire(chunk, at + 8);
+            if (value == EMPTY) {
+                return EMPTY;
+            }
+            if (value != REMOVED && (long) LONGS.get(chunk, at) == key && !visitor.test(value)) {
+                return value;
+            }
+        }
+    }
+
+    boolean contains(long key, long value) {
+        return find(key, v -> v != value) != EMPTY;
+    }
+
+    boolean replace(long key, long expected, long replacement) {
+        for (long slot = key & mask; ; slot = (slot + 1) & mask) {
+            MappedByteBuffer chunk = chunk(slot);
+            int at = slotOffset(slot);
+            long value = (long) LONGS.getAcquire(chunk, at + 8);
+            if (value == EMPTY) {
+                return false;
+            }
+            if (value == expected && (long) LONGS.get(chunk, at) == key) {
+                LONGS.setRelease(chunk, at + 8, replacement);
+                return true;
+            }
+        }
+    }
+
+    boolean remove(long key, long value) {
+        if (replace(key, value, REMOVED)) {
+            live--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copies the live entries into a fresh table at {@code path} (double the size if more than
+     * half full, otherwise the same size to shed removed slots) and returns it. The caller swaps
+     * it in and closes this one; readers still holding this table keep a valid mapping.
+     */
+    MappedHashIndex rebuild(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long newCapacity = live * 2 > capacity * MAX_LOAD ? capacity << 1 : capacity;
+        MappedHashIndex rebuilt = create(tmp, newCapacity);
+        for (long slot = 0; slot < capacity; slot++) {
+            MappedByteBuffer chunk = chunk(slot);
+            int at = slotOffset(slot);
+            long value = (long) LONGS.get(chunk, at + 8);
+            if (value != EMPTY && value != REMOVED) {
+                rebuilt.put((long) LONGS.get(chunk, at), value);
+            }
+        }
+        rebuilt.sync();
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return rebuilt;
+    }
+
+    void sync() {
+        writeCounts();
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeCounts() {
+        header.putLong(16, used).putLong(24, live);
+    }
+
+    private MappedByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)];
+    }
+
+    private static int slotOffset(long slot) {
+        return (int) ((slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES);
+    }
+}
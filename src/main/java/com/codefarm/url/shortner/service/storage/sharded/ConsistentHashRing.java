@@ -0,0 +1,55 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import com.codefarm.url.shortner.service.util.UrlHashing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over shards. Each shard is placed at {@code virtualNodes} points derived
+ * from its JDBC URL, so placement does not depend on the order shards are listed in. Adding a shard
+ * moves only the keys that now fall on its points. Lookups are a binary search over a sorted
+ * {@code long[]}.
+ */
+final class ConsistentHashRing {
+
+    private final long[] points;
+    private final Shard[] owners;
+    private final List<Shard> shards;
+
+    ConsistentHashRing(Collection<Shard> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        TreeMap<Long, Shard> ring = new TreeMap<>();
+        for (Shard shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(UrlHashing.longUrlHash(shard.url() + "#" + i), shard);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new Shard[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Shard> point : ring.entrySet()) {
+            points[i] = point.getKey();
+            owners[i++] = point.getValue();
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /** The first shard point at or after {@code hash}, wrapping around. */
+    Shard owner(long hash) {
+        int i = Arrays.binarySearch(points, hash);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    List<Shard> shards() {
+        return shards;
+    }
+}
@@ -0,0 +1,231 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One shard database: its own pool, its own {@code url_mappings} (rows whose short code hashes
+ * to it) and {@code url_hash_index} (long-URL hash to short code, for URLs whose hash lands here).
+ * Statements auto-commit; a shard does not take part in the caller's transaction.
+ */
+final class Shard implements AutoCloseable {
+
+    private static final String SCHEMA = """
+            CREATE TABLE IF NOT EXISTS url_mappings (
+                short_code VARCHAR(32) PRIMARY KEY,
+                long_url VARCHAR(2048) NOT NULL,
+                long_url_hash BIGINT NOT NULL,
+                created_at TIMESTAMP NOT NULL,
+                is_custom BOOLEAN NOT NULL,
+                user_id VARCHAR(255),
+                redirect_status SMALLINT,
+                expires_at TIMESTAMP);
+            CREATE INDEX IF NOT EXISTS idx_url_mappings_expires_at ON url_mappings (expires_at);
+            CREATE TABLE IF NOT EXISTS url_hash_index (
+                long_url_hash BIGINT NOT NULL,
+                short_code VARCHAR(32) NOT NULL,
+                PRIMARY KEY (long_url_hash, short_code))
+            """;
+    private static final String COLUMNS =
+            "short_code, long_url, long_url_hash, created_at, is_custom, user_id, redirect_status, expires_at";
+    private static final String INSERT = "INSERT INTO url_mappings (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IF_ABSENT = """
+            MERGE INTO url_mappings t
+            USING (VALUES (CAST(? AS VARCHAR(32)), CAST(? AS VARCHAR(2048)), CAST(? AS BIGINT), CAST(? AS TIMESTAMP),
+                           CAST(? AS BOOLEAN), CAST(? AS VARCHAR(255)), CAST(? AS SMALLINT), CAST(? AS TIMESTAMP)))
+                AS s(short_code, long_url, long_url_hash, created_at, is_custom, user_id, redirect_status, expires_at)
+            ON t.short_code = s.short_code
+            WHEN NOT MATCHED THEN INSERT (short_code, long_url, long_url_hash, created_at, is_custom, user_id, redirect_status,
+                                          expires_at)
+                VALUES (s.short_code, s.long_url, s.long_url_hash, s.created_at, s.is_custom, s.user_id, s.redirect_status,
+                        s.expires_at)
+            """;
+    private static final String INDEX = """
+            MERGE INTO url_hash_index t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(32)))) AS s(long_url_hash, short_code)
+            ON t.long_url_hash = s.long_url_hash AND t.short_code = s.short_code
+            WHEN NOT MATCHED THEN INSERT (long_url_hash, short_code) VALUES (s.long_url_hash, s.short_code)
+            """;
+    private static final RowMapper<UrlMapping> MAPPING = (rs, _) -> new UrlMapping(rs.getString(1), rs.getString(2),
+            rs.getTimestamp(4).toLocalDateTime(), rs.getBoolean(5), rs.getString(6), rs.getObject(7, Integer.class),
+            rs.getObject(8, LocalDateTime.class));
+    private static final ParameterizedPreparedStatementSetter<UrlMapping> MAPPING_PARAMETERS = (ps, m) -> {
+        ps.setString(1, m.getShortCode());
+        ps.setString(2, m.getLongUrl());
+        ps.setLong(3, m.getLongUrlHash());
+        ps.setTimestamp(4, Timestamp.valueOf(m.getCreatedAt()));
+        ps.setBoolean(5, m.isCustom());
+        ps.setString(6, m.getUserId());
+        ps.setObject(7, m.getRedirectStatus(), Types.SMALLINT);
+        ps.setObject(8, m.getExpiresAt() == null ? null : Timestamp.valueOf(m.getExpiresAt()), Types.TIMESTAMP);
+    };
+
+    record IndexEntry(long urlHash, String shortCode) {
+    }
+
+    private final String url;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate named;
+
+    Shard(String url, HikariDataSource dataSource) {
+        this.url = url;
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    String url() {
+        return url;
+    }
+
+    String name() {
+        return dataSource.getPoolName();
+    }
+
+    /** Publishes the Hikari pool meters, tagged {@code pool=shard-N}. */
+    void bindPoolMetrics(Object meterRegistry) {
+        if (dataSource.getMetricRegistry() == null) {
+            dataSource.setMetricRegistry(meterRegistry);
+        }
+    }
+
+    void createSchema() {
+        for (String statement : SCHEMA.split(";")) {
+            jdbc.execute(statement);
+        }
+    }
+
+    RedirectTarget findRedirect(String shortCode) {
+        return jdbc.query("SELECT long_url, redirect_status, is_custom, expires_at FROM url_mappings WHERE short_code = ?",
+                rs -> rs.next()
+                        ? new RedirectTarget(rs.getString(1), rs.getObject(2, Integer.class), rs.getBoolean(3),
+                                rs.getObject(4, LocalDateTime.class))
+                        : null,
+                shortCode);
+    }
+
+    boolean insert(UrlMapping mapping) {
+        try {
+            jdbc.update(INSERT, ps -> MAPPING_PARAMETERS.setValues(ps, mapping));
+            return true;
+        } catch (DuplicateKeyException _) {
+            return false;
+        }
+    }
+
+    void insertAll(List<UrlMapping> mappings) {
+        jdbc.batchUpdate(INSERT, mappings, mappings.size(), MAPPING_PARAMETERS);
+    }
+
+    /** Copies mappings in, keeping any row already present (rebalance). */
+    void insertAllIfAbsent(List<UrlMapping> mappings) {
+        jdbc.batchUpdate(INSERT_IF_ABSENT, mappings, mappings.size(), MAPPING_PARAMETERS);
+    }
+
+    void index(List<IndexEntry> entries) {
+        jdbc.batchUpdate(INDEX, entries, entries.size(), (ps, e) -> {
+            ps.setLong(1, e.urlHash());
+            ps.setString(2, e.shortCode());
+        });
+    }
+
+    void unindex(List<IndexEntry> entries) {
+        jdbc.batchUpdate("DELETE FROM url_hash_index WHERE long_url_hash = ? AND short_code = ?", entries, entries.size(),
+                (ps, e) -> {
+                    ps.setLong(1, e.urlHash());
+                    ps.setString(2, e.shortCode());
+                });
+    }
+
+    /** Deletes each code and returns, per code in order, whether a row was removed. */
+    boolean[] delete(List<String> shortCodes) {
+        int[][] counts = jdbc.batchUpdate("DELETE FROM url_mappings WHERE short_code = ?", shortCodes, shortCodes.size(),
+                (ps, code) -> ps.setString(1, code));
+        boolean[] deleted = new boolean[shortCodes.size()];
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                deleted[i++] = count != 0;
+            }
+        }
+        return deleted;
+    }
+
+    List<UrlMapping> findByCodes(Collection<String> shortCodes) {
+        return named.query("SELECT " + COLUMNS + " FROM url_mappings WHERE short_code IN (:codes)",
+                new MapSqlParameterSource("codes", shortCodes), MAPPING);
+    }
+
+    List<IndexEntry> findIndexEntries(Collection<Long> urlHashes) {
+        return named.query("SELECT long_url_hash, short_code FROM url_hash_index WHERE long_url_hash IN (:hashes)",
+                new MapSqlParameterSource("hashes", urlHashes), (rs, _) -> new IndexEntry(rs.getLong(1), rs.getString(2)));
+    }
+
+    Set<String> findExistingShortCodes(Collection<String> shortCodes) {
+        return new HashSet<>(named.queryForList("SELECT short_code FROM url_mappings WHERE short_code IN (:codes)",
+                new MapSqlParameterSource("codes", shortCodes), String.class));
+    }
+
+    List<String> shortCodesAfter(String after, int limit) {
+        return jdbc.queryForList("SELECT short_code FROM url_mappings WHERE short_code > ? ORDER BY short_code LIMIT ?",
+                String.class, after, limit);
+    }
+
+    List<UrlMapping> mappingsAfter(String after, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM url_mappings WHERE short_code > ? ORDER BY short_code LIMIT ?",
+                MAPPING, after, limit);
+    }
+
+    List<UrlMapping> expiredAfter(LocalDateTime now, String after, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM url_mappings WHERE expires_at <= ? AND short_code > ?"
+                        + " ORDER BY short_code LIMIT ?",
+                MAPPING, Timestamp.valueOf(now), after, limit);
+    }
+
+    List<IndexEntry> indexEntriesAfter(IndexEntry after, int limit) {
+        return jdbc.query("""
+                        SELECT long_url_hash, short_code FROM url_hash_index
+                        WHERE long_url_hash > ? OR (long_url_hash = ? AND short_code > ?)
+                        ORDER BY long_url_hash, short_code LIMIT ?""",
+                (rs, _) -> new IndexEntry(rs.getLong(1), rs.getString(2)),
+                after.urlHash(), after.urlHash(), after.shortCode(), limit);
+    }
+
+    long count() {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM url_mappings", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    Map<String, Long> countByUser() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbc.query("SELECT user_id, COUNT(*) FROM url_mappings WHERE user_id IS NOT NULL GROUP BY user_id",
+                (ResultSet rs) -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.sharded.Shard.IndexEntry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves every row whose owner differs between two rings, in keyset-ordered batches, while the
+ * store keeps serving. Per batch and target shard, rows are copied first (keeping any row already
+ * there) and deleted from the source second, so a reader that checks the old owner before the new
+ * one always finds a row that exists.
+ *
+ * <p>If a source delete removes nothing, the application deleted that mapping after the batch was
+ * read; the copy is then removed too, so the delete is not undone.
+ */
+final class ShardRebalancer {
+
+    private final ConsistentHashRing from;
+    private final ConsistentHashRing to;
+    private final int batchSize;
+    private final LongAdder moved;
+
+    ShardRebalancer(ConsistentHashRing from, ConsistentHashRing to, int batchSize, LongAdder moved) {
+        this.from = from;
+        this.to = to;
+        this.batchSize = batchSize;
+        this.moved = moved;
+    }
+
+    /** Returns the number of rows moved. */
+    long run() {
+        long total = 0;
+        for (Shard source : from.shards()) {
+            total += moveMappings(source);
+            total += moveIndexEntries(source);
+        }
+        return total;
+    }
+
+    private long moveMappings(Shard source) {
+        long count = 0;
+        String after = "";
+        List<UrlMapping> batch;
+        do {
+            batch = source.mappingsAfter(after, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            after = batch.getLast().getShortCode();
+            Map<Shard, List<UrlMapping>> byTarget = new LinkedHashMap<>();
+            for (UrlMapping mapping : batch) {
+                Shard target = to.owner(ShardedUrlStore.codeHash(mapping.getShortCode()));
+                if (target != source) {
+                    byTarget.computeIfAbsent(target, _ -> new ArrayList<>()).add(mapping);
+                }
+            }
+            for (Map.Entry<Shard, List<UrlMapping>> group : byTarget.entrySet()) {
+                Shard target = group.getKey();
+                List<UrlMapping> rows = group.getValue();
+                target.insertAllIfAbsent(rows);
+                List<String> codes = rows.stream().map(UrlMapping::getShortCode).toList();
+                boolean[] deleted = source.delete(codes);
+                List<String> deletedMeanwhile = new ArrayList<>();
+                for (int i = 0; i < deleted.length; i++) {
+                    if (!deleted[i]) {
+                        deletedMeanwhile.add(codes.get(i));
+                    }
+                }
+                if (!deletedMeanwhile.isEmpty()) {
+                    target.delete(deletedMeanwhile);
+                }
+                count += rows.size();
+                moved.add(rows.size());
+            }
+        } while (batch.size() == batchSize);
+        return count;
+    }
+
+    private long moveIndexEntries(Shard source) {
+        long count = 0;
+        IndexEntry after = new IndexEntry(Long.MIN_VALUE, "");
+        List<IndexEntry> batch;
+        do {
+            batch = source.indexEntriesAfter(after, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            after = batch.getLast();
+            Map<Shard, List<IndexEntry>> byTarget = new LinkedHashMap<>();
+            for (IndexEntry entry : batch) {
+                Shard target = to.owner(entry.urlHash());
+                if (target != source) {
+                    byTarget.computeIfAbsent(target, _ -> new ArrayList<>()).add(entry);
+                }
+            }
+            // Index entries only point at candidates; a stale one is filtered out when its mapping
+            // is fetched, so no delete race needs handling here.
+            for (Map.Entry<Shard, List<IndexEntry>> group : byTarget.entrySet()) {
+                group.getKey().index(group.getValue());
+                source.unindex(group.getValue());
+                count += group.getValue().size();
+                moved.add(group.getValue().size());
+            }
+        } while (batch.size() == batchSize);
+        return count;
+    }
+}
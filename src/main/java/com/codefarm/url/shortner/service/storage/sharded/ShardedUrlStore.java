@@ -0,0 +1,361 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.storage.sharded.Shard.IndexEntry;
+import com.codefarm.url.shortner.service.util.UrlHashing;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link UrlStore} that spreads {@code url_mappings} over several databases
+ * ({@code storage.sharded.urls}) with a consistent-hash ring.
+ * <ul>
+ *   <li>A mapping lives on the shard that owns the hash of its short code. Generated codes and
+ *       custom aliases follow the same rule, so "is this code taken" is one primary-key lookup
+ *       on one shard, and an alias conflict is a duplicate key there.</li>
+ *   <li>The long-URL hash index ({@code url_hash_index}) lives on the shard that owns the URL
+ *       hash, so dedup for a URL asks one shard for candidate codes, then fetches those codes
+ *       from their owners.</li>
+ * </ul>
+ * Shards are written with auto-commit statements, outside any application transaction: the
+ * mapping first, then its index row. A crash between the two leaves a mapping that dedup cannot
+ * find, which only costs a duplicate short code for that URL later.
+ *
+ * <p>{@link #addShard} rebalances online. Routing switches to the new ring at once and keeps the
+ * old one until every moved row is on its new owner. Meanwhile reads try the old owner first, then
+ * the new one, and writes check the old owner before inserting on the new one; see
+ * {@link ShardRebalancer}.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.engine", havingValue = "sharded")
+public class ShardedUrlStore implements UrlStore, MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUrlStore.class);
+
+    /** The ring in use and, while a rebalance runs, the ring it replaced. */
+    private record Routing(ConsistentHashRing current, ConsistentHashRing previous) {
+    }
+
+    private final List<String> urls;
+    private final String username;
+    private final String password;
+    private final int virtualNodes;
+    private final int maxPoolSize;
+    private final int rebalanceBatchSize;
+
+    private final LongAdder moved = new LongAdder();
+    private final ExecutorService rebalancer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("shard-rebalance").daemon().factory());
+    private volatile Routing routing;
+    private volatile MeterRegistry meterRegistry;
+
+    public ShardedUrlStore(
+            @Value("${storage.sharded.urls}") List<String> urls,
+            @Value("${storage.sharded.username:sa}") String username,
+            @Value("${storage.sharded.password:}") String password,
+            @Value("${storage.sharded.virtual-nodes:128}") int virtualNodes,
+            @Value("${storage.sharded.max-pool-size:10}") int maxPoolSize,
+            @Value("${storage.sharded.rebalance.batch-size:1000}") int rebalanceBatchSize) {
+        this.urls = urls.stream().map(String::trim).toList();
+        this.username = username;
+        this.password = password;
+        this.virtualNodes = virtualNodes;
+        this.maxPoolSize = maxPoolSize;
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+
+    @PostConstruct
+    public void open() {
+        List<Shard> shards = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            shards.add(connect(url, shards.size() + 1));
+        }
+        routing = new Routing(new ConsistentHashRing(shards, virtualNodes), null);
+        log.info("Sharded url store over {} shards", shards.size());
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        rebalancer.shutdownNow();
+        Routing r = routing;
+        if (r != null) {
+            r.current().shards().forEach(Shard::close);
+        }
+    }
+
+    /**
+     * Adds a shard and moves the rows it now owns onto it in the background. The future completes
+     * with the number of rows moved; only one rebalance runs at a time.
+     */
+    public synchronized CompletableFuture<Long> addShard(String url) {
+        Routing r = routing;
+        if (r.previous() != null) {
+            throw new IllegalStateException("A rebalance is already running");
+        }
+        if (r.current().shards().stream().anyMatch(s -> s.url().equals(url.trim()))) {
+            throw new IllegalArgumentException("Already a shard: " + url);
+        }
+        Shard added = connect(url.trim(), r.current().shards().size() + 1);
+        List<Shard> shards = new ArrayList<>(r.current().shards());
+        shards.add(added);
+        ConsistentHashRing next = new ConsistentHashRing(shards, virtualNodes);
+        routing = new Routing(next, r.current());
+        log.info("Added shard {}; rebalancing {} shards", added.name(), shards.size());
+        ShardRebalancer task = new ShardRebalancer(r.current(), next, rebalanceBatchSize, moved);
+        return CompletableFuture.supplyAsync(task::run, rebalancer).whenComplete((rows, ex) -> {
+            if (ex == null) {
+                routing = new Routing(next, null);
+                log.info("Rebalance onto {} finished; {} rows moved", added.name(), rows);
+            } else {
+                // Keep both rings: reads and writes stay correct, and the rows left behind are still found.
+                log.error("Rebalance onto {} failed; routing stays in migration mode", added.name(), ex);
+            }
+        });
+    }
+
+    public List<String> shardNames() {
+        return routing.current().shards().stream().map(Shard::name).toList();
+    }
+
+    public boolean isRebalancing() {
+        return routing.previous() != null;
+    }
+
+    /** Row count per shard name. */
+    public Map<String, Long> shardSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        routing.current().shards().forEach(s -> sizes.put(s.name(), s.count()));
+        return sizes;
+    }
+
+    @Override
+    public RedirectTarget findRedirect(String shortCode) {
+        Routing r = routing;
+        long hash = codeHash(shortCode);
+        Shard owner = r.current().owner(hash);
+        Shard previous = r.previous() == null ? owner : r.previous().owner(hash);
+        if (previous != owner) {
+            // Old owner first: the rebalancer copies before it deletes, so a row missing there is
+            // already on the new owner (or never existed).
+            RedirectTarget target = previous.findRedirect(shortCode);
+            if (target != null) {
+                return target;
+            }
+        }
+        return owner.findRedirect(shortCode);
+    }
+
+    @Override
+    public boolean putIfAbsent(UrlMapping mapping) {
+        Routing r = routing;
+        long hash = codeHash(mapping.getShortCode());
+        Shard owner = r.current().owner(hash);
+        if (r.previous() != null) {
+            Shard previous = r.previous().owner(hash);
+            if (previous != owner && previous.findRedirect(mapping.getShortCode()) != null) {
+                return false;
+            }
+        }
+        if (!owner.insert(mapping)) {
+            return false;
+        }
+        r.current().owner(mapping.getLongUrlHash())
+                .index(List.of(new IndexEntry(mapping.getLongUrlHash(), mapping.getShortCode())));
+        return true;
+    }
+
+    @Override
+    public void putAll(Collection<UrlMapping> mappings) {
+        ConsistentHashRing ring = routing.current();
+        groupBy(mappings, m -> ring.owner(codeHash(m.getShortCode()))).forEach(Shard::insertAll);
+        groupBy(mappings, m -> ring.owner(m.getLongUrlHash())).forEach((shard, group) ->
+                shard.index(group.stream().map(m -> new IndexEntry(m.getLongUrlHash(), m.getShortCode())).toList()));
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        Routing r = routing;
+        long hash = codeHash(shortCode);
+        Set<Shard> owners = new LinkedHashSet<>();
+        if (r.previous() != null) {
+            owners.add(r.previous().owner(hash));
+        }
+        owners.add(r.current().owner(hash));
+        boolean deleted = false;
+        for (Shard shard : owners) {
+            for (UrlMapping mapping : shard.findByCodes(List.of(shortCode))) {
+                deleted |= shard.delete(List.of(shortCode))[0];
+                List<IndexEntry> entry = List.of(new IndexEntry(mapping.getLongUrlHash(), shortCode));
+                indexOwners(r, mapping.getLongUrlHash()).forEach(s -> s.unindex(entry));
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHash(long urlHash) {
+        return findByUrlHashes(List.of(urlHash));
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHashes(Collection<Long> urlHashes) {
+        Routing r = routing;
+        Map<Shard, List<Long>> byIndexShard = new LinkedHashMap<>();
+        for (long hash : new HashSet<>(urlHashes)) {
+            for (Shard shard : indexOwners(r, hash)) {
+                byIndexShard.computeIfAbsent(shard, _ -> new ArrayList<>()).add(hash);
+            }
+        }
+        Set<String> codes = new HashSet<>();
+        byIndexShard.forEach((shard, hashes) -> shard.findIndexEntries(hashes).forEach(e -> codes.add(e.shortCode())));
+        if (codes.isEmpty()) {
+            return List.of();
+        }
+        Map<String, UrlMapping> found = new HashMap<>();
+        codesByOwner(r, codes).forEach((shard, group) ->
+                shard.findByCodes(group).forEach(m -> found.putIfAbsent(m.getShortCode(), m)));
+        return new ArrayList<>(found.values());
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        return findRedirect(shortCode) != null;
+    }
+
+    @Override
+    public Set<String> findExistingShortCodes(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> existing = new HashSet<>();
+        codesByOwner(routing, shortCodes).forEach((shard, group) -> existing.addAll(shard.findExistingShortCodes(group)));
+        return existing;
+    }
+
+    /** Streams each shard in turn; a code being moved by a rebalance may be reported twice. */
+    @Override
+    public void scanShortCodes(int batchSize, Consumer<List<String>> batches) {
+        for (Shard shard : routing.current().shards()) {
+            String after = "";
+            List<String> batch;
+            do {
+                batch = shard.shortCodesAfter(after, batchSize);
+                if (!batch.isEmpty()) {
+                    batches.accept(batch);
+                    after = batch.getLast();
+                }
+            } while (batch.size() == batchSize);
+        }
+    }
+
+    @Override
+    public void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches) {
+        for (Shard shard : routing.current().shards()) {
+            String after = "";
+            List<UrlMapping> batch;
+            do {
+                batch = shard.expiredAfter(now, after, batchSize);
+                if (!batch.isEmpty()) {
+                    after = batch.getLast().getShortCode();
+                    batches.accept(batch);
+                }
+            } while (batch.size() == batchSize);
+        }
+    }
+
+    @Override
+    public Map<String, Long> countByUser() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Shard shard : routing.current().shards()) {
+            shard.countByUser().forEach((userId, count) -> counts.merge(userId, count, Long::sum));
+        }
+        return counts;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        routing.current().shards().forEach(s -> s.bindPoolMetrics(registry));
+        Gauge.builder("storage.sharded.shards", this, s -> s.routing.current().shards().size())
+                .register(registry);
+        Gauge.builder("storage.sharded.rebalancing", this, s -> s.isRebalancing() ? 1 : 0)
+                .description("1 while rows are being moved onto a newly added shard")
+                .register(registry);
+        FunctionCounter.builder("storage.sharded.rebalance.moved", moved, LongAdder::sum)
+                .description("Rows (mappings and URL-hash index entries) moved to a new owner by rebalancing")
+                .register(registry);
+    }
+
+    static long codeHash(String shortCode) {
+        return UrlHashing.longUrlHash(shortCode);
+    }
+
+    private Shard connect(String url, int number) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("shard-" + number);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(maxPoolSize);
+        Shard shard = new Shard(url, pool);
+        shard.createSchema();
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            shard.bindPoolMetrics(registry);
+        }
+        return shard;
+    }
+
+    private static Collection<Shard> indexOwners(Routing r, long urlHash) {
+        Shard owner = r.current().owner(urlHash);
+        Shard previous = r.previous() == null ? owner : r.previous().owner(urlHash);
+        return previous == owner ? List.of(owner) : List.of(previous, owner);
+    }
+
+    private static Map<Shard, List<String>> codesByOwner(Routing r, Collection<String> shortCodes) {
+        Map<Shard, List<String>> byShard = groupBy(shortCodes, code -> r.current().owner(codeHash(code)));
+        if (r.previous() != null) {
+            groupBy(shortCodes, code -> r.previous().owner(codeHash(code))).forEach((shard, group) ->
+                    byShard.computeIfAbsent(shard, _ -> new ArrayList<>()).addAll(group));
+        }
+        return byShard;
+    }
+
+    private static <T> Map<Shard, List<T>> groupBy(Collection<T> items, Function<T, Shard> owner) {
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(owner.apply(item), _ -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,52 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: GET lists shards with their row counts; POST {@code {"name": "shard5"}}
+ * adds the standby shard configured as {@code storage.sharded.standby.shard5} and starts moving
+ * rows onto it. Progress shows in {@code storage.sharded.rebalance.moved} and in
+ * {@code rebalancing} here.
+ *
+ * <p>The POST never takes a JDBC URL: a URL can carry driver options that run code on connect
+ * (H2's {@code INIT=RUNSCRIPT}, for one), so only URLs from the configuration are opened. The
+ * endpoint is read-only unless {@code management.endpoint.shards.access=unrestricted}.
+ */
+@Component
+@Endpoint(id = "shards", defaultAccess = Access.READ_ONLY)
+@ConditionalOnProperty(name = "storage.engine", havingValue = "sharded")
+public class ShardsEndpoint {
+
+    static final String STANDBY_PREFIX = "storage.sharded.standby.";
+
+    private final ShardedUrlStore store;
+    private final Environment environment;
+
+    public ShardsEndpoint(ShardedUrlStore store, Environment environment) {
+        this.store = store;
+        this.environment = environment;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        return Map.of("rebalancing", store.isRebalancing(), "rows", store.shardSizes());
+    }
+
+    @WriteOperation
+    public Map<String, Object> addShard(String name) {
+        String url = environment.getProperty(STANDBY_PREFIX + name);
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("No standby shard configured as " + STANDBY_PREFIX + name);
+        }
+        store.addShard(url);
+        return shards();
+    }
+}
@@ -0,0 +1,94 @@
+package com.codefarm.url.shortner.service.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.DATACENTER_ID_SHIFT;
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.EPOCH_START;
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.MACHINE_ID_SHIFT;
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.SEQUENCE_BITS;
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.TIMESTAMP_SHIFT;
+
+/**
+ * Lock-free variant of {@link SnowflakeIdGenerator} with the same bit layout. The last issued
+ * (timestamp, sequence) pair is packed into one {@link AtomicLong} and advanced with CAS.
+ * <p>
+ * If the wall clock steps back by no more than {@code snowflake.max-clock-backward-ms}, ids keep
+ * coming from the logical clock (last timestamp, next sequence, rolling into the next
+ * millisecond on overflow) instead of failing. Larger steps still throw. When the sequence
+ * for the current millisecond is used up, callers spin until the clock moves on; each such
+ * wait is counted once.
+ */
+@Component
+@ConditionalOnProperty(name = "snowflake.generator", havingValue = "atomic", matchIfMissing = true)
+public class AtomicSnowflakeIdGenerator implements IdGenerator, MeterBinder {
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    private final long maxBackwardMillis;
+    // (timestamp - EPOCH_START) << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+    private final LongAdder exhaustionWaits = new LongAdder();
+    private final LongAdder clockBackwardBorrows = new LongAdder();
+
+    public AtomicSnowflakeIdGenerator(
+            @Value("${snowflake.datacenter.id:1}") long datacenterId,
+            @Value("${snowflake.machine.id:1}") long machineId,
+            @Value("${snowflake.max-clock-backward-ms:50}") long maxBackwardMillis) {
+        SnowflakeIdGenerator.validate(datacenterId, machineId);
+        this.nodeBits = (datacenterId << DATACENTER_ID_SHIFT) | (machineId << MACHINE_ID_SHIFT);
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    @Override
+    public long nextId() {
+        for (;;) {
+            long current = state.get();
+            long now = currentTimeMillis() - EPOCH_START;
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if (lastTimestamp - now > maxBackwardMillis) {
+                throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - now) + " ms");
+            } else if (lastTimestamp == now && (current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                exhaustionWaits.increment();
+                while (currentTimeMillis() - EPOCH_START <= lastTimestamp) {
+                    Thread.onSpinWait();
+                }
+                continue;
+            } else {
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                if (lastTimestamp > now) {
+                    clockBackwardBorrows.increment();
+                }
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // Overridden by tests to step the clock
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("snowflake.sequence.exhaustion.waits", exhaustionWaits, LongAdder::sum)
+                .description("Waits for the next millisecond after the sequence ran out")
+                .register(registry);
+        FunctionCounter.builder("snowflake.clock.backward.borrows", clockBackwardBorrows, LongAdder::sum)
+                .description("Ids issued from the logical clock while the wall clock was behind it")
+                .register(registry);
+    }
+}
@@ -2,10 +2,39 @@ package com.codefarm.url.shortner.service.util;
 
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 @Component
 public class Base62Encoder {
 
     private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    // Same digits in ASCII order, so that fixed-width codes sort as Strings in numeric order
+    private static final String PADDED_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /** Longest encoding of a non-negative {@code long} (62^11 > 2^63). */
+    public static final int MAX_LENGTH = 11;
+
+    private static final byte[] DIGITS = ALPHABET.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PADDED_DIGITS = PADDED_ALPHABET.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+    private static final byte[] PADDED_DECODE = new byte[128];
+    // POWERS[n] = 62^n; a number needs n digits when POWERS[n-1] <= number < POWERS[n]
+    private static final long[] POWERS = new long[MAX_LENGTH];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        Arrays.fill(PADDED_DECODE, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            DECODE[DIGITS[i]] = (byte) i;
+            PADDED_DECODE[PADDED_DIGITS[i]] = (byte) i;
+        }
+        POWERS[0] = 1;
+        for (int i = 1; i < MAX_LENGTH; i++) {
+            POWERS[i] = POWERS[i - 1] * 62;
+        }
+    }
 
     /**
      * Short answer: Variable-length. With your current Snowflake + Base62 approach it’s not fixed.
@@ -22,25 +51,104 @@ public class Base62Encoder {
      * @return
      */
     public String toBase62(long number) {
-        if (number == 0) return "0";
-        StringBuilder builder = new StringBuilder();
-        while (number > 0) {
-            int idx = (int) (number % 62);
-            builder.append(ALPHABET.charAt(idx));
-            number = number / 62;
+        byte[] buf = new byte[MAX_LENGTH];
+        int length = encode(number, buf, 0);
+        return new String(buf, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Fixed-width ({@value #MAX_LENGTH} chars, zero-padded) encoding with the digits in ASCII order
+     * ({@code 0-9A-Za-z}), so {@code String} (and byte-wise) order is numeric order, and for
+     * Snowflake ids creation-time order. The digits differ from {@link #toBase62}'s, so a padded
+     * code decodes with {@link #fromBase62Padded}, not {@link #fromBase62}.
+     */
+    public String toBase62Padded(long number) {
+        byte[] buf = new byte[MAX_LENGTH];
+        encodePadded(number, buf, 0);
+        return new String(buf, 0, MAX_LENGTH, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Writes the encoding of {@code number} at {@code dst[offset]} and returns its length. */
+    public int encode(long number, byte[] dst, int offset) {
+        int length = length(number);
+        fill(number, DIGITS, dst, offset, length);
+        return length;
+    }
+
+    public int encode(long number, char[] dst, int offset) {
+        int length = length(number);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dst[i] = (char) DIGITS[(int) (number % 62)];
+            number /= 62;
+        }
+        return length;
+    }
+
+    /** Writes at the buffer's position and advances it; returns the number of bytes written. */
+    public int encode(long number, ByteBuffer dst) {
+        int length = length(number);
+        int start = dst.position();
+        for (int i = start + length - 1; i >= start; i--) {
+            dst.put(i, DIGITS[(int) (number % 62)]);
+            number /= 62;
         }
-        return builder.reverse().toString();
+        dst.position(start + length);
+        return length;
     }
 
-    public long fromBase62(String code) {
+    public void encodePadded(long number, byte[] dst, int offset) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Cannot encode negative number: " + number);
+        }
+        fill(number, PADDED_DIGITS, dst, offset, MAX_LENGTH);
+    }
+
+    public long fromBase62(CharSequence code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid base62 length: " + length);
+        }
+        return decode(code, DECODE);
+    }
+
+    /** Inverse of {@link #toBase62Padded}: exactly {@value #MAX_LENGTH} digits of {@code 0-9A-Za-z}. */
+    public long fromBase62Padded(CharSequence code) {
+        if (code.length() != MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid padded base62 length: " + code.length());
+        }
+        return decode(code, PADDED_DECODE);
+    }
+
+    private static long decode(CharSequence code, byte[] table) {
+        int length = code.length();
         long result = 0;
-        for (int i = 0; i < code.length(); i++) {
-            int val = ALPHABET.indexOf(code.charAt(i));
-            if (val < 0) throw new IllegalArgumentException("Invalid base62 character: " + code.charAt(i));
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            int val = c < 128 ? table[c] : -1;
+            if (val < 0) throw new IllegalArgumentException("Invalid base62 character: " + c);
+            if (length == MAX_LENGTH && result > (Long.MAX_VALUE - val) / 62) {
+                throw new IllegalArgumentException("Base62 value out of range: " + code);
+            }
             result = result * 62 + val;
         }
         return result;
     }
-}
 
+    private static int length(long number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Cannot encode negative number: " + number);
+        }
+        int length = 1;
+        while (length < MAX_LENGTH && number >= POWERS[length]) {
+            length++;
+        }
+        return length;
+    }
 
+    private static void fill(long number, byte[] digits, byte[] dst, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dst[i] = digits[(int) (number % 62)];
+            number /= 62;
+        }
+    }
+}
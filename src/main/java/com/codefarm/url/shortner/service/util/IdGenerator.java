@@ -0,0 +1,5 @@
+package com.codefarm.url.shortner.service.util;
+
+public interface IdGenerator {
+    long nextId();
+}
@@ -1,42 +1,55 @@
 package com.codefarm.url.shortner.service.util;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.LongAdder;
+
 @Component
-public class SnowflakeIdGenerator {
+@ConditionalOnProperty(name = "snowflake.generator", havingValue = "synchronized")
+public class SnowflakeIdGenerator implements IdGenerator, MeterBinder {
 
-    private static final long EPOCH_START = 1609459200000L; // 2021-01-01
+    static final long EPOCH_START = 1609459200000L; // 2021-01-01
 
-    private static final long SEQUENCE_BITS = 12L;
-    private static final long MACHINE_ID_BITS = 5L;
-    private static final long DATACENTER_ID_BITS = 5L;
+    static final long SEQUENCE_BITS = 12L;
+    static final long MACHINE_ID_BITS = 5L;
+    static final long DATACENTER_ID_BITS = 5L;
 
-    private static final long MAX_MACHINE_ID = (1L << MACHINE_ID_BITS) - 1;
-    private static final long MAX_DATACENTER_ID = (1L << DATACENTER_ID_BITS) - 1;
+    static final long MAX_MACHINE_ID = (1L << MACHINE_ID_BITS) - 1;
+    static final long MAX_DATACENTER_ID = (1L << DATACENTER_ID_BITS) - 1;
 
-    private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
-    private static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
-    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS + DATACENTER_ID_BITS;
+    static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
+    static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
+    static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS + DATACENTER_ID_BITS;
 
     private final long datacenterId;
     private final long machineId;
     private long sequence = 0L;
     private long lastTimestamp = -1L;
+    private final LongAdder exhaustionWaits = new LongAdder();
 
     public SnowflakeIdGenerator(
             @Value("${snowflake.datacenter.id:1}") long datacenterId,
             @Value("${snowflake.machine.id:1}") long machineId) {
+        validate(datacenterId, machineId);
+        this.datacenterId = datacenterId;
+        this.machineId = machineId;
+    }
+
+    static void validate(long datacenterId, long machineId) {
         if (machineId > MAX_MACHINE_ID || machineId < 0) {
             throw new IllegalArgumentException("Machine ID out of range");
         }
         if (datacenterId > MAX_DATACENTER_ID || datacenterId < 0) {
             throw new IllegalArgumentException("Datacenter ID out of range");
         }
-        this.datacenterId = datacenterId;
-        this.machineId = machineId;
     }
 
+    @Override
     public synchronized long nextId() {
         long timestamp = System.currentTimeMillis();
         if (timestamp < lastTimestamp) {
@@ -58,12 +71,20 @@ public class SnowflakeIdGenerator {
     }
 
     private long waitUntilNextMillis(long lastTimestamp) {
+        exhaustionWaits.increment();
         long ts = System.currentTimeMillis();
         while (ts <= lastTimestamp) {
             ts = System.currentTimeMillis();
         }
         return ts;
     }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("snowflake.sequence.exhaustion.waits", exhaustionWaits, LongAdder::sum)
+                .description("Waits for the next millisecond after the sequence ran out")
+                .register(registry);
+    }
 }
 
 
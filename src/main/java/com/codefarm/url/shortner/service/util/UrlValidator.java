@@ -0,0 +1,281 @@
+package com.codefarm.url.shortner.service.util;
+
+/**
+ * Hand-written single-pass checks for aliases and long URLs, replacing {@code String.matches}
+ * (which compiles its regex on every call) and {@code java.net.URI} parsing (which reports
+ * failure by throwing). Neither method allocates on the reject path.
+ */
+public final class UrlValidator {
+
+    public static final int MAX_ALIAS_LENGTH = 32;
+
+    // Characters allowed in each component besides ASCII alphanumerics, %XX escapes and visible
+    // non-ASCII characters (RFC 2396 unreserved marks plus the component's reserved characters)
+    private static final String MARKS = "-_.!~*'()";
+    private static final String USER_INFO_PUNCTUATION = MARKS + ";:&=+$,";
+    private static final String PATH_PUNCTUATION = MARKS + ";/:@&=+$,";
+    private static final String QUERY_PUNCTUATION = MARKS + ";/?:@&=+$,[]";
+
+    private UrlValidator() {
+    }
+
+    /** Equivalent to {@code ^[a-zA-Z0-9_-]{1,32}$}. */
+    public static boolean isValidAlias(String alias) {
+        int length = alias.length();
+        if (length == 0 || length > MAX_ALIAS_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = alias.charAt(i);
+            if (!isAsciiAlphanumeric(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the host of an absolute {@code scheme://authority...} URL, or {@code null} where
+     * {@code new URI(url).getHost()} would throw or return {@code null}. Each component is checked
+     * as {@code java.net.URI} checks it: scheme, user info, host (DNS name, IPv4 address or
+     * bracketed IPv6 literal with optional scope id), numeric port, path, query and fragment.
+     */
+    public static String host(String url) {
+        int length = url.length();
+        int schemeEnd = url.indexOf(':');
+        if (schemeEnd <= 0 || !isScheme(url, schemeEnd) || !url.startsWith("//", schemeEnd + 1)) {
+            return null;
+        }
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        while (authorityEnd < length && "/?#".indexOf(url.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        if (!isPathQueryFragment(url, authorityEnd, length)) {
+            return null;
+        }
+
+        int hostStart = authorityStart;
+        int userInfoEnd = url.indexOf('@', authorityStart);
+        if (userInfoEnd >= 0 && userInfoEnd < authorityEnd) {
+            if (!hasOnly(url, authorityStart, userInfoEnd, USER_INFO_PUNCTUATION)) {
+                return null;
+            }
+            hostStart = userInfoEnd + 1;
+        }
+        int hostEnd;
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            int close = url.indexOf(']', hostStart);
+            if (close < 0 || close >= authorityEnd || !isIpv6Reference(url, hostStart + 1, close)) {
+                return null;
+            }
+            hostEnd = close + 1;
+        } else {
+            hostEnd = hostStart;
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                hostEnd++;
+            }
+            if (!isHostname(url, hostStart, hostEnd)) {
+                return null;
+            }
+        }
+        if (hostEnd < authorityEnd && (url.charAt(hostEnd) != ':' || !isPort(url, hostEnd + 1, authorityEnd))) {
+            return null;
+        }
+        return url.substring(hostStart, hostEnd);
+    }
+
+    private static boolean isScheme(String s, int end) {
+        if (!isAsciiLetter(s.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (!isAsciiAlphanumeric(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Path up to '?' or '#', then an optional query up to '#', then an optional fragment, which
+    // may not contain another '#'.
+    private static boolean isPathQueryFragment(String s, int start, int end) {
+        int fragment = s.indexOf('#', start);
+        int beforeFragment = fragment < 0 ? end : fragment;
+        int query = s.indexOf('?', start);
+        int pathEnd = query >= 0 && query < beforeFragment ? query : beforeFragment;
+        if (!hasOnly(s, start, pathEnd, PATH_PUNCTUATION)) {
+            return false;
+        }
+        if (pathEnd < beforeFragment && !hasOnly(s, pathEnd + 1, beforeFragment, QUERY_PUNCTUATION)) {
+            return false;
+        }
+        return fragment < 0 || hasOnly(s, fragment + 1, end, QUERY_PUNCTUATION);
+    }
+
+    private static boolean hasOnly(String s, int start, int end, String punctuation) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (isAsciiAlphanumeric(c) || punctuation.indexOf(c) >= 0) {
+                    continue;
+                }
+                if (c != '%' || i + 2 >= end || !isHex(s.charAt(i + 1)) || !isHex(s.charAt(i + 2))) {
+                    return false;
+                }
+                i += 2;
+            } else if (Character.isISOControl(c) || Character.isSpaceChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // As java.net.URI parses a host: a dotted-decimal IPv4 address, or RFC 2396 hostname labels
+    // (alphanumeric, inner hyphens) with an optional trailing dot, where the last label starts
+    // with a letter unless it is the only one.
+    private static boolean isHostname(String s, int start, int end) {
+        if (isIpv4(s, start, end)) {
+            return true;
+        }
+        if (start == end) {
+            return false;
+        }
+        if (s.charAt(end - 1) == '.') {
+            end--;
+        }
+        int labelStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || s.charAt(i) == '.') {
+                if (i == labelStart || s.charAt(labelStart) == '-' || s.charAt(i - 1) == '-') {
+                    return false;
+                }
+                if (i == end && labelStart > start && !isAsciiLetter(s.charAt(labelStart))) {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else {
+                char c = s.charAt(i);
+                if (!isAsciiAlphanumeric(c) && c != '-') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Four dot-separated decimal parts of at most 255 each; leading zeros are allowed.
+    private static boolean isIpv4(String s, int start, int end) {
+        int parts = 0;
+        int i = start;
+        while (parts < 4) {
+            int value = 0;
+            int digitsStart = i;
+            while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                value = Math.min(value * 10 + (s.charAt(i) - '0'), 256);
+                i++;
+            }
+            if (i == digitsStart || value > 255) {
+                return false;
+            }
+            parts++;
+            if (parts < 4) {
+                if (i == end || s.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i == end;
+    }
+
+    // Between the brackets: an IPv6 address, optionally followed by '%' and a scope id.
+    private static boolean isIpv6Reference(String s, int start, int end) {
+        int scope = s.indexOf('%', start);
+        if (scope < 0 || scope >= end) {
+            return isIpv6Address(s, start, end);
+        }
+        if (scope == start || scope + 1 == end || !isIpv6Address(s, start, scope)) {
+            return false;
+        }
+        for (int i = scope + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (!isAsciiAlphanumeric(c) && c != '_' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Groups of 1-4 hex digits separated by ':', at most one "::" standing for omitted groups,
+    // optionally ending in an IPv4 address that counts as two groups; eight groups in all.
+    private static boolean isIpv6Address(String s, int start, int end) {
+        int bytes = 0;
+        boolean compressed = false;
+        int i = start;
+        if (s.startsWith("::", i) && i + 2 <= end) {
+            compressed = true;
+            i += 2;
+        }
+        while (i < end) {
+            int groupEnd = i;
+            while (groupEnd < end && isHex(s.charAt(groupEnd))) {
+                groupEnd++;
+            }
+            if (groupEnd == i || (groupEnd < end && s.charAt(groupEnd) == '.')) {
+                if (!isIpv4(s, i, end)) {
+                    return false;
+                }
+                bytes += 4;
+                break;
+            }
+            if (groupEnd - i > 4) {
+                return false;
+            }
+            bytes += 2;
+            i = groupEnd;
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':') {
+                return false;
+            }
+            if (i + 1 < end && s.charAt(i + 1) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i += 2;
+            } else if (++i == end) {
+                return false;
+            }
+        }
+        return bytes <= 16 && (compressed ? bytes < 16 : bytes == 16);
+    }
+
+    // Empty, or a decimal that fits an int.
+    private static boolean isPort(String s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE + 1L);
+        }
+        return value <= Integer.MAX_VALUE;
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
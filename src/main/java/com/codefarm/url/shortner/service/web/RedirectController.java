@@ -1,24 +1,36 @@
 package com.codefarm.url.shortner.service.web;
 
+import com.codefarm.url.shortner.service.analytics.ClickRecorder;
 import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class RedirectController {
 
     private final UrlShortenerService service;
+    private final ClickRecorder clickRecorder;
 
-    public RedirectController(UrlShortenerService service) {
+    public RedirectController(UrlShortenerService service, ClickRecorder clickRecorder) {
         this.service = service;
+        this.clickRecorder = clickRecorder;
     }
 
     @GetMapping("/{shortCode}")
-    public ResponseEntity<Void> redirect(@PathVariable String shortCode) {
-        return service.redirect(shortCode);
+    public ResponseEntity<?> redirect(@PathVariable String shortCode,
+                                      @RequestHeader(value = HttpHeaders.REFERER, required = false) String referrer,
+                                      @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ResponseEntity<?> response = service.redirect(shortCode, ifNoneMatch);
+        // A 304 is a cache revalidating, not a visitor following the link.
+        if (response.getStatusCode().is3xxRedirection() && response.getStatusCode() != HttpStatus.NOT_MODIFIED) {
+            clickRecorder.record(shortCode, referrer, userAgent);
+        }
+        return response;
     }
 }
-
-
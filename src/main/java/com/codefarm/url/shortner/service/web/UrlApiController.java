@@ -1,21 +1,50 @@
 package com.codefarm.url.shortner.service.web;
 
+import com.codefarm.url.shortner.service.analytics.ClickStatsService;
 import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import com.codefarm.url.shortner.service.web.dto.BatchShortenResult;
+import com.codefarm.url.shortner.service.web.dto.ClickStatsResponse;
 import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
 import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
 import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1")
 public class UrlApiController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int MAX_METRICS_PAGE_SIZE = 1000;
+    private static final BatchShortenResult MALFORMED_LINE = BatchShortenResult.failure("Malformed JSON line");
+    private static final BatchShortenResult MISSING_REQUEST = BatchShortenResult.failure("Request must be a JSON object");
+
     private final UrlShortenerService service;
+    private final ClickStatsService clickStatsService;
+    private final ObjectMapper objectMapper;
+    private final int batchChunkSize;
 
-    public UrlApiController(UrlShortenerService service) {
+    public UrlApiController(UrlShortenerService service,
+                            ClickStatsService clickStatsService,
+                            ObjectMapper objectMapper,
+                            @Value("${shorten.batch.chunk-size:500}") int batchChunkSize) {
         this.service = service;
+        this.clickStatsService = clickStatsService;
+        this.objectMapper = objectMapper;
+        this.batchChunkSize = batchChunkSize;
     }
 
     @PostMapping("/shorten")
@@ -27,9 +56,107 @@ public class UrlApiController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/shorten/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchShortenResult>> shortenBatch(@RequestBody List<ShortenRequest> requests,
+                                                                 @RequestHeader(value = "user_uuid", required = false) String userUuid,
+                                                                 HttpServletRequest httpRequest) {
+        String baseUrl = UrlApiController.getBaseUrl(httpRequest);
+        List<BatchShortenResult> results = new ArrayList<>(requests.size());
+        BitSet none = new BitSet();
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            List<ShortenRequest> chunk = requests.subList(from, Math.min(from + batchChunkSize, requests.size()));
+            results.addAll(shortenChunk(chunk, none, baseUrl, userUuid));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Streaming variant: one {@link ShortenRequest} JSON object per line in, one
+     * {@link BatchShortenResult} per non-blank line out, in the same order. Input is processed
+     * {@code shorten.batch.chunk-size} lines per transaction and results are flushed per chunk.
+     */
+    @PostMapping(value = "/shorten/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public void shortenBatchStream(@RequestHeader(value = "user_uuid", required = false) String userUuid,
+                                   HttpServletRequest httpRequest,
+                                   HttpServletResponse httpResponse) throws IOException {
+        String baseUrl = UrlApiController.getBaseUrl(httpRequest);
+        httpResponse.setContentType(APPLICATION_NDJSON_VALUE);
+        BufferedReader reader = httpRequest.getReader();
+        OutputStream out = httpResponse.getOutputStream();
+
+        List<ShortenRequest> chunk = new ArrayList<>(batchChunkSize);
+        BitSet malformed = new BitSet(batchChunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(objectMapper.readValue(line, ShortenRequest.class));
+            } catch (JsonProcessingException _) {
+                malformed.set(chunk.size());
+                chunk.add(null);
+            }
+            if (chunk.size() == batchChunkSize) {
+                writeChunk(chunk, malformed, baseUrl, userUuid, out);
+            }
+        }
+        writeChunk(chunk, malformed, baseUrl, userUuid, out);
+    }
+
     @GetMapping("/metrics/users")
-    public ResponseEntity<java.util.List<UserMetricsResponse>> usersMetrics() {
-        return ResponseEntity.ok(service.userMetrics());
+    public ResponseEntity<java.util.List<UserMetricsResponse>> usersMetrics(@RequestParam(value = "page", defaultValue = "0") int page,
+                                                                           @RequestParam(value = "size", defaultValue = "100") int size,
+                                                                           @RequestParam(value = "top", required = false) Integer top) {
+        if (top != null) {
+            return ResponseEntity.ok(service.topUsers(Math.clamp(top, 1, MAX_METRICS_PAGE_SIZE)));
+        }
+        return ResponseEntity.ok(service.userMetrics(Math.max(page, 0), Math.clamp(size, 1, MAX_METRICS_PAGE_SIZE)));
+    }
+
+    @GetMapping("/metrics/urls/{shortCode}")
+    public ResponseEntity<ClickStatsResponse> urlMetrics(@PathVariable String shortCode) {
+        return ResponseEntity.ok(clickStatsService.stats(shortCode));
+    }
+
+    private void writeChunk(List<ShortenRequest> chunk, BitSet malformed, String baseUrl, String userUuid,
+                            OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (BatchShortenResult result : shortenChunk(chunk, malformed, baseUrl, userUuid)) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        chunk.clear();
+        malformed.clear();
+    }
+
+    // Null entries (a JSON null, or a line that did not parse, as flagged in malformed) fail on
+    // their own; the rest are shortened together and the results merged back in request order.
+    private List<BatchShortenResult> shortenChunk(List<ShortenRequest> chunk, BitSet malformed, String baseUrl,
+                                                  String userUuid) {
+        List<ShortenRequest> valid = new ArrayList<>(chunk.size());
+        for (ShortenRequest request : chunk) {
+            if (request != null) {
+                valid.add(request);
+            }
+        }
+        if (valid.size() == chunk.size()) {
+            return service.shortenBatch(chunk, baseUrl, userUuid);
+        }
+        List<BatchShortenResult> shortened = valid.isEmpty() ? List.of() : service.shortenBatch(valid, baseUrl, userUuid);
+        List<BatchShortenResult> results = new ArrayList<>(chunk.size());
+        int next = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.get(i) != null) {
+                results.add(shortened.get(next++));
+            } else {
+                results.add(malformed.get(i) ? MALFORMED_LINE : MISSING_REQUEST);
+            }
+        }
+        return results;
     }
 
     private static String getBaseUrl(HttpServletRequest request) {
@@ -40,5 +167,3 @@ public class UrlApiController {
         return scheme + "://" + host + (isDefault ? "" : (":" + port));
     }
 }
-
-
@@ -0,0 +1,19 @@
+package com.codefarm.url.shortner.service.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchShortenResult(String shortCode, String shortUrl, LocalDateTime createdAt, LocalDateTime expiresAt,
+                                 String error) {
+
+    public static BatchShortenResult success(String shortCode, String shortUrl, LocalDateTime createdAt,
+                                             LocalDateTime expiresAt) {
+        return new BatchShortenResult(shortCode, shortUrl, createdAt, expiresAt, null);
+    }
+
+    public static BatchShortenResult failure(String error) {
+        return new BatchShortenResult(null, null, null, null, error);
+    }
+}
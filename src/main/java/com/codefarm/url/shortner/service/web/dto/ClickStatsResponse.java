@@ -0,0 +1,7 @@
+package com.codefarm.url.shortner.service.web.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public record ClickStatsResponse(String shortCode, long clicks, LocalDateTime firstClickAt, LocalDateTime lastClickAt,
+                                 Map<String, Long> referrers, Map<String, Long> userAgents) {}
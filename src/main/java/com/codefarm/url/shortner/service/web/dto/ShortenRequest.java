@@ -1,5 +1,14 @@
 package com.codefarm.url.shortner.service.web.dto;
 
-public record ShortenRequest(String longUrl, String customAlias) {}
+import java.time.Duration;
 
+/**
+ * {@code redirectStatus} (301, 302, 307 or 308) is optional; without it the mapping follows {@code redirect.status}.
+ * {@code ttl} (seconds, or ISO-8601 such as {@code "P7D"}) is optional; without it the link gets {@code expiry.default-ttl}.
+ */
+public record ShortenRequest(String longUrl, String customAlias, Integer redirectStatus, Duration ttl) {
 
+    public ShortenRequest(String longUrl, String customAlias) {
+        this(longUrl, customAlias, null, null);
+    }
+}
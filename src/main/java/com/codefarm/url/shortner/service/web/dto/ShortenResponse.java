@@ -1,7 +1,10 @@
 package com.codefarm.url.shortner.service.web.dto;
 
-import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
-public record ShortenResponse(String shortCode, String shortUrl, LocalDateTime createdAt) {}
+import java.time.LocalDateTime;
 
+/** {@code expiresAt} is omitted for links that never expire. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShortenResponse(String shortCode, String shortUrl, LocalDateTime createdAt, LocalDateTime expiresAt) {}
 
@@ -0,0 +1,97 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickEventRingBufferTest {
+
+    @Test
+    void pollsInOfferOrderAndRefusesWhenFull() {
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(event("c" + i))).isTrue();
+        }
+        assertThat(buffer.offer(event("overflow"))).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll().shortCode()).isEqualTo("c0");
+        assertThat(buffer.offer(event("c4"))).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            assertThat(buffer.poll().shortCode()).isEqualTo("c" + i);
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void wrapsAroundManyTimes() {
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(8);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(buffer.offer(event("c" + i))).isTrue();
+            assertThat(buffer.offer(event("d" + i))).isTrue();
+            assertThat(buffer.poll().shortCode()).isEqualTo("c" + i);
+            assertThat(buffer.poll().shortCode()).isEqualTo("d" + i);
+        }
+    }
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new ClickEventRingBuffer(100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deliversEveryAcceptedEventExactlyOnceUnderConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String prefix = "p" + p + "-";
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(event(prefix + i))) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        Set<String> seen = new HashSet<>();
+        int[] nextPerProducer = new int[producers];
+        start.countDown();
+        while (seen.size() < producers * perProducer) {
+            ClickEvent event = buffer.poll();
+            if (event == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertThat(seen.add(event.shortCode())).isTrue();
+            // Events of one producer come out in the order it offered them
+            String code = event.shortCode();
+            int producer = code.charAt(1) - '0';
+            assertThat(Integer.parseInt(code.substring(3))).isEqualTo(nextPerProducer[producer]++);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+
+    private static ClickEvent event(String shortCode) {
+        return new ClickEvent(shortCode, 0L, null, null, 1);
+    }
+}
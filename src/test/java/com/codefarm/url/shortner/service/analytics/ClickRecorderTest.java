@@ -0,0 +1,93 @@
+package com.codefarm.url.shortner.service.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickRecorderTest {
+
+    private final RecordingWriter writer = new RecordingWriter();
+    private final AtomicBoolean producing = new AtomicBoolean(true);
+    private final List<Thread> producers = new ArrayList<>();
+    private ClickRecorder recorder;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        producing.set(false);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        if (recorder != null) {
+            recorder.stop();
+        }
+    }
+
+    @Test
+    void aggregatesClicksPerCodeAndFlushesOnStop() {
+        recorder = recorder(ClickRecorder.OverflowPolicy.DROP, Duration.ofHours(1));
+        recorder.record("abc", "https://news.example.com/x", "Mozilla/5.0 (iPhone)");
+        recorder.record("abc", null, null);
+        recorder.record("xyz", null, null);
+        recorder.stop();
+
+        Map<String, Long> clicks = writer.totals();
+        assertThat(clicks).containsEntry("abc", 2L);
+        assertThat(clicks).containsEntry("xyz", 1L);
+    }
+
+    @Test
+    void keepsFlushingWhileEventsArriveWithoutPause() throws InterruptedException {
+        recorder = recorder(ClickRecorder.OverflowPolicy.DROP, Duration.ofMillis(20));
+        for (int p = 0; p < 4; p++) {
+            producers.add(Thread.ofPlatform().start(() -> {
+                while (producing.get()) {
+                    recorder.record("hot", null, null);
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.batches.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(producing.get()).isTrue();
+        assertThat(writer.batches.size()).isGreaterThanOrEqualTo(3);
+    }
+
+    private ClickRecorder recorder(ClickRecorder.OverflowPolicy policy, Duration flushInterval) {
+        ClickRecorder recorder = new ClickRecorder(writer, true, 1024, policy, 10, flushInterval);
+        recorder.start();
+        return recorder;
+    }
+
+    private static final class RecordingWriter extends ClickStatsWriter {
+
+        final List<Map<String, ClickAggregate>> batches = new CopyOnWriteArrayList<>();
+
+        RecordingWriter() {
+            super(null);
+        }
+
+        @Override
+        public int write(Map<String, ClickAggregate> aggregates) {
+            batches.add(aggregates);
+            return aggregates.size();
+        }
+
+        Map<String, Long> totals() {
+            Map<String, Long> totals = new HashMap<>();
+            batches.forEach(batch -> batch.forEach((code, aggregate) -> totals.merge(code, aggregate.clicks, Long::sum)));
+            return totals;
+        }
+    }
+}
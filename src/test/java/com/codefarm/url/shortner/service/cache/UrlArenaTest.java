@@ -0,0 +1,203 @@
+package com.codefarm.url.shortner.service.cache;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlArenaTest {
+
+    private static final long SLAB = 64 * 1024;
+
+    private final UrlArena arena = new UrlArena(10_000, 16 * SLAB, SLAB);
+
+    @Test
+    void keysOnlyBase62Codes() {
+        assertThat(UrlArena.key("a")).isEqualTo(10L);
+        assertThat(UrlArena.key("10")).isEqualTo(62L);
+        assertThat(UrlArena.key("")).isEqualTo(-1L);
+        assertThat(UrlArena.key("my-alias")).isEqualTo(-1L);
+        assertThat(UrlArena.key("abcdefghijkl")).isEqualTo(-1L);
+        assertThat(UrlArena.key("ZZZZZZZZZZZ")).isEqualTo(-1L);
+    }
+
+    @Test
+    void readsBackEveryField() {
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 2, 3, 4, 5, 123_456_789);
+        put("abc", new RedirectTarget("https://example.com/products/item/1?ref=x", 307, false, expiresAt));
+        put("abd", new RedirectTarget("https://example.com/", null, false, null));
+        put("abe", new RedirectTarget("mailto:someone@example.com", 308, true, null));
+        put("abf", new RedirectTarget("https://example.com/ünï/cödé", 301, false, null));
+
+        assertThat(get("abc")).isEqualTo(new RedirectTarget("https://example.com/products/item/1?ref=x", 307, false,
+                expiresAt));
+        assertThat(get("abd")).isEqualTo(new RedirectTarget("https://example.com/", null, false, null));
+        assertThat(get("abe")).isEqualTo(new RedirectTarget("mailto:someone@example.com", 308, true, null));
+        assertThat(get("abf")).isEqualTo(new RedirectTarget("https://example.com/ünï/cödé", 301, false, null));
+        assertThat(get("abg")).isNull();
+        assertThat(arena.size()).isEqualTo(4L);
+    }
+
+    @Test
+    void copiesTheUrlBytesAndFlags() {
+        put("abc", new RedirectTarget("https://example.com/ünï/cödé", 308, false, null));
+        put("abd", new RedirectTarget("https://example.com/soon", null, false, LocalDateTime.of(2030, 1, 1, 0, 0)));
+        byte[] dst = new byte[64];
+        byte[] url = "https://example.com/ünï/cödé".getBytes(StandardCharsets.UTF_8);
+
+        long copied = arena.copyUrl(UrlArena.key("abc"), "abc", dst, 3, 61);
+        assertThat(UrlArena.copiedLength(copied)).isEqualTo(url.length);
+        assertThat(Arrays.copyOfRange(dst, 3, 3 + url.length)).isEqualTo(url);
+        assertThat(UrlArena.copiedStatus(copied)).isEqualTo(308);
+        assertThat(UrlArena.copiedExpires(copied)).isFalse();
+
+        copied = arena.copyUrl(UrlArena.key("abd"), "abd", dst, 0, 64);
+        assertThat(UrlArena.copiedStatus(copied)).isZero();
+        assertThat(UrlArena.copiedExpires(copied)).isTrue();
+
+        assertThat(arena.copyUrl(UrlArena.key("abc"), "abc", dst, 0, url.length - 1)).isEqualTo(-1L);
+        assertThat(arena.copyUrl(UrlArena.key("abe"), "abe", dst, 0, 64)).isEqualTo(-1L);
+    }
+
+    @Test
+    void storesEachPrefixOnce() {
+        for (int i = 0; i < 100; i++) {
+            put(code(i), new RedirectTarget("https://example.com/products/item/" + i, null, false, null));
+        }
+        long bytes = arena.usedBytes();
+        put(code(100), new RedirectTarget("https://example.com/products/item/100", null, false, null));
+
+        assertThat(arena.prefixCount()).isEqualTo(1);
+        assertThat(get(code(42)).longUrl()).isEqualTo("https://example.com/products/item/42");
+        // Header plus "100": the prefix is not written again.
+        assertThat(arena.usedBytes() - bytes).isEqualTo(9L);
+    }
+
+    @Test
+    void rePutKeepsTheRecordAndCostsNoSpace() {
+        put("abc", new RedirectTarget("https://example.com/a", null, false, null));
+        long bytes = arena.usedBytes();
+
+        put("abc", new RedirectTarget("https://example.com/b", null, false, null));
+
+        assertThat(arena.usedBytes()).isEqualTo(bytes);
+        assertThat(get("abc").longUrl()).isEqualTo("https://example.com/a");
+    }
+
+    @Test
+    void removeThenPutStoresTheNewTarget() {
+        put("abc", new RedirectTarget("https://example.com/a", null, false, null));
+
+        arena.remove(UrlArena.key("abc"), "abc");
+        assertThat(get("abc")).isNull();
+        assertThat(arena.size()).isZero();
+
+        put("abc", new RedirectTarget("https://example.com/b", null, false, null));
+        assertThat(get("abc").longUrl()).isEqualTo("https://example.com/b");
+    }
+
+    @Test
+    void leadingZeroTwinsNeverReadEachOther() {
+        put("a", new RedirectTarget("https://example.com/short", null, false, null));
+        assertThat(get("0a")).isNull();
+
+        // Removing the twin leaves the stored code alone.
+        arena.remove(UrlArena.key("0a"), "0a");
+        assertThat(get("a").longUrl()).isEqualTo("https://example.com/short");
+
+        put("0a", new RedirectTarget("https://example.com/padded", null, false, null));
+        assertThat(get("0a").longUrl()).isEqualTo("https://example.com/padded");
+        assertThat(get("a")).isNull();
+    }
+
+    @Test
+    void skipsUrlsTooLongForARecord() {
+        String longUrl = "https://example.com/" + "x".repeat(70_000);
+
+        assertThat(arena.put(UrlArena.key("abc"), "abc", new RedirectTarget(longUrl, null, false, null))).isTrue();
+        assertThat(get("abc")).isNull();
+    }
+
+    @Test
+    void refusesWhenTheSlabsAreFull() {
+        UrlArena small = new UrlArena(10_000, SLAB, SLAB);
+        String path = "x".repeat(1_000);
+        int stored = 0;
+        while (small.put(UrlArena.key(code(stored)), code(stored),
+                new RedirectTarget("https://example.com/" + path + stored, null, false, null))) {
+            stored++;
+        }
+
+        assertThat(stored).isEqualTo(65);
+        assertThat(small.get(UrlArena.key(code(0)), code(0)).longUrl()).isEqualTo("https://example.com/" + path + 0);
+    }
+
+    @Test
+    void refusesWhenTheIndexIsFull() {
+        // The smallest index has 1024 slots, filled to 70%.
+        UrlArena small = new UrlArena(1, 16 * SLAB, SLAB);
+        int stored = 0;
+        while (small.put(UrlArena.key(code(stored)), code(stored),
+                new RedirectTarget("https://example.com/" + stored, null, false, null))) {
+            stored++;
+        }
+
+        assertThat(stored).isEqualTo(716);
+    }
+
+    @Test
+    void readersSeeWholeRecordsWhileTheWriterAppends() throws InterruptedException {
+        int count = 5_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> torn = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                while (writing.get()) {
+                    for (int i = 0; i < count; i++) {
+                        RedirectTarget target = arena.get(UrlArena.key(code(i)), code(i));
+                        if (target != null && !target.equals(target(i))) {
+                            torn.add(code(i));
+                        }
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < count; i++) {
+            arena.put(UrlArena.key(code(i)), code(i), target(i));
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(torn).isEmpty();
+        assertThat(arena.size()).isEqualTo((long) count);
+    }
+
+    private void put(String code, RedirectTarget target) {
+        assertThat(arena.put(UrlArena.key(code), code, target)).isTrue();
+    }
+
+    private RedirectTarget get(String code) {
+        return arena.get(UrlArena.key(code), code);
+    }
+
+    // Snowflake-like: large numbers with low bits mostly zero.
+    private static String code(int i) {
+        return Long.toString((1L << 40) + ((long) i << 12), 36);
+    }
+
+    private static RedirectTarget target(int i) {
+        return new RedirectTarget("https://example.com/products/item/" + i + "?ref=seed", i % 2 == 0 ? 302 : null,
+                false, i % 3 == 0 ? LocalDateTime.of(2030, 1, 1, 0, 0).plusSeconds(i) : null);
+    }
+}
@@ -0,0 +1,111 @@
+package com.codefarm.url.shortner.service.cluster;
+
+import com.codefarm.url.shortner.service.cache.CachedRedirect;
+import com.codefarm.url.shortner.service.cache.ClusterCacheSync;
+import com.codefarm.url.shortner.service.cache.RedirectCache;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.InMemoryUrlStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes on a {@link LoopbackClusterChannel} sharing one store. Lives in the cluster package,
+ * where the loopback channel can be constructed.
+ */
+class ClusterCacheSyncTest {
+
+    private final String group = UUID.randomUUID().toString();
+    private final InMemoryUrlStore store = new InMemoryUrlStore();
+    private final List<LoopbackClusterChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void closeChannels() {
+        channels.forEach(LoopbackClusterChannel::close);
+    }
+
+    @Test
+    void invalidationReachesPeers() {
+        Node a = node("a");
+        Node b = node("b");
+        a.cache.put("abc123", redirect("https://example.com/a"));
+        b.cache.put("abc123", redirect("https://example.com/a"));
+
+        a.sync.invalidate("abc123");
+
+        assertThat(a.cache.get("abc123")).isNull();
+        assertThat(b.cache.get("abc123")).isNull();
+    }
+
+    @Test
+    void goneMarksOnlyTheSenderAndDropsThePeersEntries() {
+        Node a = node("a");
+        Node b = node("b");
+        a.cache.put("abc123", redirect("https://example.com/a"));
+        b.cache.put("abc123", redirect("https://example.com/a"));
+
+        a.sync.markGone(List.of("abc123"));
+
+        assertThat(a.cache.isGone("abc123")).isTrue();
+        assertThat(a.cache.get("abc123")).isNull();
+        // A GONE message is unauthenticated: it may drop an entry but never make a code answer 410.
+        assertThat(b.cache.isGone("abc123")).isFalse();
+        assertThat(b.cache.get("abc123")).isNull();
+    }
+
+    @Test
+    void invalidationClearsGoneMarkersForARecreatedAlias() {
+        Node a = node("a");
+        Node b = node("b");
+        b.sync.markGone(List.of("promo"));
+        assertThat(b.cache.isGone("promo")).isTrue();
+
+        a.sync.invalidate("promo");
+        a.cache.put("promo", redirect("https://example.com/new"));
+
+        assertThat(a.cache.isGone("promo")).isFalse();
+        assertThat(b.cache.isGone("promo")).isFalse();
+    }
+
+    @Test
+    void warmsFromPeerCodesWithTargetsReadFromTheStore() {
+        store.putIfAbsent(new UrlMapping("abc123", "https://example.com/real", LocalDateTime.now(), false));
+        Node a = node("a");
+        // A peer's cache (or a forged snapshot) can name codes, but its targets are never trusted.
+        a.cache.put("abc123", redirect("https://attacker.example/"));
+        a.cache.put("ghost", redirect("https://attacker.example/ghost"));
+        Node b = node("b");
+
+        b.sync.onReady();
+
+        assertThat(b.cache.get("abc123").target().longUrl()).isEqualTo("https://example.com/real");
+        assertThat(b.cache.get("ghost")).isNull();
+    }
+
+    private Node node(String name) {
+        LoopbackClusterChannel channel = new LoopbackClusterChannel(name, group);
+        channels.add(channel);
+        RedirectCache cache = new RedirectCache(1_000, Duration.ofMinutes(10), 1_000, Duration.ofDays(1), false,
+                0, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+        // No click stats: warm-up in these tests always finds a peer.
+        ClusterCacheSync sync = new ClusterCacheSync(cache, channel, store, null, true, false, 100,
+                Duration.ofSeconds(2), Duration.ofMinutes(5));
+        return new Node(cache, sync);
+    }
+
+    private static CachedRedirect redirect(String longUrl) {
+        return CachedRedirect.of(new RedirectTarget(longUrl, null, false, null));
+    }
+
+    private record Node(RedirectCache cache, ClusterCacheSync sync) {
+    }
+}
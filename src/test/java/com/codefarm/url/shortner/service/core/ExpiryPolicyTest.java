@@ -0,0 +1,55 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.exception.InvalidUrlException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiryPolicyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final ExpiryPolicy never = new ExpiryPolicy(Duration.ZERO, Duration.ZERO);
+    private final ExpiryPolicy daily = new ExpiryPolicy(Duration.ofDays(1), Duration.ofDays(30));
+
+    @Test
+    void appliesRequestedOrDefaultTtl() {
+        assertThat(never.expiresAt(null, NOW)).isNull();
+        assertThat(never.expiresAt(Duration.ofHours(2), NOW)).isEqualTo(NOW.plusHours(2));
+        assertThat(daily.expiresAt(null, NOW)).isEqualTo(NOW.plusDays(1));
+        assertThatThrownBy(() -> daily.expiresAt(Duration.ofDays(31), NOW)).isInstanceOf(InvalidUrlException.class);
+        assertThatThrownBy(() -> daily.expiresAt(Duration.ZERO, NOW)).isInstanceOf(InvalidUrlException.class);
+    }
+
+    @Test
+    void explicitTtlReusesOnlyLinksThatLiveAtLeastAsLong() {
+        Duration ttl = Duration.ofDays(1);
+        LocalDateTime requested = NOW.plus(ttl);
+
+        assertThat(daily.allowsReuse(null, ttl, requested, NOW)).isTrue();
+        assertThat(daily.allowsReuse(requested.plusSeconds(1), ttl, requested, NOW)).isTrue();
+        assertThat(daily.allowsReuse(requested, ttl, requested, NOW)).isTrue();
+        assertThat(daily.allowsReuse(requested.minusSeconds(1), ttl, requested, NOW)).isFalse();
+    }
+
+    @Test
+    void defaultTtlReusesAnyLiveLink() {
+        // The first shorten an hour ago expires an hour before a new link would; it is still reused.
+        LocalDateTime earlier = daily.expiresAt(null, NOW.minusHours(1));
+        LocalDateTime requested = daily.expiresAt(null, NOW);
+
+        assertThat(daily.allowsReuse(earlier, null, requested, NOW)).isTrue();
+        assertThat(daily.allowsReuse(null, null, requested, NOW)).isTrue();
+        assertThat(daily.allowsReuse(NOW, null, requested, NOW)).isFalse();
+    }
+
+    @Test
+    void neverExpiringRequestReusesOnlyNeverExpiringLinks() {
+        assertThat(never.allowsReuse(null, null, null, NOW)).isTrue();
+        assertThat(never.allowsReuse(NOW.plusYears(10), null, null, NOW)).isFalse();
+    }
+}
@@ -0,0 +1,138 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.cache.CachedRedirect;
+import com.codefarm.url.shortner.service.cache.ClusterCacheSync;
+import com.codefarm.url.shortner.service.cache.RedirectCache;
+import com.codefarm.url.shortner.service.cluster.ClusterChannel;
+import com.codefarm.url.shortner.service.cluster.ClusterMessage;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.storage.InMemoryUrlStore;
+import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs sweeps on the test thread against a map-backed store and a single node's cache, with the
+ * alias owner's create path (insert, broadcast invalidation, cache the entry) replayed by hand.
+ */
+class ExpirySweeperTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final RedirectCache cache = new RedirectCache(1_000, Duration.ofMinutes(10), 1_000, Duration.ofDays(1),
+            false, 0, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    private final ClusterCacheSync cacheSync = new ClusterCacheSync(cache, new SilentChannel(), new InMemoryUrlStore(),
+            null, false, false, 0, Duration.ofSeconds(1), Duration.ofMinutes(5));
+    private final UserUrlCounters counters = new UserUrlCounters(new InMemoryUrlStore(), null, Duration.ofMinutes(1));
+
+    @Test
+    void deletesExpiredRowsMarksThemGoneAndUpdatesCounts() {
+        InMemoryUrlStore store = new InMemoryUrlStore();
+        store.putIfAbsent(mapping("old1", "alice", LocalDateTime.now().minusHours(1)));
+        store.putIfAbsent(mapping("old2", "alice", LocalDateTime.now().minusMinutes(1)));
+        store.putIfAbsent(mapping("live", "alice", LocalDateTime.now().plusDays(1)));
+        store.putIfAbsent(mapping("forever", "alice", null));
+        counters.add("alice", 4);
+
+        assertThat(sweeper(store).sweep()).isEqualTo(2L);
+
+        assertThat(store.exists("old1")).isFalse();
+        assertThat(store.exists("old2")).isFalse();
+        assertThat(store.exists("live")).isTrue();
+        assertThat(store.exists("forever")).isTrue();
+        assertThat(cache.isGone("old1")).isTrue();
+        assertThat(cache.isGone("live")).isFalse();
+        assertThat(counters.top(1)).containsExactly(new UserMetricsResponse("alice", 2));
+    }
+
+    @Test
+    void aliasCreatedAgainRightAfterItsDeleteIsNotLeftGone() {
+        InMemoryUrlStore store = new InMemoryUrlStore() {
+            @Override
+            public boolean delete(String shortCode) {
+                boolean deleted = super.delete(shortCode);
+                if (deleted && shortCode.equals("promo")) {
+                    recreate(this, "promo");
+                }
+                return deleted;
+            }
+        };
+        store.putIfAbsent(mapping("promo", "alice", LocalDateTime.now().minusHours(1)));
+        store.putIfAbsent(mapping("other", "alice", LocalDateTime.now().minusHours(1)));
+
+        sweeper(store).sweep();
+
+        assertThat(cache.isGone("promo")).isFalse();
+        assertThat(cache.get("promo").target().longUrl()).isEqualTo("https://example.com/new");
+        assertThat(cache.isGone("other")).isTrue();
+    }
+
+    @Test
+    void aliasDeletedByAnotherNodeAndCreatedAgainIsKeptAndNotLeftGone() {
+        InMemoryUrlStore store = new InMemoryUrlStore() {
+            @Override
+            public void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches) {
+                super.scanExpired(now, batchSize, batch -> {
+                    // Between this node's scan and its delete, another node deletes the row and
+                    // the alias is created again.
+                    delete("promo");
+                    recreate(this, "promo");
+                    batches.accept(batch);
+                });
+            }
+        };
+        store.putIfAbsent(mapping("promo", "alice", LocalDateTime.now().minusHours(1)));
+
+        assertThat(sweeper(store).sweep()).isZero();
+
+        assertThat(store.findRedirect("promo").longUrl()).isEqualTo("https://example.com/new");
+        assertThat(cache.isGone("promo")).isFalse();
+    }
+
+    private ExpirySweeper sweeper(InMemoryUrlStore store) {
+        return new ExpirySweeper(store, cacheSync, counters, false, Duration.ofMinutes(1), 500, 1_000_000);
+    }
+
+    // What the service does for a new custom alias once its insert commits.
+    private void recreate(InMemoryUrlStore store, String alias) {
+        store.putIfAbsent(mapping(alias, "bob", null, "https://example.com/new"));
+        cacheSync.invalidate(alias);
+        cache.put(alias, CachedRedirect.of(store.findRedirect(alias)));
+    }
+
+    private static UrlMapping mapping(String shortCode, String userId, LocalDateTime expiresAt) {
+        return mapping(shortCode, userId, expiresAt, "https://example.com/" + shortCode);
+    }
+
+    private static UrlMapping mapping(String shortCode, String userId, LocalDateTime expiresAt, String longUrl) {
+        return new UrlMapping(shortCode, longUrl, CREATED, true, userId, null, expiresAt);
+    }
+
+    private static final class SilentChannel implements ClusterChannel {
+
+        @Override
+        public String nodeId() {
+            return "test";
+        }
+
+        @Override
+        public void publish(ClusterMessage.Type type, List<String> values) {
+        }
+
+        @Override
+        public void subscribe(Consumer<ClusterMessage> listener) {
+        }
+
+        @Override
+        public boolean mayHavePeers() {
+            return false;
+        }
+    }
+}
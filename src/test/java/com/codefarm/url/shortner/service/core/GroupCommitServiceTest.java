@@ -0,0 +1,116 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.exception.CustomAliasAlreadyExistsException;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import com.codefarm.url.shortner.service.repository.UrlMappingRepository;
+import com.codefarm.url.shortner.service.storage.UrlStore;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single shortens through the service with group commit on, against H2. Groups close at three
+ * requests and the window is long, so the three concurrent calls of a test always share a group.
+ * With the short-code filter on, an alias written straight to the table, as another node would,
+ * is not checked before the insert: its group fails as a whole.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-commit;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "shorten.group-commit.enabled=true",
+        "shorten.group-commit.window=30s",
+        "shorten.group-commit.max-size=3",
+        "shortcode.filter.enabled=true"})
+class GroupCommitServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080";
+
+    @Autowired
+    private UrlShortenerService service;
+
+    @Autowired
+    private UrlMappingRepository repository;
+
+    @Autowired
+    private UrlStore store;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void aGroupThatFailsAsAWholeIsRetriedPerItem() {
+        repository.save(new UrlMapping("other-node", "https://other.example/", LocalDateTime.now(), true, null, null, null));
+        double fallbacks = fallbacks();
+
+        List<CompletableFuture<ShortenResponse>> results = shortenConcurrently(
+                new ShortenRequest("https://example.com/group/1", null),
+                new ShortenRequest("https://example.com/group/2", "other-node"),
+                new ShortenRequest("https://example.com/group/3", "group-alias"));
+
+        assertCommitted(results.get(0), "https://example.com/group/1");
+        assertThatThrownBy(results.get(1)::join).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(store.findRedirect("other-node").longUrl()).isEqualTo("https://other.example/");
+        assertThat(assertCommitted(results.get(2), "https://example.com/group/3")).isEqualTo("group-alias");
+        assertThat(fallbacks()).isEqualTo(fallbacks + 1);
+    }
+
+    @Test
+    void anAliasConflictFailsOnlyItsItem() {
+        double fallbacks = fallbacks();
+
+        List<CompletableFuture<ShortenResponse>> results = shortenConcurrently(
+                new ShortenRequest("https://example.com/alias/1", "same-alias"),
+                new ShortenRequest("https://example.com/alias/2", null),
+                new ShortenRequest("https://example.com/alias/3", "same-alias"));
+
+        List<String> aliasOwners = new ArrayList<>();
+        for (int i : new int[] {0, 2}) {
+            try {
+                assertCommitted(results.get(i), "https://example.com/alias/" + (i + 1));
+                aliasOwners.add("https://example.com/alias/" + (i + 1));
+            } catch (CompletionException ex) {
+                assertThat(ex).hasCauseInstanceOf(CustomAliasAlreadyExistsException.class);
+            }
+        }
+        assertThat(aliasOwners).hasSize(1);
+        assertThat(store.findRedirect("same-alias").longUrl()).isEqualTo(aliasOwners.getFirst());
+        assertCommitted(results.get(1), "https://example.com/alias/2");
+        assertThat(fallbacks()).isEqualTo(fallbacks);
+    }
+
+    private List<CompletableFuture<ShortenResponse>> shortenConcurrently(ShortenRequest... requests) {
+        List<CompletableFuture<ShortenResponse>> results = new ArrayList<>();
+        for (ShortenRequest request : requests) {
+            results.add(CompletableFuture.supplyAsync(() -> service.shortenUrl(request, BASE_URL, null)));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .handle((_, _) -> null)
+                .orTimeout(10, TimeUnit.SECONDS)
+                .join();
+        return results;
+    }
+
+    // Returns the item's code once its mapping is in the store.
+    private String assertCommitted(CompletableFuture<ShortenResponse> result, String longUrl) {
+        String shortCode = result.join().shortCode();
+        assertThat(store.findRedirect(shortCode).longUrl()).isEqualTo(longUrl);
+        return shortCode;
+    }
+
+    private double fallbacks() {
+        return registry.get("shorten.group.fallbacks").functionCounter().count();
+    }
+}
@@ -0,0 +1,174 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the writer against a committer that records each group and answers every item with a
+ * response naming its URL. Windows are long, so a group closes on {@code max-size} unless a test
+ * says otherwise.
+ */
+class GroupCommitWriterTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final List<List<String>> groups = new CopyOnWriteArrayList<>();
+    private GroupCommitWriter writer;
+
+    @AfterEach
+    void stop() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        callers.shutdownNow();
+    }
+
+    @Test
+    void commitsConcurrentRequestsAsOneGroup() throws Exception {
+        writer = writer(Duration.ofSeconds(30), 8);
+        writer.start(this::commitAll);
+
+        List<Future<ShortenResponse>> results = submitAll(8);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).shortCode()).isEqualTo("https://example.com/" + i);
+        }
+        assertThat(groups).hasSize(1);
+        assertThat(groups.get(0)).hasSize(8);
+    }
+
+    @Test
+    void splitsGroupsAtMaxSize() throws Exception {
+        writer = writer(Duration.ofSeconds(30), 4);
+        writer.start(this::commitAll);
+
+        for (Future<ShortenResponse> result : submitAll(12)) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(groups).hasSize(3);
+        groups.forEach(group -> assertThat(group).hasSize(4));
+    }
+
+    @Test
+    void closesAGroupWhenTheWindowEnds() throws Exception {
+        writer = writer(Duration.ofMillis(20), 256);
+        writer.start(this::commitAll);
+
+        assertThat(writer.submit(item(0)).shortCode()).isEqualTo("https://example.com/0");
+        assertThat(writer.submit(item(1)).shortCode()).isEqualTo("https://example.com/1");
+        assertThat(groups).hasSize(2);
+    }
+
+    @Test
+    void rethrowsTheItemsOwnError() throws Exception {
+        writer = writer(Duration.ofSeconds(30), 2);
+        writer.start(group -> {
+            record(group);
+            for (ShortenItem item : group) {
+                if (item.request.longUrl().endsWith("/0")) {
+                    item.result().completeExceptionally(new IllegalArgumentException("bad url"));
+                } else {
+                    respond(item);
+                }
+            }
+        });
+
+        List<Future<ShortenResponse>> results = submitAll(2);
+
+        // The caller gets the exception a single shorten would have thrown, not a wrapper.
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS).shortCode()).isEqualTo("https://example.com/1");
+        assertThat(groups).hasSize(1);
+    }
+
+    @Test
+    void failsTheWholeGroupWhenTheCommitterThrowsAndKeepsRunning() throws Exception {
+        writer = writer(Duration.ofMillis(1), 256);
+        IllegalStateException rolledBack = new IllegalStateException("rolled back");
+        writer.start(group -> {
+            record(group);
+            if (groups.size() == 1) {
+                throw rolledBack;
+            }
+            group.forEach(GroupCommitWriterTest::respond);
+        });
+
+        assertThatThrownBy(() -> writer.submit(item(0))).isSameAs(rolledBack);
+        assertThat(writer.submit(item(1)).shortCode()).isEqualTo("https://example.com/1");
+    }
+
+    @Test
+    void failsQueuedAndLaterRequestsOnceStopped() throws Exception {
+        writer = writer(Duration.ofMillis(1), 1);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.start(group -> {
+            record(group);
+            committing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            group.forEach(GroupCommitWriterTest::respond);
+        });
+        Future<ShortenResponse> first = callers.submit(() -> writer.submit(item(0)));
+        committing.await();
+        Future<ShortenResponse> queued = callers.submit(() -> writer.submit(item(1)));
+        Thread.sleep(20);
+
+        writer.shutdown();
+        release.countDown();
+
+        // The group being committed still completes; what was waiting behind it is failed.
+        assertThat(first.get(5, TimeUnit.SECONDS).shortCode()).isEqualTo("https://example.com/0");
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> writer.submit(item(2))).isInstanceOf(IllegalStateException.class);
+        assertThat(groups).hasSize(1);
+    }
+
+    private List<Future<ShortenResponse>> submitAll(int count) {
+        List<Future<ShortenResponse>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ShortenItem item = item(i);
+            results.add(callers.submit(() -> writer.submit(item)));
+        }
+        return results;
+    }
+
+    private void commitAll(List<ShortenItem> group) {
+        record(group);
+        group.forEach(GroupCommitWriterTest::respond);
+    }
+
+    private void record(List<ShortenItem> group) {
+        groups.add(group.stream().map(item -> item.request.longUrl()).toList());
+    }
+
+    private static void respond(ShortenItem item) {
+        item.result().complete(new ShortenResponse(item.request.longUrl(), null, null, null));
+    }
+
+    private static GroupCommitWriter writer(Duration window, int maxSize) {
+        return new GroupCommitWriter(true, window, maxSize, 100);
+    }
+
+    private static ShortenItem item(int i) {
+        return new ShortenItem(new ShortenRequest("https://example.com/" + i, null), "http://localhost", null);
+    }
+}
@@ -0,0 +1,148 @@
+package com.codefarm.url.shortner.service.core;
+
+import com.codefarm.url.shortner.service.cache.CachedRedirect;
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedirectPolicyTest {
+
+    private static final String URL = "https://example.com/ünï/cödé?q=1";
+
+    private static final String PUBLIC = "public, max-age=90, s-maxage=86400, stale-while-revalidate=600";
+    private static final String PRIVATE = "private, max-age=90";
+
+    private final RedirectPolicy publicPolicy = policy(301, true, true);
+    private final RedirectTarget generated = new RedirectTarget(URL, null, false, null);
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        CachedRedirect cached = CachedRedirect.of(generated);
+        String etag = publicPolicy.respond(cached, null).getHeaders().getETag();
+
+        assertThat(publicPolicy.respond(cached, "*").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(publicPolicy.respond(cached, etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(publicPolicy.respond(cached, "\"other\", " + etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(publicPolicy.respond(cached, "W/" + etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(publicPolicy.respond(cached, "\"other\"").getStatusCode()).isEqualTo(HttpStatus.MOVED_PERMANENTLY);
+        assertThat(publicPolicy.respond(cached, "W/\"other\", \"another\"").getStatusCode())
+                .isEqualTo(HttpStatus.MOVED_PERMANENTLY);
+    }
+
+    @Test
+    void mappingStatusOverridesTheDefault() {
+        assertThat(publicPolicy.respond(CachedRedirect.of(generated), null).getStatusCode())
+                .isEqualTo(HttpStatus.MOVED_PERMANENTLY);
+        for (int status : new int[] {301, 302, 307, 308}) {
+            RedirectTarget target = new RedirectTarget(URL, status, false, null);
+            assertThat(policy(302, false, true).respond(CachedRedirect.of(target), null).getStatusCode().value())
+                    .isEqualTo(status);
+        }
+    }
+
+    @Test
+    void onlyGeneratedCodesThatNeverExpireAreCachedPublicly() {
+        RedirectTarget custom = new RedirectTarget(URL, null, true, null);
+        RedirectTarget expiring = new RedirectTarget(URL, null, false, LocalDateTime.now().plusDays(1));
+
+        assertThat(cacheControl(publicPolicy, generated)).isEqualTo(PUBLIC);
+        assertThat(cacheControl(publicPolicy, custom)).isEqualTo(PRIVATE);
+        assertThat(cacheControl(publicPolicy, expiring)).isEqualTo(PRIVATE);
+        assertThat(cacheControl(policy(301, false, true), generated)).isEqualTo(PRIVATE);
+    }
+
+    @Test
+    void notModifiedHasNoLocation() {
+        CachedRedirect cached = CachedRedirect.of(generated);
+        ResponseEntity<Void> redirect = publicPolicy.respond(cached, null);
+
+        ResponseEntity<Void> notModified = publicPolicy.respond(cached, "*");
+
+        assertThat(notModified.getHeaders().getLocation()).isNull();
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(redirect.getHeaders().getETag());
+        assertThat(notModified.getHeaders().getCacheControl()).isEqualTo(PUBLIC);
+        assertThat(redirect.getHeaders().getFirst(HttpHeaders.LOCATION)).isEqualTo(URL);
+    }
+
+    @Test
+    void prerenderedEntriesAreReadOnlyAndMatchOnDemandRendering() {
+        RedirectPolicy prerendering = new RedirectPolicy(301, Duration.ofSeconds(90), true, Duration.ofDays(1),
+                Duration.ofMinutes(10), true, true);
+        for (RedirectTarget target : new RedirectTarget[] {generated, new RedirectTarget(URL, 308, true, null)}) {
+            CachedRedirect rendered = prerendering.cacheEntry(target);
+            assertThat(rendered.isRendered()).isTrue();
+
+            for (String ifNoneMatch : new String[] {null, "*"}) {
+                ResponseEntity<Void> shared = prerendering.respond(rendered, ifNoneMatch);
+                ResponseEntity<Void> onDemand = publicPolicy.respond(CachedRedirect.of(target), ifNoneMatch);
+
+                assertThat(shared.getStatusCode()).isEqualTo(onDemand.getStatusCode());
+                assertThat(shared.getHeaders()).isEqualTo(onDemand.getHeaders());
+                assertThatThrownBy(() -> shared.getHeaders().set("X-Robots-Tag", "all"))
+                        .isInstanceOf(UnsupportedOperationException.class);
+            }
+        }
+        assertThat(publicPolicy.cacheEntry(generated).isRendered()).isFalse();
+    }
+
+    @Test
+    void generatedHeadIsTheRedirectRespondGives() {
+        for (Integer own : new Integer[] {null, 302, 307, 308}) {
+            RedirectTarget target = new RedirectTarget(URL, own, false, null);
+            ResponseEntity<Void> response = publicPolicy.respond(CachedRedirect.of(target), null);
+
+            assertThat(head(publicPolicy, own == null ? 0 : own)).isEqualTo(expectedHead(response));
+        }
+    }
+
+    @Test
+    void generatedHeadFollowsTheConfiguration() {
+        RedirectPolicy privateWithoutEtags = policy(302, false, false);
+        ResponseEntity<Void> response = privateWithoutEtags.respond(
+                CachedRedirect.of(new RedirectTarget(URL, null, false, null)), null);
+
+        String head = head(privateWithoutEtags, 0);
+        assertThat(head).isEqualTo(expectedHead(response));
+        assertThat(head).startsWith("HTTP/1.1 302 Found\r\n").contains("Cache-Control: private, max-age=90\r\n")
+                .doesNotContain("ETag");
+    }
+
+    private static String cacheControl(RedirectPolicy policy, RedirectTarget target) {
+        return policy.respond(CachedRedirect.of(target), null).getHeaders().getCacheControl();
+    }
+
+    private static String head(RedirectPolicy policy, int ownStatus) {
+        byte[] url = URL.getBytes(StandardCharsets.UTF_8);
+        byte[] head = new byte[RedirectPolicy.HEAD_ROOM + url.length + RedirectPolicy.TRAILER_ROOM];
+        System.arraycopy(url, 0, head, RedirectPolicy.HEAD_ROOM, url.length);
+        int length = policy.writeGeneratedHead(ownStatus, head, url.length);
+        return new String(head, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String expectedHead(ResponseEntity<Void> response) {
+        String reason = switch (response.getStatusCode().value()) {
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 307 -> "Temporary Redirect";
+            default -> "Permanent Redirect";
+        };
+        HttpHeaders headers = response.getHeaders();
+        StringBuilder expected = new StringBuilder("HTTP/1.1 " + response.getStatusCode().value() + " " + reason + "\r\n");
+        headers.forEach((name, values) -> expected.append(name).append(": ").append(values.getFirst()).append("\r\n"));
+        return expected.append("content-length: 0\r\n").toString();
+    }
+
+    private static RedirectPolicy policy(int status, boolean publicForGenerated, boolean etags) {
+        return new RedirectPolicy(status, Duration.ofSeconds(90), publicForGenerated, Duration.ofDays(1),
+                Duration.ofMinutes(10), etags, false);
+    }
+}
@@ -0,0 +1,119 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each pool is its own in-memory H2 database holding one row that names it, so a query shows
+ * which pool served it. {@code replica-down} points at a port nothing listens on. The health
+ * check is set far out, so only connection failures eject a replica.
+ */
+class ReplicaPoolTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private ReplicaPool replicaPool;
+
+    @AfterEach
+    void close() {
+        if (replicaPool != null) {
+            replicaPool.close();
+        }
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void roundRobinSkipsAndEjectsADownReplica() {
+        HikariDataSource primary = h2("primary");
+        replicaPool = replicaPool(primary, ReplicaSelection.ROUND_ROBIN, h2("replica-1"), down(), h2("replica-3"));
+        JdbcTemplate reads = new JdbcTemplate(replicaPool);
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            served.add(name(reads));
+        }
+
+        assertThat(served).containsOnly("replica-1", "replica-3");
+        assertThat(served).contains("replica-1", "replica-3");
+        assertThat(healthy("replica-down")).isZero();
+        assertThat(count("datasource.replica.ejections", "replica-down")).isEqualTo(1.0);
+        assertThat(healthy("replica-1")).isEqualTo(1.0);
+        assertThat(count("datasource.replica.selections", "replica-1") + count("datasource.replica.selections", "replica-3"))
+                .isEqualTo(6.0);
+        assertThat(registry.get("datasource.replica.fallbacks").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void leastConnectionsPicksTheIdleReplica() throws Exception {
+        HikariDataSource primary = h2("primary");
+        HikariDataSource busy = h2("replica-1");
+        replicaPool = replicaPool(primary, ReplicaSelection.LEAST_CONNECTIONS, busy, h2("replica-2"));
+
+        try (var held = busy.getConnection()) {
+            assertThat(name(new JdbcTemplate(replicaPool))).isEqualTo("replica-2");
+        }
+    }
+
+    @Test
+    void fallsBackToThePrimaryWhenNoReplicaIsUp() {
+        HikariDataSource primary = h2("primary");
+        replicaPool = replicaPool(primary, ReplicaSelection.ROUND_ROBIN, down());
+
+        assertThat(name(new JdbcTemplate(replicaPool))).isEqualTo("primary");
+        assertThat(name(new JdbcTemplate(replicaPool))).isEqualTo("primary");
+        assertThat(count("datasource.replica.ejections", "replica-down")).isEqualTo(1.0);
+        assertThat(registry.get("datasource.replica.fallbacks").functionCounter().count()).isEqualTo(2.0);
+    }
+
+    private ReplicaPool replicaPool(HikariDataSource primary, ReplicaSelection selection, HikariDataSource... replicas) {
+        ReplicaPool pool = new ReplicaPool(List.of(replicas), primary, selection, Duration.ofHours(1));
+        pool.bindTo(registry);
+        return pool;
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource pool = pool(name, "jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        new JdbcTemplate(pool).execute("create table pool_name (name varchar(32))");
+        new JdbcTemplate(pool).update("insert into pool_name values (?)", name);
+        return pool;
+    }
+
+    private HikariDataSource down() {
+        return pool("replica-down", "jdbc:h2:tcp://127.0.0.1:1/mem:down");
+    }
+
+    private HikariDataSource pool(String name, String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(2);
+        pool.setConnectionTimeout(250);
+        pool.setInitializationFailTimeout(-1);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static String name(JdbcTemplate reads) {
+        return reads.queryForObject("select name from pool_name", String.class);
+    }
+
+    private double healthy(String pool) {
+        return registry.get("datasource.replica.healthy").tag("pool", pool).gauge().value();
+    }
+
+    private double count(String name, String pool) {
+        return registry.get(name).tag("pool", pool).functionCounter().count();
+    }
+}
@@ -0,0 +1,124 @@
+package com.codefarm.url.shortner.service.datasource;
+
+import com.codefarm.url.shortner.service.repository.UrlLookupRepository;
+import com.codefarm.url.shortner.service.storage.JpaUrlStore;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The routing data source wired as {@link ReadReplicaConfiguration} wires it, over a primary and
+ * two replicas, one of them down. Each database holds the mapping {@code abc}, pointing at a URL
+ * that names the database, so a read shows where it went.
+ */
+class RoutingDataSourceTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReplicaPool replicaPool;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactions;
+
+    @BeforeEach
+    void setUp() {
+        HikariDataSource primary = h2("primary");
+        replicaPool = new ReplicaPool(List.of(down(), h2("replica-1")), primary, ReplicaSelection.ROUND_ROBIN,
+                Duration.ofHours(1));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new RoutingDataSource(primary, replicaPool));
+        jdbc = new JdbcTemplate(dataSource);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void close() {
+        replicaPool.close();
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void readsGoToThePrimaryByDefault() {
+        assertThat(servedBy()).isEqualTo("primary");
+        assertThat(transactions.execute(_ -> servedBy())).isEqualTo("primary");
+    }
+
+    @Test
+    void replicaScopeReadsFromAHealthyReplica() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(ReadRouting.replica(this::servedBy)).isEqualTo("replica-1");
+        }
+        // The scope ends with the call.
+        assertThat(servedBy()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromAReplica() {
+        transactions.setReadOnly(true);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(transactions.execute(_ -> servedBy())).isEqualTo("replica-1");
+        }
+    }
+
+    @Test
+    void recentlyWrittenCodesAreReadFromThePrimary() {
+        RecentWrites recentWrites = new RecentWrites(List.of("replica"), Duration.ofSeconds(5), 100);
+        JpaUrlStore store = new JpaUrlStore(null, new UrlLookupRepository(jdbc), null, recentWrites);
+
+        assertThat(store.findRedirect("abc").longUrl()).isEqualTo("https://replica-1.example/");
+
+        recentWrites.record("abc");
+        assertThat(store.findRedirect("abc").longUrl()).isEqualTo("https://primary.example/");
+    }
+
+    @Test
+    void recentWritesIsOffWithoutReplicas() {
+        RecentWrites recentWrites = new RecentWrites(List.of(), Duration.ofSeconds(5), 100);
+
+        recentWrites.record("abc");
+
+        assertThat(recentWrites.contains("abc")).isFalse();
+    }
+
+    private String servedBy() {
+        return jdbc.queryForObject("select long_url from url_mappings where short_code = 'abc'", String.class)
+                .replace("https://", "").replace(".example/", "");
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource pool = pool(name, "jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        JdbcTemplate setup = new JdbcTemplate(pool);
+        setup.execute("""
+                create table url_mappings (short_code varchar(32) primary key, long_url varchar(2048) not null,
+                    redirect_status int, is_custom boolean not null, expires_at timestamp)""");
+        setup.update("insert into url_mappings values ('abc', ?, null, false, null)", "https://" + name + ".example/");
+        return pool;
+    }
+
+    private HikariDataSource down() {
+        return pool("replica-down", "jdbc:h2:tcp://127.0.0.1:1/mem:down");
+    }
+
+    private HikariDataSource pool(String name, String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(2);
+        pool.setConnectionTimeout(250);
+        pool.setInitializationFailTimeout(-1);
+        pools.add(pool);
+        return pool;
+    }
+}
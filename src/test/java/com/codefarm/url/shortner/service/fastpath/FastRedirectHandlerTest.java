@@ -0,0 +1,325 @@
+package com.codefarm.url.shortner.service.fastpath;
+
+import com.codefarm.url.shortner.service.analytics.ClickRecorder;
+import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import com.codefarm.url.shortner.service.exception.ApiError;
+import com.codefarm.url.shortner.service.web.dto.BatchShortenResult;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import com.codefarm.url.shortner.service.web.dto.ShortenResponse;
+import com.codefarm.url.shortner.service.web.dto.UserMetricsResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.flow.FlowControlHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the handler through an {@link EmbeddedChannel} with the server's encoder and flow control,
+ * and reads back the bytes it writes. The service answers from maps: {@code cached} as the redirect
+ * cache would, {@code stored} only through the blocking lookup, and {@code offHeap} as raw heads.
+ * Lookups run on a thread the test starts and joins, then the channel runs the task they hand back.
+ */
+class FastRedirectHandlerTest {
+
+    private static final ResponseEntity<Void> CACHED_301 = ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
+            .header("Location", "https://example.com/cached")
+            .header("Cache-Control", "private, max-age=90")
+            .build();
+    private static final ResponseEntity<Void> STORED_302 = ResponseEntity.status(HttpStatus.FOUND)
+            .header("Location", "https://example.com/stored")
+            .build();
+    private static final String OFF_HEAP_HEAD =
+            "HTTP/1.1 301 Moved Permanently\r\nLocation: https://example.com/arena\r\ncontent-length: 0\r\n";
+
+    private final FakeService service = new FakeService();
+    private final List<String> clicks = new CopyOnWriteArrayList<>();
+    private final List<Runnable> lookups = new ArrayList<>();
+    private final EmbeddedChannel channel = new EmbeddedChannel(new FastRedirectHandler.ResponseEncoder(),
+            new FlowControlHandler(), new FastRedirectHandler(service, new RecordingClicks(), lookups::add));
+
+    @AfterEach
+    void close() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void answersACachedRedirectOnTheEventLoop() {
+        service.cached.put("abc", CACHED_301);
+
+        channel.writeInbound(get("/abc"));
+
+        assertThat(response()).isEqualTo("HTTP/1.1 301 Moved Permanently\r\n"
+                + "Location: https://example.com/cached\r\n"
+                + "Cache-Control: private, max-age=90\r\n"
+                + "content-length: 0\r\n\r\n");
+        assertThat(lookups).isEmpty();
+        assertThat(clicks).containsExactly("abc");
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    @Test
+    void ignoresTheQuery() {
+        service.cached.put("abc", CACHED_301);
+
+        channel.writeInbound(get("/abc?utm_source=x&b=%20"));
+
+        assertThat(response()).startsWith("HTTP/1.1 301 Moved Permanently\r\n");
+        assertThat(service.asked).containsExactly("abc");
+    }
+
+    @Test
+    void answersPathsNoCodeCouldHave404WithoutALookup() {
+        for (String uri : new String[] {"/ab%20c", "/" + "a".repeat(33), "/abc/def", "/", "http://host/abc"}) {
+            channel.writeInbound(get(uri));
+
+            assertThat(response()).startsWith("HTTP/1.1 404 Not Found\r\n")
+                    .endsWith("\r\n\r\n{\"error\":\"Short code not found\"}");
+        }
+        assertThat(service.asked).isEmpty();
+        assertThat(clicks).isEmpty();
+    }
+
+    @Test
+    void answersTheSharedErrorBodies() {
+        service.cached.put("gone", ApiError.SHORT_CODE_EXPIRED.response());
+        service.cached.put("nope", ApiError.SHORT_CODE_NOT_FOUND.response());
+
+        channel.writeInbound(get("/gone"));
+        String gone = response();
+        channel.writeInbound(get("/nope"));
+        String notFound = response();
+
+        assertThat(gone).startsWith("HTTP/1.1 410 Gone\r\n")
+                .contains("content-type: application/json\r\n", "content-length: 33\r\n")
+                .endsWith("\r\n\r\n{\"error\":\"Short URL has expired\"}");
+        assertThat(notFound).startsWith("HTTP/1.1 404 Not Found\r\n")
+                .endsWith("\r\n\r\n{\"error\":\"Short code not found\"}");
+        assertThat(clicks).isEmpty();
+    }
+
+    @Test
+    void headGetsTheHeadersWithoutTheBody() {
+        service.cached.put("abc", CACHED_301);
+        service.cached.put("gone", ApiError.SHORT_CODE_EXPIRED.response());
+
+        channel.writeInbound(request(HttpMethod.HEAD, "/abc", HttpVersion.HTTP_1_1));
+        assertThat(response()).startsWith("HTTP/1.1 301 Moved Permanently\r\n").endsWith("content-length: 0\r\n\r\n");
+
+        channel.writeInbound(request(HttpMethod.HEAD, "/gone", HttpVersion.HTTP_1_1));
+        assertThat(response()).startsWith("HTTP/1.1 410 Gone\r\n").contains("content-length: 33\r\n").endsWith("\r\n\r\n");
+    }
+
+    @Test
+    void rejectsOtherMethods() {
+        channel.writeInbound(request(HttpMethod.POST, "/abc", HttpVersion.HTTP_1_1));
+
+        assertThat(response()).startsWith("HTTP/1.1 405 Method Not Allowed\r\n").contains("allow: GET, HEAD\r\n");
+        assertThat(service.asked).isEmpty();
+    }
+
+    @Test
+    void looksUpMissesOffTheEventLoopAndKeepsPipelinedRequestsInOrder() throws InterruptedException {
+        service.stored.put("slow", STORED_302);
+        service.cached.put("abc", CACHED_301);
+
+        channel.writeInbound(get("/slow"), get("/abc"));
+
+        // The miss is pending: nothing is written and the cached request behind it waits.
+        assertThat(lookups).hasSize(1);
+        assertThat(channel.config().isAutoRead()).isFalse();
+        assertThat(response()).isEmpty();
+        assertThat(service.asked).containsExactly("slow");
+
+        Thread lookup = Thread.ofPlatform().start(lookups.getFirst());
+        lookup.join();
+        channel.runPendingTasks();
+
+        assertThat(service.lookupThreads).containsExactly(lookup);
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(response()).startsWith("HTTP/1.1 302 Found\r\nLocation: https://example.com/stored\r\n")
+                .contains("\r\n\r\nHTTP/1.1 301 Moved Permanently\r\nLocation: https://example.com/cached\r\n");
+        assertThat(clicks).containsExactly("slow", "abc");
+    }
+
+    @Test
+    void aFailedLookupIs500AndCloses() throws InterruptedException {
+        channel.writeInbound(get("/broken"));
+
+        Thread lookup = Thread.ofPlatform().start(lookups.getFirst());
+        lookup.join();
+        channel.runPendingTasks();
+
+        assertThat(response()).startsWith("HTTP/1.1 500 Internal Server Error\r\n").contains("connection: close\r\n");
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    @Test
+    void writesOffHeapHeadsAsRawBytes() {
+        service.offHeap.put("raw", OFF_HEAP_HEAD);
+
+        channel.writeInbound(get("/raw"));
+
+        assertThat(response()).isEqualTo(OFF_HEAP_HEAD + "\r\n");
+        assertThat(clicks).containsExactly("raw");
+        assertThat(service.asked).isEmpty();
+    }
+
+    @Test
+    void offHeapHeadsAreSkippedForRevalidation() {
+        service.offHeap.put("raw", OFF_HEAP_HEAD);
+        service.cached.put("raw", CACHED_301);
+        FullHttpRequest request = get("/raw");
+        request.headers().set(HttpHeaderNames.IF_NONE_MATCH, "\"abc\"");
+
+        channel.writeInbound(request);
+
+        assertThat(response()).contains("Location: https://example.com/cached\r\n");
+    }
+
+    @Test
+    void keepsTheConnectionAsTheClientAsked() {
+        service.cached.put("abc", CACHED_301);
+        service.offHeap.put("raw", OFF_HEAP_HEAD);
+
+        channel.writeInbound(request(HttpMethod.GET, "/abc", HttpVersion.HTTP_1_0));
+        assertThat(response()).doesNotContain("connection:");
+        assertThat(channel.isOpen()).isFalse();
+
+        EmbeddedChannel http10 = channel(keepAlive(request(HttpMethod.GET, "/abc", HttpVersion.HTTP_1_0)));
+        assertThat(response(http10)).contains("connection: keep-alive\r\n");
+        assertThat(http10.isOpen()).isTrue();
+
+        EmbeddedChannel rawHttp10 = channel(keepAlive(request(HttpMethod.GET, "/raw", HttpVersion.HTTP_1_0)));
+        assertThat(response(rawHttp10)).isEqualTo(OFF_HEAP_HEAD + "connection: keep-alive\r\n\r\n");
+        assertThat(rawHttp10.isOpen()).isTrue();
+
+        FullHttpRequest close = get("/raw");
+        close.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        EmbeddedChannel rawClose = channel(close);
+        assertThat(response(rawClose)).isEqualTo(OFF_HEAP_HEAD + "connection: close\r\n\r\n");
+        assertThat(rawClose.isOpen()).isFalse();
+
+        http10.finishAndReleaseAll();
+        rawHttp10.finishAndReleaseAll();
+        rawClose.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel channel(FullHttpRequest request) {
+        EmbeddedChannel other = new EmbeddedChannel(new FastRedirectHandler.ResponseEncoder(), new FlowControlHandler(),
+                new FastRedirectHandler(service, new RecordingClicks(), lookups::add));
+        other.writeInbound(request);
+        return other;
+    }
+
+    private String response() {
+        return response(channel);
+    }
+
+    private static String response(EmbeddedChannel channel) {
+        StringBuilder written = new StringBuilder();
+        for (ByteBuf buf = channel.readOutbound(); buf != null; buf = channel.readOutbound()) {
+            written.append(buf.toString(StandardCharsets.UTF_8));
+            buf.release();
+        }
+        return written.toString();
+    }
+
+    private static FullHttpRequest get(String uri) {
+        return request(HttpMethod.GET, uri, HttpVersion.HTTP_1_1);
+    }
+
+    private static FullHttpRequest request(HttpMethod method, String uri, HttpVersion version) {
+        return new DefaultFullHttpRequest(version, method, uri);
+    }
+
+    private static FullHttpRequest keepAlive(FullHttpRequest request) {
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        return request;
+    }
+
+    private final class RecordingClicks extends ClickRecorder {
+
+        RecordingClicks() {
+            super(null, false, 1024, OverflowPolicy.DROP, 10, Duration.ofSeconds(5));
+        }
+
+        @Override
+        public void record(String shortCode, String referrer, String userAgent) {
+            clicks.add(shortCode);
+        }
+    }
+
+    private static final class FakeService implements UrlShortenerService {
+
+        final Map<String, ResponseEntity<?>> cached = new ConcurrentHashMap<>();
+        final Map<String, ResponseEntity<?>> stored = new ConcurrentHashMap<>();
+        final Map<String, String> offHeap = new ConcurrentHashMap<>();
+        final List<String> asked = new CopyOnWriteArrayList<>();
+        final List<Thread> lookupThreads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public int redirectHeadIfOffHeap(String shortCode, String ifNoneMatch, byte[] head) {
+            String raw = offHeap.get(shortCode);
+            if (raw == null || ifNoneMatch != null) {
+                return -1;
+            }
+            byte[] bytes = raw.getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(bytes, 0, head, 0, bytes.length);
+            return bytes.length;
+        }
+
+        @Override
+        public ResponseEntity<?> redirectIfCached(String shortCode, String ifNoneMatch) {
+            asked.add(shortCode);
+            return cached.get(shortCode);
+        }
+
+        @Override
+        public ResponseEntity<?> redirect(String shortCode, String ifNoneMatch) {
+            lookupThreads.add(Thread.currentThread());
+            ResponseEntity<?> response = stored.get(shortCode);
+            if (response == null) {
+                throw new IllegalStateException("store unavailable");
+            }
+            return response;
+        }
+
+        @Override
+        public ShortenResponse shortenUrl(ShortenRequest request, String requestBaseUrl, String userUuid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<BatchShortenResult> shortenBatch(List<ShortenRequest> requests, String requestBaseUrl, String userUuid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<UserMetricsResponse> userMetrics(int page, int size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<UserMetricsResponse> topUsers(int limit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
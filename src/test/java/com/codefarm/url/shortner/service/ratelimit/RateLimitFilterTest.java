@@ -0,0 +1,47 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    // One request per IP, then one a second.
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimiter(List.of("ip:1:1", "user:1:1"), "ip",
+            "user", List.of(), 100, Duration.ofMinutes(10)), true, 10);
+
+    @Test
+    void limitsShortenRequestsWhateverTheirSpelling() throws Exception {
+        assertThat(send("POST", "/api/v1/shorten").getStatus()).isEqualTo(200);
+
+        for (String uri : List.of("/api/v1/shorten", "/api/v1/shorten;x=y", "/api/v1/shorte%6E", "//api/v1/shorten",
+                "/api/v1/shorten/batch;jsessionid=1", "/shorten;a=b")) {
+            MockHttpServletResponse response = send("POST", uri);
+            assertThat(response.getStatus()).as(uri).isEqualTo(429);
+            assertThat(response.getHeader("Retry-After")).as(uri).isEqualTo("1");
+        }
+    }
+
+    @Test
+    void leavesOtherRequestsAlone() throws Exception {
+        send("POST", "/api/v1/shorten");
+
+        assertThat(send("GET", "/api/v1/shorten").getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/api/v1/urls").getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse send(String method, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("user_uuid", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,83 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitTierTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 10 per second is one token every 100ms, up to 3 at once.
+    private final RateLimitTier tier = new RateLimitTier("t", 10, 3);
+    private final AtomicLong bucket = RateLimitTier.newBucket();
+
+    @Test
+    void admitsTheBurstThenWaitsOneIntervalPerToken() {
+        long now = 1_000 * MS;
+        for (int i = 0; i < 3; i++) {
+            assertThat(tier.tryAcquire(bucket, now, 1)).isZero();
+        }
+        assertThat(tier.tryAcquire(bucket, now, 1)).isEqualTo(100 * MS);
+        assertThat(tier.tryAcquire(bucket, now, 2)).isEqualTo(200 * MS);
+        assertThat(tier.tryAcquire(bucket, now + 60 * MS, 1)).isEqualTo(40 * MS);
+
+        assertThat(tier.tryAcquire(bucket, now + 100 * MS, 1)).isZero();
+        assertThat(tier.tryAcquire(bucket, now + 100 * MS, 1)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void rejectedRequestTakesNothing() {
+        long now = 1_000 * MS;
+        assertThat(tier.tryAcquire(bucket, now, 3)).isZero();
+        long full = bucket.get();
+
+        assertThat(tier.tryAcquire(bucket, now, 1)).isEqualTo(100 * MS);
+        assertThat(bucket.get()).isEqualTo(full);
+    }
+
+    @Test
+    void refillsNoFurtherThanTheBurst() {
+        long now = 1_000 * MS;
+        tier.tryAcquire(bucket, now, 3);
+
+        long later = now + 60_000 * MS;
+        for (int i = 0; i < 3; i++) {
+            assertThat(tier.tryAcquire(bucket, later, 1)).isZero();
+        }
+        assertThat(tier.tryAcquire(bucket, later, 1)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void costAboveTheBurstCostsTheBurst() {
+        long now = 1_000 * MS;
+        assertThat(tier.tryAcquire(bucket, now, 10)).isZero();
+        assertThat(tier.tryAcquire(bucket, now, 10)).isEqualTo(300 * MS);
+    }
+
+    @Test
+    void startsFullAtAnyClockValue() {
+        // System.nanoTime() may be negative; a new bucket must still hold the whole burst.
+        long now = Long.MIN_VALUE / 2;
+        for (int i = 0; i < 3; i++) {
+            assertThat(tier.tryAcquire(bucket, now, 1)).isZero();
+        }
+        assertThat(tier.tryAcquire(bucket, now, 1)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void parsesSpecs() {
+        RateLimitTier parsed = RateLimitTier.parse(" partner:0.5:2 ");
+        assertThat(parsed.name()).isEqualTo("partner");
+        assertThat(parsed.tryAcquire(bucket, 0, 2)).isZero();
+        assertThat(parsed.tryAcquire(bucket, 0, 1)).isEqualTo(2_000 * MS);
+
+        assertThatThrownBy(() -> RateLimitTier.parse("user:5")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimitTier.parse("user:0:5")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimitTier.parse("user:5:0")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.codefarm.url.shortner.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private static final long NOW = 1_000_000_000L;
+
+    private final RateLimiter limiter = new RateLimiter(List.of("ip:10:4", "user:10:2", "restricted:1:1"), "ip",
+            "user", List.of("blocked-user:restricted"), 1_000, Duration.ofMinutes(10));
+
+    @Test
+    void freshUserIdsDoNotGetPastTheIpLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(UUID.randomUUID().toString(), "10.0.0.1", 1, NOW)).isZero();
+        }
+        assertThat(limiter.tryAcquire(UUID.randomUUID().toString(), "10.0.0.1", 1, NOW)).isEqualTo(100_000_000L);
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", 1, NOW)).isEqualTo(100_000_000L);
+
+        assertThat(limiter.tryAcquire(UUID.randomUUID().toString(), "10.0.0.2", 1, NOW)).isZero();
+    }
+
+    @Test
+    void userBucketIsStricterThanTheIp() {
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1", 1, NOW)).isZero();
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1", 1, NOW)).isZero();
+        assertThat(limiter.tryAcquire("alice", "10.0.0.1", 1, NOW)).isEqualTo(100_000_000L);
+
+        // Alice's rejected request took none of the IP's tokens: two remain for others behind it.
+        assertThat(limiter.tryAcquire("bob", "10.0.0.1", 1, NOW)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", 1, NOW)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", 1, NOW)).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    void assignedTierAppliesToTheUser() {
+        assertThat(limiter.tryAcquire("blocked-user", "10.0.0.1", 1, NOW)).isZero();
+        assertThat(limiter.tryAcquire("blocked-user", "10.0.0.1", 1, NOW)).isEqualTo(1_000_000_000L);
+        assertThat(limiter.tryAcquire("blocked-user", "10.0.0.2", 1, NOW)).isEqualTo(1_000_000_000L);
+    }
+
+    @Test
+    void blankUserIdIsChargedToTheIpOnly() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(" ", "10.0.0.1", 1, NOW)).isZero();
+        }
+        assertThat(limiter.tryAcquire("", "10.0.0.1", 1, NOW)).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    void rejectsUnknownTiers() {
+        assertThatThrownBy(() -> new RateLimiter(List.of("ip:1:1"), "ip", "user", List.of(), 10, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(List.of("ip:1:1", "user:1:1"), "ip", "user", List.of("alice"), 10,
+                Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
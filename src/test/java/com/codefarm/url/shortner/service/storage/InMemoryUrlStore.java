@@ -0,0 +1,76 @@
+package com.codefarm.url.shortner.service.storage;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/** Map-backed {@link UrlStore} for tests that need a store but not an engine. */
+public class InMemoryUrlStore implements UrlStore {
+
+    private final Map<String, UrlMapping> mappings = new ConcurrentHashMap<>();
+
+    @Override
+    public RedirectTarget findRedirect(String shortCode) {
+        UrlMapping mapping = mappings.get(shortCode);
+        return mapping == null ? null : new RedirectTarget(mapping.getLongUrl(), mapping.getRedirectStatus(),
+                mapping.isCustom(), mapping.getExpiresAt());
+    }
+
+    @Override
+    public boolean putIfAbsent(UrlMapping mapping) {
+        return mappings.putIfAbsent(mapping.getShortCode(), mapping) == null;
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        return mappings.remove(shortCode) != null;
+    }
+
+    @Override
+    public List<UrlMapping> findByUrlHash(long urlHash) {
+        return mappings.values().stream().filter(m -> m.getLongUrlHash() == urlHash).toList();
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        return mappings.containsKey(shortCode);
+    }
+
+    @Override
+    public Set<String> findExistingShortCodes(Collection<String> shortCodes) {
+        Set<String> taken = new HashSet<>(shortCodes);
+        taken.retainAll(mappings.keySet());
+        return taken;
+    }
+
+    @Override
+    public void scanShortCodes(int batchSize, Consumer<List<String>> batches) {
+        batches.accept(new ArrayList<>(mappings.keySet()));
+    }
+
+    @Override
+    public void scanExpired(LocalDateTime now, int batchSize, Consumer<List<UrlMapping>> batches) {
+        batches.accept(mappings.values().stream()
+                .filter(m -> m.getExpiresAt() != null && !m.getExpiresAt().isAfter(now))
+                .toList());
+    }
+
+    @Override
+    public Map<String, Long> countByUser() {
+        Map<String, Long> counts = new HashMap<>();
+        mappings.values().stream()
+                .filter(m -> m.getUserId() != null)
+                .forEach(m -> counts.merge(m.getUserId(), 1L, Long::sum));
+        return counts;
+    }
+}
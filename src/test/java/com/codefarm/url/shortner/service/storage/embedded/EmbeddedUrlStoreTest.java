@@ -0,0 +1,250 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the store on 64KB segments in a temporary directory. A crash is simulated by copying the
+ * files of a store that is still open: the copy holds whatever reached the page cache and a
+ * metadata file that says the store was not closed cleanly.
+ */
+class EmbeddedUrlStoreTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private final List<EmbeddedUrlStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() {
+        opened.forEach(EmbeddedUrlStore::close);
+    }
+
+    @Test
+    void putsGetsDeletesAndReputs() {
+        EmbeddedUrlStore store = open(dir.resolve("store"));
+        UrlMapping first = mapping("promo", "https://example.com/a");
+
+        assertThat(store.putIfAbsent(first)).isTrue();
+        assertThat(store.putIfAbsent(mapping("promo", "https://example.com/b"))).isFalse();
+        assertThat(store.findLongUrl("promo")).isEqualTo("https://example.com/a");
+        assertThat(store.findRedirect("promo").longUrl()).isEqualTo("https://example.com/a");
+        assertThat(store.findByUrlHash(first.getLongUrlHash())).hasSize(1);
+
+        assertThat(store.delete("promo")).isTrue();
+        assertThat(store.delete("promo")).isFalse();
+        assertThat(store.exists("promo")).isFalse();
+        assertThat(store.findRedirect("promo")).isNull();
+        assertThat(store.findByUrlHash(first.getLongUrlHash())).isEmpty();
+
+        assertThat(store.putIfAbsent(mapping("promo", "https://example.com/b"))).isTrue();
+        assertThat(store.findLongUrl("promo")).isEqualTo("https://example.com/b");
+    }
+
+    @Test
+    void reopensCleanlyClosedStoreWithoutReplay() throws IOException {
+        Path path = dir.resolve("store");
+        EmbeddedUrlStore store = open(path);
+        List<UrlMapping> mappings = mappings("m", 2_000);
+        mappings.forEach(store::putIfAbsent);
+        store.delete("m0");
+        store.close();
+        opened.remove(store);
+        assertThat(Files.readString(path.resolve("store.meta"))).contains("clean=true");
+
+        EmbeddedUrlStore reopened = open(path);
+        assertThat(reopened.exists("m0")).isFalse();
+        for (UrlMapping mapping : mappings.subList(1, mappings.size())) {
+            assertThat(reopened.findLongUrl(mapping.getShortCode())).isEqualTo(mapping.getLongUrl());
+        }
+        assertThat(reopened.countByUser()).containsEntry("user", 1_999L);
+    }
+
+    @Test
+    void replaysLogAfterUncleanShutdown() throws IOException {
+        EmbeddedUrlStore store = open(dir.resolve("store"));
+        List<UrlMapping> mappings = mappings("m", 2_000);
+        mappings.forEach(store::putIfAbsent);
+        store.delete("m0");
+        store.delete("m1");
+        store.putIfAbsent(mapping("m1", "https://example.com/again"));
+
+        EmbeddedUrlStore recovered = open(crash(dir.resolve("store")));
+        assertThat(recovered.exists("m0")).isFalse();
+        assertThat(recovered.findLongUrl("m1")).isEqualTo("https://example.com/again");
+        for (UrlMapping mapping : mappings.subList(2, mappings.size())) {
+            assertThat(recovered.findLongUrl(mapping.getShortCode())).isEqualTo(mapping.getLongUrl());
+        }
+        assertThat(recovered.countByUser()).containsEntry("user", 1_999L);
+    }
+
+    @Test
+    void cutsOffTornTailRecord() throws IOException {
+        Path path = dir.resolve("store");
+        EmbeddedUrlStore store = open(path);
+        List<UrlMapping> mappings = mappings("m", 10);
+        mappings.forEach(store::putIfAbsent);
+        Path copy = crash(path);
+        byte[] torn = LogRecord.encodePut(mapping("torn", "https://example.com/torn"));
+        writeAt(copy, endOf(mappings), ByteBuffer.wrap(torn, 0, torn.length - 3));
+
+        EmbeddedUrlStore recovered = open(copy);
+        assertThat(recovered.exists("torn")).isFalse();
+        assertThat(recovered.findLongUrl("m9")).isEqualTo(mappings.get(9).getLongUrl());
+
+        // The torn bytes were cleared, so a record written over them survives the next replay.
+        assertThat(recovered.putIfAbsent(mapping("next", "https://example.com/next"))).isTrue();
+        EmbeddedUrlStore again = open(crash(copy));
+        assertThat(again.findLongUrl("next")).isEqualTo("https://example.com/next");
+        assertThat(again.exists("torn")).isFalse();
+    }
+
+    @Test
+    void stopsReplayAtRecordWithBadChecksum() throws IOException {
+        Path path = dir.resolve("store");
+        EmbeddedUrlStore store = open(path);
+        List<UrlMapping> mappings = mappings("m", 3);
+        mappings.forEach(store::putIfAbsent);
+        Path copy = crash(path);
+        // Flip the last byte of the second record's URL.
+        int secondEnd = endOf(mappings.subList(0, 2));
+        byte[] last = new byte[1];
+        readAt(copy, secondEnd - 1, ByteBuffer.wrap(last));
+        last[0] ^= 1;
+        writeAt(copy, secondEnd - 1, ByteBuffer.wrap(last));
+
+        EmbeddedUrlStore recovered = open(copy);
+        assertThat(recovered.findLongUrl("m0")).isEqualTo(mappings.get(0).getLongUrl());
+        assertThat(recovered.exists("m1")).isFalse();
+        assertThat(recovered.exists("m2")).isFalse();
+    }
+
+    @Test
+    void compactsWhileReadersRun() throws Exception {
+        Path path = dir.resolve("store");
+        EmbeddedUrlStore store = open(path);
+        List<UrlMapping> mappings = mappings("m", 5_000);
+        mappings.forEach(store::putIfAbsent);
+        List<UrlMapping> live = new ArrayList<>();
+        for (int i = 0; i < mappings.size(); i++) {
+            if (i % 5 == 0) {
+                live.add(mappings.get(i));
+            } else {
+                store.delete(mappings.get(i).getShortCode());
+            }
+        }
+        long segmentsBefore = segmentFiles(path);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> misses = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                while (running.get()) {
+                    for (UrlMapping mapping : live) {
+                        if (!mapping.getLongUrl().equals(store.findLongUrl(mapping.getShortCode()))) {
+                            misses.add(mapping.getShortCode());
+                        }
+                    }
+                    if (store.exists("m1")) {
+                        misses.add("m1");
+                    }
+                }
+            }));
+        }
+        Thread.sleep(50);
+        store.compactIfNeeded();
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(misses).isEmpty();
+        assertThat(segmentFiles(path)).isLessThan(segmentsBefore);
+        for (UrlMapping mapping : live) {
+            assertThat(store.findLongUrl(mapping.getShortCode())).isEqualTo(mapping.getLongUrl());
+        }
+        EmbeddedUrlStore recovered = open(crash(path));
+        assertThat(recovered.countByUser()).containsEntry("user", (long) live.size());
+        assertThat(recovered.exists("m1")).isFalse();
+    }
+
+    private EmbeddedUrlStore open(Path path) {
+        EmbeddedUrlStore store = new EmbeddedUrlStore(path.toString(), DataSize.ofKilobytes(64), 1024,
+                Duration.ofHours(1), Duration.ofHours(1), 0.5);
+        store.open();
+        opened.add(store);
+        return store;
+    }
+
+    private Path crash(Path path) throws IOException {
+        Path copy = dir.resolve(path.getFileName() + "-crashed");
+        Files.createDirectories(copy);
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    private static long segmentFiles(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(f -> f.toString().endsWith(LogSegment.SUFFIX)).count();
+        }
+    }
+
+    /** Position just past the given mappings when they were the first records written. */
+    private static int endOf(List<UrlMapping> mappings) {
+        int end = LogSegment.HEADER_BYTES;
+        for (UrlMapping mapping : mappings) {
+            end += LogRecord.encodePut(mapping).length;
+        }
+        return end;
+    }
+
+    private static void writeAt(Path store, int position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(LogSegment.path(store, 0), StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static void readAt(Path store, int position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(LogSegment.path(store, 0), StandardOpenOption.READ)) {
+            channel.read(bytes, position);
+        }
+    }
+
+    private static List<UrlMapping> mappings(String prefix, int count) {
+        List<UrlMapping> mappings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mappings.add(new UrlMapping(prefix + i, "https://example.com/" + prefix + "/" + i, CREATED, false, "user"));
+        }
+        return mappings;
+    }
+
+    private static UrlMapping mapping(String shortCode, String longUrl) {
+        return new UrlMapping(shortCode, longUrl, CREATED, false, "user");
+    }
+}
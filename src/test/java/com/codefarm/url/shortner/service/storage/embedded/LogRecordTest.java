@@ -0,0 +1,83 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import com.codefarm.url.shortner.service.model.RedirectTarget;
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogRecordTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000);
+
+    @Test
+    void roundTripsEveryField() {
+        UrlMapping mapping = new UrlMapping("promo", "https://example.com/ünïcode?q=1", CREATED, true, "user-1", 307,
+                CREATED.plusDays(7));
+        ByteBuffer buf = ByteBuffer.wrap(LogRecord.encodePut(mapping));
+
+        assertThat(LogRecord.validLength(buf, 0, buf.capacity())).isEqualTo(buf.capacity());
+        assertThat(LogRecord.type(buf, 0)).isEqualTo(LogRecord.PUT);
+        assertThat(LogRecord.codeEquals(buf, 0, "promo")).isTrue();
+        assertThat(LogRecord.codeEquals(buf, 0, "promO")).isFalse();
+        assertThat(LogRecord.urlHash(buf, 0)).isEqualTo(mapping.getLongUrlHash());
+
+        UrlMapping read = LogRecord.toMapping(buf, 0);
+        assertThat(read.getShortCode()).isEqualTo("promo");
+        assertThat(read.getLongUrl()).isEqualTo(mapping.getLongUrl());
+        assertThat(read.getCreatedAt()).isEqualTo(CREATED);
+        assertThat(read.isCustom()).isTrue();
+        assertThat(read.getUserId()).isEqualTo("user-1");
+        assertThat(read.getRedirectStatus()).isEqualTo(307);
+        assertThat(read.getExpiresAt()).isEqualTo(CREATED.plusDays(7));
+    }
+
+    @Test
+    void leavesOptionalFieldsUnset() {
+        UrlMapping mapping = new UrlMapping("abc123", "https://example.com/", CREATED, false);
+        ByteBuffer buf = ByteBuffer.wrap(LogRecord.encodePut(mapping));
+
+        assertThat(LogRecord.toRedirectTarget(buf, 0))
+                .isEqualTo(new RedirectTarget("https://example.com/", null, false, null));
+        assertThat(LogRecord.userId(buf, 0)).isNull();
+        assertThat(LogRecord.expiresAtMillis(buf, 0)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void deleteCarriesCodeAndUrlHash() {
+        ByteBuffer buf = ByteBuffer.wrap(LogRecord.encodeDelete("abc123", 42L));
+
+        assertThat(LogRecord.validLength(buf, 0, buf.capacity())).isEqualTo(buf.capacity());
+        assertThat(LogRecord.type(buf, 0)).isEqualTo(LogRecord.DELETE);
+        assertThat(LogRecord.code(buf, 0)).isEqualTo("abc123");
+        assertThat(LogRecord.urlHash(buf, 0)).isEqualTo(42L);
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptRecords() {
+        byte[] record = LogRecord.encodePut(new UrlMapping("abc123", "https://example.com/x", CREATED, false));
+        ByteBuffer buf = ByteBuffer.wrap(record);
+
+        assertThat(LogRecord.validLength(buf, 0, record.length - 1)).isZero();
+        assertThat(LogRecord.validLength(ByteBuffer.allocate(64), 0, 64)).isZero();
+
+        record[record.length - 1] ^= 1;
+        assertThat(LogRecord.validLength(buf, 0, record.length)).isZero();
+        record[record.length - 1] ^= 1;
+        buf.putInt(4, Integer.MAX_VALUE);
+        assertThat(LogRecord.validLength(buf, 0, record.length)).isZero();
+    }
+
+    @Test
+    void rejectsUnsupportedStatusAndOversizedMapping() {
+        assertThatThrownBy(() -> LogRecord.encodePut(new UrlMapping("a", "https://example.com/", CREATED, false, null, 303)))
+                .isInstanceOf(IllegalArgumentException.class);
+        String huge = "https://example.com/" + "a".repeat(LogRecord.MAX_RECORD_BYTES);
+        assertThatThrownBy(() -> LogRecord.encodePut(new UrlMapping("a", huge, CREATED, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
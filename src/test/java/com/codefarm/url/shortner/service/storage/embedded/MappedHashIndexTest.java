@@ -0,0 +1,98 @@
+package com.codefarm.url.shortner.service.storage.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedHashIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsEveryValueStoredUnderAKey() throws IOException {
+        try (MappedHashIndex index = MappedHashIndex.create(dir.resolve("idx"), 16)) {
+            index.put(7, 100);
+            index.put(7, 200);
+            // Same slot as 7, different key: continues the probe chain but never matches.
+            index.put(7 + index.capacity(), 300);
+
+            assertThat(values(index, 7)).containsExactly(100L, 200L);
+            assertThat(values(index, 7 + index.capacity())).containsExactly(300L);
+            assertThat(values(index, 8)).isEmpty();
+            assertThat(index.find(7, v -> v != 200)).isEqualTo(200L);
+
+            assertThat(index.remove(7, 100)).isTrue();
+            assertThat(index.remove(7, 100)).isFalse();
+            assertThat(values(index, 7)).containsExactly(200L);
+            assertThat(values(index, 7 + index.capacity())).containsExactly(300L);
+
+            assertThat(index.replace(7, 200, 250)).isTrue();
+            assertThat(index.contains(7, 250)).isTrue();
+            assertThat(index.contains(7, 200)).isFalse();
+            assertThat(index.size()).isEqualTo(2L);
+        }
+    }
+
+    @Test
+    void rebuildDropsRemovedEntriesAndGrowsWhenFull() throws IOException {
+        Path path = dir.resolve("idx");
+        MappedHashIndex index = MappedHashIndex.create(path, 1024);
+        long key = 1;
+        while (!index.isFull()) {
+            index.put(key, key * 10);
+            key++;
+        }
+        for (long k = 1; k < key; k += 2) {
+            index.remove(k, k * 10);
+        }
+
+        MappedHashIndex rebuilt = index.rebuild(path);
+        index.close();
+        try (rebuilt) {
+            assertThat(rebuilt.size()).isEqualTo((key - 1) / 2);
+            for (long k = 1; k < key; k++) {
+                assertThat(rebuilt.contains(k, k * 10)).isEqualTo(k % 2 == 0);
+            }
+        }
+        assertThat(Files.exists(dir.resolve("idx.tmp"))).isFalse();
+    }
+
+    @Test
+    void reopensWhatWasSynced() throws IOException {
+        Path path = dir.resolve("idx");
+        try (MappedHashIndex index = MappedHashIndex.create(path, 1024)) {
+            index.put(1, 10);
+            index.put(2, 20);
+            index.remove(1, 10);
+            index.sync();
+        }
+        try (MappedHashIndex index = MappedHashIndex.open(path)) {
+            assertThat(index.size()).isEqualTo(1L);
+            assertThat(values(index, 2)).containsExactly(20L);
+            assertThat(values(index, 1)).isEmpty();
+        }
+    }
+
+    @Test
+    void refusesToOpenAForeignFile() throws IOException {
+        Path path = dir.resolve("idx");
+        Files.write(path, new byte[4096]);
+
+        assertThatThrownBy(() -> MappedHashIndex.open(path)).isInstanceOf(IOException.class);
+    }
+
+    private static List<Long> values(MappedHashIndex index, long key) {
+        List<Long> values = new ArrayList<>();
+        index.find(key, values::add);
+        return values;
+    }
+}
@@ -0,0 +1,111 @@
+package com.codefarm.url.shortner.service.storage.sharded;
+
+import com.codefarm.url.shortner.service.model.UrlMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the sharded store against four local in-memory H2 shards. */
+class ShardedUrlStoreTest {
+
+    private static final int SHARDS = 4;
+    private static final int MAPPINGS = 2_000;
+
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+    private ShardedUrlStore store;
+
+    @BeforeEach
+    void openShards() {
+        List<String> urls = IntStream.rangeClosed(1, SHARDS).mapToObj(this::shardUrl).toList();
+        store = new ShardedUrlStore(urls, "sa", "", 128, 4, 100);
+        store.open();
+    }
+
+    @AfterEach
+    void closeShards() {
+        store.close();
+    }
+
+    @Test
+    void spreadsMappingsAndReadsThemBack() {
+        List<UrlMapping> mappings = mappings(MAPPINGS);
+        store.putAll(mappings);
+
+        Map<String, Long> sizes = store.shardSizes();
+        assertThat(sizes).hasSize(SHARDS);
+        assertThat(sizes.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(MAPPINGS);
+        assertThat(sizes.values()).allSatisfy(size -> assertThat(size).isGreaterThan(MAPPINGS / SHARDS / 2));
+        for (UrlMapping mapping : mappings) {
+            assertThat(store.findLongUrl(mapping.getShortCode())).isEqualTo(mapping.getLongUrl());
+        }
+        assertThat(store.findLongUrl("missing")).isNull();
+    }
+
+    @Test
+    void findsExistingMappingByLongUrlAcrossShards() {
+        UrlMapping mapping = mapping("abc123", "https://example.com/dedup");
+        assertThat(store.putIfAbsent(mapping)).isTrue();
+
+        assertThat(store.findByLongUrl(mapping.getLongUrl(), mapping.getLongUrlHash()))
+                .hasValueSatisfying(found -> assertThat(found.getShortCode()).isEqualTo("abc123"));
+        assertThat(store.findByLongUrl("https://example.com/other", 42L)).isEmpty();
+    }
+
+    @Test
+    void rejectsTakenAliasAndForgetsDeletedOne() {
+        assertThat(store.putIfAbsent(mapping("promo", "https://example.com/a"))).isTrue();
+        assertThat(store.putIfAbsent(mapping("promo", "https://example.com/b"))).isFalse();
+        assertThat(store.findLongUrl("promo")).isEqualTo("https://example.com/a");
+
+        assertThat(store.delete("promo")).isTrue();
+        assertThat(store.exists("promo")).isFalse();
+        assertThat(store.findByLongUrl("https://example.com/a", mapping("x", "https://example.com/a").getLongUrlHash())).isEmpty();
+        assertThat(store.putIfAbsent(mapping("promo", "https://example.com/b"))).isTrue();
+    }
+
+    @Test
+    void addShardMovesOnlyItsRowsAndKeepsEverythingReadable() throws Exception {
+        List<UrlMapping> mappings = mappings(MAPPINGS);
+        store.putAll(mappings);
+
+        long moved = store.addShard(shardUrl(SHARDS + 1)).get(30, TimeUnit.SECONDS);
+
+        Map<String, Long> sizes = store.shardSizes();
+        assertThat(store.isRebalancing()).isFalse();
+        assertThat(sizes).hasSize(SHARDS + 1);
+        assertThat(sizes.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(MAPPINGS);
+        assertThat(sizes.get("shard-" + (SHARDS + 1))).isPositive();
+        // Mappings plus index entries; consistent hashing moves about 1/(n+1) of each.
+        assertThat(moved).isLessThan(2L * MAPPINGS / 2);
+        for (UrlMapping mapping : mappings) {
+            assertThat(store.findLongUrl(mapping.getShortCode())).isEqualTo(mapping.getLongUrl());
+            assertThat(store.findByLongUrl(mapping.getLongUrl(), mapping.getLongUrlHash())).isPresent();
+        }
+    }
+
+    private String shardUrl(int number) {
+        return "jdbc:h2:mem:shard-" + run + "-" + number + ";DB_CLOSE_DELAY=-1;MODE=MySQL";
+    }
+
+    private static List<UrlMapping> mappings(int count) {
+        List<UrlMapping> mappings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mappings.add(mapping(Long.toString(1_000_000L + i, 36), "https://example.com/page/" + i));
+        }
+        return mappings;
+    }
+
+    private static UrlMapping mapping(String shortCode, String longUrl) {
+        return new UrlMapping(shortCode, longUrl, LocalDateTime.now(), false, null);
+    }
+}
@@ -0,0 +1,132 @@
+package com.codefarm.url.shortner.service.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.EPOCH_START;
+import static com.codefarm.url.shortner.service.util.SnowflakeIdGenerator.TIMESTAMP_SHIFT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AtomicSnowflakeIdGeneratorTest {
+
+    private static final long T = EPOCH_START + 1_000_000;
+    private static final long SEQUENCE_MASK = 4095;
+
+    private final ManualClockGenerator generator = new ManualClockGenerator();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    AtomicSnowflakeIdGeneratorTest() {
+        generator.bindTo(registry);
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingPerThreadAcross64Threads() throws InterruptedException {
+        AtomicSnowflakeIdGenerator shared = new AtomicSnowflakeIdGenerator(3, 7, 50);
+        int perThread = 20_000;
+        ConcurrentLinkedQueue<long[]> issued = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> outOfOrder = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 64; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = shared.nextId();
+                    if (i > 0 && ids[i] <= ids[i - 1]) {
+                        outOfOrder.add(ids[i]);
+                    }
+                }
+                issued.add(ids);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<Long> unique = new HashSet<>();
+        issued.forEach(ids -> {
+            for (long id : ids) {
+                unique.add(id);
+            }
+        });
+        assertThat(outOfOrder).isEmpty();
+        assertThat(unique).hasSize(64 * perThread);
+    }
+
+    @Test
+    void borrowsFromTheLogicalClockWhenTheClockStepsBackWithinTheLimit() {
+        generator.now = T;
+        long before = generator.nextId();
+
+        generator.now = T - 50;
+        long borrowed = generator.nextId();
+
+        assertThat(borrowed).isGreaterThan(before);
+        assertThat(timestamp(borrowed)).isEqualTo(T);
+        assertThat(borrowed & SEQUENCE_MASK).isEqualTo((before & SEQUENCE_MASK) + 1);
+        assertThat(count("snowflake.clock.backward.borrows")).isEqualTo(1.0);
+    }
+
+    @Test
+    void failsWhenTheClockStepsBackBeyondTheLimit() {
+        generator.now = T;
+        generator.nextId();
+
+        generator.now = T - 51;
+
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Clock moved backwards by 51 ms");
+        assertThat(count("snowflake.clock.backward.borrows")).isZero();
+    }
+
+    @Test
+    void countsEachWaitForAnExhaustedSequenceOnce() {
+        generator.now = T;
+        for (int i = 0; i <= SEQUENCE_MASK; i++) {
+            assertThat(generator.nextId() & SEQUENCE_MASK).isEqualTo(i);
+        }
+        assertThat(count("snowflake.sequence.exhaustion.waits")).isZero();
+
+        // The clock moves on only after several reads, so the generator spins more than once.
+        generator.advanceAfterReads = 5;
+        long next = generator.nextId();
+
+        assertThat(timestamp(next)).isEqualTo(T + 1);
+        assertThat(next & SEQUENCE_MASK).isZero();
+        assertThat(count("snowflake.sequence.exhaustion.waits")).isEqualTo(1.0);
+    }
+
+    private double count(String name) {
+        return registry.get(name).functionCounter().count();
+    }
+
+    private static long timestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_START;
+    }
+
+    private static final class ManualClockGenerator extends AtomicSnowflakeIdGenerator {
+
+        long now;
+        int advanceAfterReads;
+
+        ManualClockGenerator() {
+            super(1, 1, 50);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            if (advanceAfterReads > 0 && --advanceAfterReads == 0) {
+                now++;
+            }
+            return now;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.codefarm.url.shortner.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base62EncoderTest {
+
+    private final Base62Encoder encoder = new Base62Encoder();
+
+    @Test
+    void roundTripsVariableLengthCodes() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long id = random.nextLong() & Long.MAX_VALUE;
+            assertThat(encoder.fromBase62(encoder.toBase62(id))).isEqualTo(id);
+        }
+        assertThat(encoder.toBase62(0)).isEqualTo("0");
+        assertThat(encoder.toBase62(61)).isEqualTo("Z");
+    }
+
+    @Test
+    void paddedCodesSortAsStringsInNumericOrder() {
+        Random random = new Random(11);
+        long previous = -1;
+        String previousCode = null;
+        for (int i = 0; i < 10_000; i++) {
+            long id = random.nextLong() & Long.MAX_VALUE;
+            String code = encoder.toBase62Padded(id);
+            assertThat(code).hasSize(Base62Encoder.MAX_LENGTH);
+            if (previousCode != null) {
+                assertThat(Integer.signum(code.compareTo(previousCode))).isEqualTo(Long.signum(Long.compare(id, previous)));
+            }
+            previous = id;
+            previousCode = code;
+        }
+        assertThat(encoder.toBase62Padded(9).compareTo(encoder.toBase62Padded(10))).isNegative();
+        assertThat(encoder.toBase62Padded(35).compareTo(encoder.toBase62Padded(36))).isNegative();
+        assertThat(encoder.toBase62Padded(Long.MAX_VALUE).compareTo(encoder.toBase62Padded(Long.MAX_VALUE - 1))).isPositive();
+    }
+
+    @Test
+    void roundTripsPaddedCodes() {
+        Random random = new Random(13);
+        for (int i = 0; i < 10_000; i++) {
+            long id = random.nextLong() & Long.MAX_VALUE;
+            assertThat(encoder.fromBase62Padded(encoder.toBase62Padded(id))).isEqualTo(id);
+        }
+        assertThat(encoder.toBase62Padded(0)).isEqualTo("00000000000");
+        assertThat(encoder.fromBase62Padded("0000000000z")).isEqualTo(61);
+        assertThat(encoder.fromBase62Padded(encoder.toBase62Padded(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        // Digits past 9 differ between the two encodings
+        assertThat(encoder.fromBase62Padded("0000000000A")).isNotEqualTo(encoder.fromBase62("0000000000A"));
+    }
+
+    @Test
+    void rejectsNegativeNumbersAndBadCodes() {
+        assertThatThrownBy(() -> encoder.toBase62(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.toBase62Padded(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.fromBase62("ab-c")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.fromBase62("ZZZZZZZZZZZ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.fromBase62Padded("00a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.fromBase62Padded("0000000000-")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.fromBase62Padded("zzzzzzzzzzz")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
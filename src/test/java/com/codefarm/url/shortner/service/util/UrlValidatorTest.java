@@ -0,0 +1,72 @@
+package com.codefarm.url.shortner.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlValidatorTest {
+
+    // Each URL's host must be what java.net.URI reports, null included.
+    private static final String[] URLS = {
+            // hostnames
+            "https://example.com", "https://www.example.com/path?q=1#top", "http://EXAMPLE.com:8080/",
+            "https://example.com.", "https://example.com..", "https://.example.com", "https://localhost",
+            "https://a-b.example.com", "https://-ab.example.com", "https://ab-.example.com", "https://a_b.example.com",
+            "https://" + "a".repeat(64) + ".com", "https://xn--bcher-kva.example", "https://bücher.example",
+            // digit-leading labels and IPv4
+            "https://foo.123", "https://foo.1a", "https://123.com", "https://123", "https://999", "https://1foo.com",
+            "https://1.2.3.4", "https://1.2.3.4:80/x", "https://1.2.3.256", "https://1.2.3", "https://1.2.3.4.5",
+            "https://1.2.3.4.", "https://1.2.3.4.com", "https://1.2.3.4x", "https://0001.2.3.4", "https://99999999999",
+            // IPv6
+            "http://[::1]", "http://[::1]:8080/x", "http://[fe80::1%eth0]", "http://[fe80::1%]", "http://[%eth0]",
+            "http://[1:2:3:4:5:6:7:8]", "http://[1:2:3:4:5:6:7:8:9]", "http://[1:2:3:4:5:6:7]", "http://[::]",
+            "http://[::ffff:1.2.3.4]", "http://[1::2::3]", "http://[12345::1]", "http://[1.2.3.4]", "http://[]",
+            "http://[::1", "http://[::1]x", "http://[0]",
+            // user info and port
+            "https://user:pw@example.com", "https://us%20er@example.com", "https://a@b@example.com",
+            "https://[x]@example.com", "https://example.com:", "https://example.com:65536",
+            "https://example.com:2147483648", "https://example.com:8o", "https://@example.com", "https://user@",
+            // path, query and fragment
+            "https://example.com/a b", "https://example.com/%zz", "https://example.com/%41", "https://example.com/[x]",
+            "https://example.com/?q=[x]", "https://example.com/#a#b", "https://example.com/#[x]", "https://example.com/é",
+            "https://example.com/a|b", "https://example.com/a\"b", "https://example.com/?a=b?c", "https://example.com/\tx",
+            // scheme and authority
+            "https:///path", "https://", "https:/example.com", "1https://example.com", "h+t-t.p://example.com",
+    };
+
+    @Test
+    void hostMatchesJavaNetUri() {
+        for (String url : URLS) {
+            assertThat(UrlValidator.host(url)).as(url).isEqualTo(uriHost(url));
+        }
+    }
+
+    @Test
+    void acceptsTopLabelsOnlyWhenTheyStartWithALetter() {
+        assertThat(UrlValidator.host("https://foo.123")).isNull();
+        assertThat(UrlValidator.host("https://foo.bar1")).isEqualTo("foo.bar1");
+        assertThat(UrlValidator.host("https://10.0.0.1")).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    void validatesAliases() {
+        assertThat(UrlValidator.isValidAlias("my-link_1")).isTrue();
+        assertThat(UrlValidator.isValidAlias("a".repeat(UrlValidator.MAX_ALIAS_LENGTH))).isTrue();
+        assertThat(UrlValidator.isValidAlias("a".repeat(UrlValidator.MAX_ALIAS_LENGTH + 1))).isFalse();
+        assertThat(UrlValidator.isValidAlias("")).isFalse();
+        assertThat(UrlValidator.isValidAlias("a b")).isFalse();
+        assertThat(UrlValidator.isValidAlias("a/b")).isFalse();
+        assertThat(UrlValidator.isValidAlias("ü")).isFalse();
+    }
+
+    private static String uriHost(String url) {
+        try {
+            return new URI(url).getHost();
+        } catch (URISyntaxException ex) {
+            return null;
+        }
+    }
+}
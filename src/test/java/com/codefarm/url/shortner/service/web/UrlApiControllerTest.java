@@ -0,0 +1,140 @@
+package com.codefarm.url.shortner.service.web;
+
+import com.codefarm.url.shortner.service.analytics.ClickStatsService;
+import com.codefarm.url.shortner.service.core.UrlShortenerService;
+import com.codefarm.url.shortner.service.ratelimit.RateLimitFilter;
+import com.codefarm.url.shortner.service.web.dto.BatchShortenResult;
+import com.codefarm.url.shortner.service.web.dto.ShortenRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch endpoints with chunks of two. The service answers each request in order, with a code
+ * taken from its URL's last character, and fails alias {@code taken} the way a conflicting alias fails.
+ */
+@WebMvcTest(controllers = UrlApiController.class, properties = "shorten.batch.chunk-size=2",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RateLimitFilter.class))
+class UrlApiControllerTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final String ALIAS_TAKEN = "Alias already in use";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private UrlShortenerService service;
+
+    @MockitoBean
+    private ClickStatsService clickStatsService;
+
+    private final List<List<ShortenRequest>> chunks = new ArrayList<>();
+
+    @BeforeEach
+    void stubService() {
+        when(service.shortenBatch(anyList(), eq("http://localhost"), any())).thenAnswer(invocation -> {
+            List<ShortenRequest> chunk = List.copyOf(invocation.<List<ShortenRequest>>getArgument(0));
+            chunks.add(chunk);
+            return chunk.stream().map(UrlApiControllerTest::shorten).toList();
+        });
+    }
+
+    @Test
+    void ndjsonReportsMalformedLinesInPlace() throws Exception {
+        String body = """
+                {"longUrl":"https://example.com/1"}
+                not json
+
+                {"longUrl":"https://example.com/2"}
+                {"longUrl":"https://example.com/3"}
+                null
+                {"longUrl":
+                {"longUrl":"https://example.com/4","customAlias":"taken"}
+                """;
+
+        List<BatchShortenResult> results = ndjson(body);
+
+        assertThat(results).containsExactly(
+                success("1"),
+                BatchShortenResult.failure("Malformed JSON line"),
+                success("2"),
+                success("3"),
+                BatchShortenResult.failure("Request must be a JSON object"),
+                BatchShortenResult.failure("Malformed JSON line"),
+                BatchShortenResult.failure(ALIAS_TAKEN));
+        // Chunks of two lines; blank lines do not count, and a chunk of bad lines never reaches the service.
+        assertThat(chunks).extracting(List::size).containsExactly(1, 2, 1);
+    }
+
+    @Test
+    void jsonBatchesOverTheChunkSizeAreShortenedInChunks() throws Exception {
+        String body = """
+                [{"longUrl":"https://example.com/1"},
+                 {"longUrl":"https://example.com/2","customAlias":"taken"},
+                 {"longUrl":"https://example.com/3","customAlias":"mine"},
+                 null,
+                 {"longUrl":"https://example.com/5"}]""";
+
+        String response = mvc.perform(post("/api/v1/shorten/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<BatchShortenResult> results = objectMapper.readValue(response, new TypeReference<>() {
+        });
+        assertThat(results).containsExactly(
+                success("1"),
+                BatchShortenResult.failure(ALIAS_TAKEN),
+                success("3"),
+                BatchShortenResult.failure("Request must be a JSON object"),
+                success("5"));
+        assertThat(chunks).extracting(List::size).containsExactly(2, 1, 1);
+    }
+
+    private List<BatchShortenResult> ndjson(String body) throws Exception {
+        String response = mvc.perform(post("/api/v1/shorten/batch").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        List<BatchShortenResult> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            results.add(objectMapper.readValue(line, BatchShortenResult.class));
+        }
+        return results;
+    }
+
+    private static BatchShortenResult shorten(ShortenRequest request) {
+        if ("taken".equals(request.customAlias())) {
+            return BatchShortenResult.failure(ALIAS_TAKEN);
+        }
+        return success(request.longUrl().substring(request.longUrl().length() - 1));
+    }
+
+    private static BatchShortenResult success(String code) {
+        return BatchShortenResult.success(code, "http://localhost/" + code, CREATED_AT, null);
+    }
+}